@@ -1,27 +1,51 @@
 package com.revticket.booking.controller;
 
+import com.revticket.booking.dto.BookingChangePage;
+import com.revticket.booking.dto.BookingExportPage;
 import com.revticket.booking.dto.BookingRequest;
 import com.revticket.booking.dto.BookingResponse;
 import com.revticket.booking.dto.CancellationRequest;
+import com.revticket.booking.dto.DailyBookingStatsDTO;
+import com.revticket.booking.dto.MoviePopularityDTO;
+import com.revticket.booking.dto.ShowtimeCancellationResult;
+import com.revticket.booking.service.BookingReportService;
 import com.revticket.booking.service.BookingService;
+import com.revticket.booking.service.ShowtimeCancellationService;
+import com.revticket.booking.service.ShowtimeCompletionService;
 import com.revticket.booking.util.SecurityUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
 @CrossOrigin(origins = "*")
 public class BookingController {
 
+    private static final int MAX_COMPLETION_BATCH = 500;
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private ShowtimeCancellationService showtimeCancellationService;
+
+    @Autowired
+    private ShowtimeCompletionService showtimeCompletionService;
+
+    @Autowired
+    private BookingReportService bookingReportService;
+
     @Autowired
     private SecurityUtil securityUtil;
 
@@ -67,6 +91,72 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.cancelBooking(id, reason));
     }
 
+    @PostMapping("/showtime/{showtimeId}/cancel-all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ShowtimeCancellationResult> cancelAllForShowtime(
+            @PathVariable String showtimeId,
+            @RequestParam(required = false) String reason) {
+        return ResponseEntity.ok(showtimeCancellationService.cancelAllForShowtime(showtimeId, reason));
+    }
+
+    /**
+     * Marks finished showtimes COMPLETED and returns the seats sold for each.
+     */
+    @PostMapping("/showtimes/complete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> completeShowtimes(@RequestBody List<String> showtimeIds) {
+        if (showtimeIds.size() > MAX_COMPLETION_BATCH) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(showtimeCompletionService.completeShowtimes(showtimeIds));
+    }
+
+    @GetMapping("/report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<BookingResponse>> getBookingsReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookingService.getBookingsPage(from, to, page, size));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingExportPage> getExportPage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(bookingReportService.getExportPage(from, to, cursor, limit));
+    }
+
+    @GetMapping("/changes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingChangePage> getChanges(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(bookingReportService.getChanges(since, cursor, limit));
+    }
+
+    @GetMapping("/public/popularity")
+    public ResponseEntity<List<MoviePopularityDTO>> getMoviePopularity(@RequestParam(defaultValue = "7") int days) {
+        try {
+            return ResponseEntity.ok(bookingReportService.getMoviePopularity(days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/stats/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyBookingStatsDTO>> getDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(bookingReportService.getDailyStats(from, to));
+    }
+
     @GetMapping("/cancellation-requests")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<BookingResponse>> getCancellationRequests() {
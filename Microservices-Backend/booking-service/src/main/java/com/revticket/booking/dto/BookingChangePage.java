@@ -0,0 +1,16 @@
+package com.revticket.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingChangePage {
+    private List<BookingChangeRow> items;
+    /** Opaque cursor for the next page, or null when there are no further changes. */
+    private String nextCursor;
+}
@@ -0,0 +1,37 @@
+package com.revticket.booking.dto;
+
+import com.revticket.booking.entity.Booking;
+import com.revticket.booking.entity.Seat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingChangeRow {
+    private String id;
+    private LocalDateTime updatedAt;
+    private LocalDateTime bookingDate;
+    private Booking.BookingStatus status;
+    private String theaterId;
+    private String movieId;
+    private LocalDateTime showtime;
+    private Integer seatCount;
+    /** Highest seat type in the booking (REGULAR, PREMIUM or VIP). */
+    private String seatCategory;
+    private Double totalAmount;
+    private Double refundAmount;
+    private LocalDateTime refundDate;
+
+    public BookingChangeRow(String id, LocalDateTime updatedAt, LocalDateTime bookingDate,
+                            Booking.BookingStatus status, String theaterId, String movieId, LocalDateTime showtime,
+                            Integer seatCount, Integer seatTier, Double totalAmount, Double refundAmount,
+                            LocalDateTime refundDate) {
+        this(id, updatedAt, bookingDate, status, theaterId, movieId, showtime, seatCount,
+                seatTier == null ? null : Seat.SeatType.values()[seatTier - 1].name(),
+                totalAmount, refundAmount, refundDate);
+    }
+}
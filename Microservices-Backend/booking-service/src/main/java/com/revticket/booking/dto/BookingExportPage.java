@@ -0,0 +1,16 @@
+package com.revticket.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingExportPage {
+    private List<BookingExportRow> items;
+    /** Opaque cursor for the next page, or null when this is the last page. */
+    private String nextCursor;
+}
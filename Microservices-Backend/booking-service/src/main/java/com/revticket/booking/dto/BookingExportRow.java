@@ -0,0 +1,27 @@
+package com.revticket.booking.dto;
+
+import com.revticket.booking.entity.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingExportRow {
+    private String id;
+    private LocalDateTime bookingDate;
+    private Booking.BookingStatus status;
+    private String ticketNumber;
+    private String movieTitle;
+    private String theaterName;
+    private LocalDateTime showtime;
+    private Integer seatCount;
+    private Double totalAmount;
+    private Double refundAmount;
+    private String paymentMethod;
+    private String customerName;
+    private String customerEmail;
+}
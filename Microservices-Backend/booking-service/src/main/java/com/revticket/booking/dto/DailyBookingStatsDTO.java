@@ -0,0 +1,19 @@
+package com.revticket.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBookingStatsDTO {
+    private LocalDate date;
+    private Double revenue;
+    private Long bookings;
+    private Long seats;
+    private Long cancellations;
+    private Long paidBookings;
+}
@@ -0,0 +1,15 @@
+package com.revticket.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoviePopularityDTO {
+    private String movieId;
+    private Long bookingsLastDay;
+    private Long bookings;
+    private Long tickets;
+}
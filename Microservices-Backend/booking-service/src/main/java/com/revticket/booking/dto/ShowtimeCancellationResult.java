@@ -0,0 +1,15 @@
+package com.revticket.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeCancellationResult {
+    private String showtimeId;
+    private int cancelledBookings;
+    private int releasedSeats;
+    private int refundsQueued;
+}
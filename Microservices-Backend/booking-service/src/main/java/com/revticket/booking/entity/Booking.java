@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -13,7 +14,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_booking_date", columnList = "booking_date"),
+        @Index(name = "idx_bookings_updated_at", columnList = "updated_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,12 +35,15 @@ public class Booking {
     @JsonBackReference("showtime-bookings")
     private Showtime showtime;
 
+    // Batched so a page of bookings loads its seats in one query, not one per booking
     @ElementCollection
+    @BatchSize(size = 200)
     @CollectionTable(name = "booking_seats", joinColumns = @JoinColumn(name = "booking_id"))
     @Column(name = "seat_id")
     private List<String> seats = new ArrayList<>();
 
     @ElementCollection
+    @BatchSize(size = 200)
     @CollectionTable(name = "booking_seat_labels", joinColumns = @JoinColumn(name = "booking_id"))
     @Column(name = "seat_label")
     private List<String> seatLabels = new ArrayList<>();
@@ -91,6 +98,11 @@ public class Booking {
     @Column(name = "cancellation_requested_at")
     private LocalDateTime cancellationRequestedAt;
 
+    // Maintained by MySQL on every write, including bulk updates and writes from other services
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private Payment payment;
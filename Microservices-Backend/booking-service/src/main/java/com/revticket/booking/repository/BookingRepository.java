@@ -1,12 +1,123 @@
 package com.revticket.booking.repository;
 
+import com.revticket.booking.dto.BookingChangeRow;
+import com.revticket.booking.dto.BookingExportRow;
 import com.revticket.booking.entity.Booking;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, String> {
     List<Booking> findByUserId(String userId);
+
+    /**
+     * Fetches the to-one associations, including the inverse payment that would
+     * otherwise be selected per row; seats and seat labels are batch fetched.
+     */
+    @EntityGraph(attributePaths = {"user", "showtime", "showtime.movie", "showtime.theater", "payment"})
+    Page<Booking> findByBookingDateGreaterThanEqualAndBookingDateLessThan(LocalDateTime from, LocalDateTime to,
+                                                                         Pageable pageable);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.showtime.id = :showtimeId AND b.status IN :statuses")
+    List<String> findIdsByShowtimeIdAndStatusIn(@Param("showtimeId") String showtimeId,
+                                                @Param("statuses") Collection<Booking.BookingStatus> statuses);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = com.revticket.booking.entity.Booking.BookingStatus.CANCELLED, " +
+            "b.cancellationReason = :reason, " +
+            "b.refundAmount = CASE WHEN EXISTS (SELECT p.id FROM Payment p WHERE p.booking = b " +
+            "AND p.status = com.revticket.booking.entity.Payment.PaymentStatus.SUCCESS) " +
+            "THEN b.totalAmount ELSE b.refundAmount END " +
+            "WHERE b.showtime.id = :showtimeId AND b.status IN :statuses")
+    int cancelAllForShowtime(@Param("showtimeId") String showtimeId,
+                             @Param("statuses") Collection<Booking.BookingStatus> statuses,
+                             @Param("reason") String reason);
+
+    /**
+     * Per-day totals for bookings made in [from, to): day, revenue of paid
+     * bookings, bookings made, seats held by non-cancelled bookings, cancellations,
+     * paid bookings.
+     */
+    @Query(value = "SELECT DATE(b.booking_date) AS day, " +
+            "COALESCE(SUM(CASE WHEN b.status IN ('CONFIRMED', 'CANCELLATION_PENDING') " +
+            "THEN b.total_amount ELSE 0 END), 0) AS revenue, " +
+            "COUNT(*) AS bookings, " +
+            "COALESCE(SUM(CASE WHEN b.status <> 'CANCELLED' " +
+            "THEN (SELECT COUNT(*) FROM booking_seats s WHERE s.booking_id = b.id) ELSE 0 END), 0) AS seats, " +
+            "SUM(CASE WHEN b.status = 'CANCELLED' THEN 1 ELSE 0 END) AS cancellations, " +
+            "SUM(CASE WHEN b.status IN ('CONFIRMED', 'CANCELLATION_PENDING') THEN 1 ELSE 0 END) AS paid_bookings " +
+            "FROM bookings b " +
+            "WHERE b.booking_date >= :from AND b.booking_date < :to " +
+            "GROUP BY DATE(b.booking_date) " +
+            "ORDER BY day",
+            nativeQuery = true)
+    List<Object[]> aggregateByDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Seats held by paid bookings, per showtime: showtime id, seats. Showtimes
+     * without any are omitted.
+     */
+    @Query(value = "SELECT b.showtime_id, COUNT(*) FROM bookings b " +
+            "JOIN booking_seats bs ON bs.booking_id = b.id " +
+            "WHERE b.showtime_id IN (:showtimeIds) AND b.status IN ('CONFIRMED', 'CANCELLATION_PENDING') " +
+            "GROUP BY b.showtime_id",
+            nativeQuery = true)
+    List<Object[]> countSoldSeatsByShowtime(@Param("showtimeIds") Collection<String> showtimeIds);
+
+    /**
+     * Per-movie counts of non-cancelled bookings made since {@code from}:
+     * movie id, bookings since {@code recentFrom}, bookings, seats.
+     */
+    @Query(value = "SELECT s.movie_id AS movie_id, " +
+            "SUM(CASE WHEN b.booking_date >= :recentFrom THEN 1 ELSE 0 END) AS recent, " +
+            "COUNT(*) AS bookings, " +
+            "COALESCE(SUM((SELECT COUNT(*) FROM booking_seats bs WHERE bs.booking_id = b.id)), 0) AS seats " +
+            "FROM bookings b JOIN showtimes s ON s.id = b.showtime_id " +
+            "WHERE b.booking_date >= :from AND b.status <> 'CANCELLED' " +
+            "GROUP BY s.movie_id",
+            nativeQuery = true)
+    List<Object[]> aggregateByMovie(@Param("from") LocalDateTime from, @Param("recentFrom") LocalDateTime recentFrom);
+
+    /**
+     * Keyset page of export rows ordered by (bookingDate, id), starting after
+     * the given position. Projected straight into DTOs so no entities or seat
+     * collections are loaded.
+     */
+    @Query("SELECT new com.revticket.booking.dto.BookingExportRow(" +
+            "b.id, b.bookingDate, b.status, b.ticketNumber, m.title, t.name, s.showDateTime, SIZE(b.seats), " +
+            "b.totalAmount, b.refundAmount, b.paymentMethod, b.customerName, b.customerEmail) " +
+            "FROM Booking b JOIN b.showtime s LEFT JOIN s.movie m LEFT JOIN s.theater t " +
+            "WHERE b.bookingDate < :to " +
+            "AND (b.bookingDate > :afterDate OR (b.bookingDate = :afterDate AND b.id > :afterId)) " +
+            "ORDER BY b.bookingDate ASC, b.id ASC")
+    List<BookingExportRow> findExportRowsAfter(@Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") String afterId,
+                                               @Param("to") LocalDateTime to,
+                                               Pageable pageable);
+
+    /**
+     * Bookings written after the given (updatedAt, id) position, oldest first.
+     */
+    @Query("SELECT new com.revticket.booking.dto.BookingChangeRow(" +
+            "b.id, b.updatedAt, b.bookingDate, b.status, t.id, m.id, s.showDateTime, SIZE(b.seats), " +
+            "(SELECT MAX(CASE WHEN st.type = com.revticket.booking.entity.Seat.SeatType.VIP THEN 3 " +
+            "WHEN st.type = com.revticket.booking.entity.Seat.SeatType.PREMIUM THEN 2 ELSE 1 END) " +
+            "FROM Seat st WHERE st.id MEMBER OF b.seats), " +
+            "b.totalAmount, b.refundAmount, b.refundDate) " +
+            "FROM Booking b JOIN b.showtime s LEFT JOIN s.movie m LEFT JOIN s.theater t " +
+            "WHERE b.updatedAt > :afterDate OR (b.updatedAt = :afterDate AND b.id > :afterId) " +
+            "ORDER BY b.updatedAt ASC, b.id ASC")
+    List<BookingChangeRow> findChangesAfter(@Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") String afterId,
+                                            Pageable pageable);
 }
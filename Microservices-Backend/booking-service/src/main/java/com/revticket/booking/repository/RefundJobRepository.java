@@ -0,0 +1,45 @@
+package com.revticket.booking.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes to refund_jobs, which payment-service owns and maps. booking-service
+ * only queues jobs, so it uses plain SQL instead of a second entity on the
+ * same table.
+ */
+@Repository
+public class RefundJobRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Queues a refund for one booking unless it already has a job. Returns
+     * the number of jobs created.
+     */
+    public int enqueue(String bookingId, String paymentId, double amount) {
+        return jdbcTemplate.update("INSERT INTO refund_jobs "
+                + "(id, booking_id, payment_id, amount, status, attempts, next_attempt_at, created_at, updated_at) "
+                + "SELECT UUID(), ?, ?, ?, 'PENDING', 0, NOW(), NOW(), NOW() FROM DUAL "
+                + "WHERE NOT EXISTS (SELECT 1 FROM refund_jobs r WHERE r.booking_id = ?)",
+                bookingId, paymentId, amount, bookingId);
+    }
+
+    /**
+     * Queues a full refund for every paid, still active booking of a showtime.
+     * Must run before the bookings are flipped to CANCELLED.
+     */
+    public int enqueueForShowtime(String showtimeId) {
+        return jdbcTemplate.update("INSERT INTO refund_jobs "
+                + "(id, booking_id, payment_id, amount, status, attempts, next_attempt_at, created_at, updated_at) "
+                + "SELECT UUID(), b.id, p.id, b.total_amount, 'PENDING', 0, NOW(), NOW(), NOW() "
+                + "FROM bookings b JOIN payments p ON p.booking_id = b.id "
+                + "WHERE b.showtime_id = ? "
+                + "AND b.status IN ('PENDING', 'CONFIRMED', 'CANCELLATION_PENDING') "
+                + "AND p.status = 'SUCCESS' "
+                + "AND NOT EXISTS (SELECT 1 FROM refund_jobs r WHERE r.booking_id = b.id)",
+                showtimeId);
+    }
+}
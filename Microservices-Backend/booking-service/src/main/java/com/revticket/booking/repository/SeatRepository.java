@@ -2,6 +2,9 @@ package com.revticket.booking.repository;
 
 import com.revticket.booking.entity.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +12,9 @@ import java.util.List;
 @Repository
 public interface SeatRepository extends JpaRepository<Seat, String> {
     List<Seat> findByShowtimeId(String showtimeId);
+
+    @Modifying
+    @Query("UPDATE Seat s SET s.isBooked = false, s.isHeld = false, s.holdExpiry = null, s.sessionId = null " +
+            "WHERE s.showtime.id = :showtimeId AND s.isBooked = true")
+    int releaseBookedSeats(@Param("showtimeId") String showtimeId);
 }
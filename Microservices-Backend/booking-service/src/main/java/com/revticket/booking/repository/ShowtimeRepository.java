@@ -2,8 +2,24 @@ package com.revticket.booking.repository;
 
 import com.revticket.booking.entity.Showtime;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface ShowtimeRepository extends JpaRepository<Showtime, String> {
+
+    @Modifying
+    @Query("UPDATE Showtime s SET s.availableSeats = CASE " +
+            "WHEN s.availableSeats + :released > s.totalSeats THEN s.totalSeats " +
+            "ELSE s.availableSeats + :released END WHERE s.id = :showtimeId")
+    int restoreAvailableSeats(@Param("showtimeId") String showtimeId, @Param("released") int released);
+
+    @Modifying
+    @Query("UPDATE Showtime s SET s.status = com.revticket.booking.entity.Showtime.ShowStatus.COMPLETED " +
+            "WHERE s.id IN :ids AND s.status = com.revticket.booking.entity.Showtime.ShowStatus.ACTIVE")
+    int markCompleted(@Param("ids") Collection<String> ids);
 }
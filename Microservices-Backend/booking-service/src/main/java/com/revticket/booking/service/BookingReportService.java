@@ -0,0 +1,178 @@
+package com.revticket.booking.service;
+
+import com.revticket.booking.dto.BookingChangePage;
+import com.revticket.booking.dto.BookingChangeRow;
+import com.revticket.booking.dto.BookingExportPage;
+import com.revticket.booking.dto.BookingExportRow;
+import com.revticket.booking.dto.DailyBookingStatsDTO;
+import com.revticket.booking.dto.MoviePopularityDTO;
+import com.revticket.booking.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reporting queries for the admin dashboard. Aggregation is pushed down to the
+ * database so callers receive one row per day rather than the bookings
+ * themselves.
+ */
+@Service
+public class BookingReportService {
+
+    private static final long MAX_RANGE_DAYS = 366;
+    private static final int MAX_POPULARITY_DAYS = 30;
+    private static final int MAX_EXPORT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    /**
+     * Booking counts per movie over the last {@code days} days, with the last
+     * 24 hours broken out so callers can tell rising titles from steady ones.
+     * Only aggregates are returned, so this is safe to expose publicly.
+     *
+     * @throws IllegalArgumentException if days is outside 1..MAX_POPULARITY_DAYS
+     */
+    @Transactional(readOnly = true)
+    public List<MoviePopularityDTO> getMoviePopularity(int days) {
+        if (days < 1 || days > MAX_POPULARITY_DAYS) {
+            throw new IllegalArgumentException("Days must be between 1 and " + MAX_POPULARITY_DAYS);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<MoviePopularityDTO> movies = new ArrayList<>();
+        for (Object[] row : bookingRepository.aggregateByMovie(now.minusDays(days), now.minusDays(1))) {
+            movies.add(new MoviePopularityDTO(
+                    (String) row[0],
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    ((Number) row[3]).longValue()));
+        }
+        return movies;
+    }
+
+    /**
+     * Returns one entry per day from {@code from} to {@code to} inclusive; days
+     * without bookings are filled with zeros so charts get a continuous axis.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyBookingStatsDTO> getDailyStats(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+
+        Map<LocalDate, DailyBookingStatsDTO> byDay = new HashMap<>();
+        for (Object[] row : bookingRepository.aggregateByDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            LocalDate day = toLocalDate(row[0]);
+            byDay.put(day, new DailyBookingStatsDTO(
+                    day,
+                    ((Number) row[1]).doubleValue(),
+                    ((Number) row[2]).longValue(),
+                    ((Number) row[3]).longValue(),
+                    ((Number) row[4]).longValue(),
+                    ((Number) row[5]).longValue()));
+        }
+
+        List<DailyBookingStatsDTO> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyBookingStatsDTO stats = byDay.get(day);
+            days.add(stats != null ? stats : new DailyBookingStatsDTO(day, 0.0, 0L, 0L, 0L, 0L));
+        }
+        return days;
+    }
+
+    /**
+     * One page of export rows for bookings made between {@code from} and
+     * {@code to} (inclusive). Pages are keyed on (bookingDate, id) rather than
+     * an offset, so every page costs the same however deep the export goes.
+     */
+    @Transactional(readOnly = true)
+    public BookingExportPage getExportPage(LocalDate from, LocalDate to, String cursor, int limit) {
+        LocalDateTime afterDate = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        String afterId = "";
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_EXPORT_PAGE_SIZE);
+
+        List<BookingExportRow> rows = bookingRepository.findExportRowsAfter(afterDate, afterId, end,
+                PageRequest.of(0, pageSize));
+
+        String nextCursor = null;
+        if (rows.size() == pageSize) {
+            BookingExportRow last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last.getBookingDate(), last.getId());
+        }
+        return new BookingExportPage(rows, nextCursor);
+    }
+
+    /**
+     * Change feed for downstream rollups: bookings created or modified after
+     * {@code since}, paged by (updatedAt, id).
+     */
+    @Transactional(readOnly = true)
+    public BookingChangePage getChanges(LocalDateTime since, String cursor, int limit) {
+        LocalDateTime afterDate = since != null ? since : LocalDateTime.of(1970, 1, 1, 0, 0);
+        String afterId = "";
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_EXPORT_PAGE_SIZE);
+
+        List<BookingChangeRow> rows = bookingRepository.findChangesAfter(afterDate, afterId,
+                PageRequest.of(0, pageSize));
+
+        String nextCursor = null;
+        if (rows.size() == pageSize) {
+            BookingChangeRow last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last.getUpdatedAt(), last.getId());
+        }
+        return new BookingChangePage(rows, nextCursor);
+    }
+
+    private static String encodeCursor(LocalDateTime bookingDate, String id) {
+        String position = bookingDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
+    }
+}
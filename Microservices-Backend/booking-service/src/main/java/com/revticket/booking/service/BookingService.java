@@ -13,9 +13,14 @@ import com.revticket.booking.repository.SeatRepository;
 import com.revticket.booking.repository.ShowtimeRepository;
 import com.revticket.booking.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -26,6 +31,8 @@ import java.util.stream.Collectors;
 @Service
 public class BookingService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -47,6 +54,9 @@ public class BookingService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private RefundQueueService refundQueueService;
+
     @Transactional
     public BookingResponse createBooking(String userId, BookingRequest request) {
         if (request.getSeats() == null || request.getSeats().isEmpty()) {
@@ -67,6 +77,9 @@ public class BookingService {
         if (showtime.getShowDateTime().isBefore(LocalDateTime.now())) {
             throw new RuntimeException("Cannot book tickets for past showtimes");
         }
+        if (showtime.getStatus() != null && showtime.getStatus() != Showtime.ShowStatus.ACTIVE) {
+            throw new RuntimeException("Showtime is no longer open for booking");
+        }
 
         List<Seat> showtimeSeats = seatRepository.findByShowtimeId(showtime.getId());
         
@@ -226,10 +239,11 @@ public class BookingService {
         showtime.setAvailableSeats(showtime.getAvailableSeats() + booking.getSeats().size());
         showtimeRepository.save(showtime);
 
+        // refundDate is stamped by payment-service once the refund has been executed
         booking.setRefundAmount(calculateRefund(booking));
-        booking.setRefundDate(LocalDateTime.now());
 
         Booking savedBooking = bookingRepository.save(booking);
+        refundQueueService.enqueue(savedBooking);
 
         if (settingsService.areEmailNotificationsEnabled()) {
             try {
@@ -250,6 +264,20 @@ public class BookingService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of bookings made between {@code from} and {@code to} (inclusive),
+     * newest first. Either bound may be omitted.
+     */
+    @Transactional(readOnly = true)
+    public Page<BookingResponse> getBookingsPage(LocalDate from, LocalDate to, int page, int size) {
+        LocalDateTime start = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                Sort.by(Sort.Direction.DESC, "bookingDate", "id"));
+        return bookingRepository.findByBookingDateGreaterThanEqualAndBookingDateLessThan(start, end, pageable)
+                .map(this::mapToResponse);
+    }
+
     private Double calculateRefund(Booking booking) {
         return booking.getTotalAmount() * 0.9;
     }
@@ -0,0 +1,48 @@
+package com.revticket.booking.service;
+
+import com.revticket.booking.entity.Booking;
+import com.revticket.booking.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Sends cancellation emails off the request thread, so bulk cancellations
+ * return as soon as the database work has committed.
+ */
+@Service
+public class CancellationNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(CancellationNotifier.class);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Async
+    @Transactional(readOnly = true)
+    public void notifyCancelled(List<String> bookingIds) {
+        if (bookingIds.isEmpty() || !settingsService.areEmailNotificationsEnabled()) {
+            return;
+        }
+        int sent = 0;
+        for (Booking booking : bookingRepository.findAllById(bookingIds)) {
+            try {
+                emailService.sendCancellationConfirmation(booking);
+                sent++;
+            } catch (Exception e) {
+                logger.warn("Failed to send cancellation email for booking {}: {}", booking.getId(), e.getMessage());
+            }
+        }
+        logger.info("Sent {} of {} cancellation emails", sent, bookingIds.size());
+    }
+}
@@ -0,0 +1,34 @@
+package com.revticket.booking.service;
+
+import com.revticket.booking.entity.Booking;
+import com.revticket.booking.entity.Payment;
+import com.revticket.booking.repository.RefundJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Enqueues refunds for cancelled bookings. The job row is written in the
+ * cancelling transaction and executed asynchronously by payment-service, so
+ * cancellation never waits on the payment gateway. This relies on both
+ * services using the same database, as they already do for bookings and
+ * payments. payment-service owns the refund_jobs table.
+ */
+@Service
+public class RefundQueueService {
+
+    @Autowired
+    private RefundJobRepository refundJobRepository;
+
+    @Transactional
+    public void enqueue(Booking booking) {
+        Payment payment = booking.getPayment();
+        if (payment == null || payment.getStatus() != Payment.PaymentStatus.SUCCESS) {
+            return;
+        }
+        if (booking.getRefundAmount() == null || booking.getRefundAmount() <= 0) {
+            return;
+        }
+        refundJobRepository.enqueue(booking.getId(), payment.getId(), booking.getRefundAmount());
+    }
+}
@@ -0,0 +1,89 @@
+package com.revticket.booking.service;
+
+import com.revticket.booking.dto.ShowtimeCancellationResult;
+import com.revticket.booking.entity.Booking;
+import com.revticket.booking.repository.BookingRepository;
+import com.revticket.booking.repository.RefundJobRepository;
+import com.revticket.booking.repository.SeatRepository;
+import com.revticket.booking.repository.ShowtimeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cancels every active booking of a showtime when the show itself is called
+ * off. The work is done in a few set-based statements instead of cancelling
+ * booking by booking: refund jobs are queued for all paid bookings, the
+ * bookings are flipped with a full refund for the paid ones, booked seats are
+ * released and availableSeats is restored. Emails go out asynchronously after
+ * commit.
+ *
+ * The local showtimes table only holds shows that have been booked, so a show
+ * missing from it has nothing to cancel.
+ */
+@Service
+public class ShowtimeCancellationService {
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeCancellationService.class);
+
+    private static final Set<Booking.BookingStatus> ACTIVE_STATUSES = EnumSet.of(
+            Booking.BookingStatus.PENDING,
+            Booking.BookingStatus.CONFIRMED,
+            Booking.BookingStatus.CANCELLATION_PENDING);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private ShowtimeRepository showtimeRepository;
+
+    @Autowired
+    private RefundJobRepository refundJobRepository;
+
+    @Autowired
+    private CancellationNotifier cancellationNotifier;
+
+    @Transactional
+    public ShowtimeCancellationResult cancelAllForShowtime(String showtimeId, String reason) {
+        if (!showtimeRepository.existsById(Objects.requireNonNullElse(showtimeId, ""))) {
+            return new ShowtimeCancellationResult(showtimeId, 0, 0, 0);
+        }
+        String cancellationReason = reason != null && !reason.isBlank() ? reason : "Showtime cancelled";
+
+        List<String> bookingIds = bookingRepository.findIdsByShowtimeIdAndStatusIn(showtimeId, ACTIVE_STATUSES);
+        // Refund jobs are selected from the still-active bookings, so they go first
+        int refundsQueued = refundJobRepository.enqueueForShowtime(showtimeId);
+        int cancelled = bookingRepository.cancelAllForShowtime(showtimeId, ACTIVE_STATUSES, cancellationReason);
+        int releasedSeats = seatRepository.releaseBookedSeats(showtimeId);
+        if (releasedSeats > 0) {
+            showtimeRepository.restoreAvailableSeats(showtimeId, releasedSeats);
+        }
+
+        logger.info("Cancelled {} bookings for showtime {}: {} seats released, {} refunds queued",
+                cancelled, showtimeId, releasedSeats, refundsQueued);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cancellationNotifier.notifyCancelled(bookingIds);
+                }
+            });
+        } else {
+            cancellationNotifier.notifyCancelled(bookingIds);
+        }
+
+        return new ShowtimeCancellationResult(showtimeId, cancelled, releasedSeats, refundsQueued);
+    }
+}
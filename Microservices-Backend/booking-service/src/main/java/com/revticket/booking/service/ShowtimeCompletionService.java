@@ -0,0 +1,41 @@
+package com.revticket.booking.service;
+
+import com.revticket.booking.repository.BookingRepository;
+import com.revticket.booking.repository.ShowtimeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Called by showtime-service when shows are over. The local showtime copies
+ * are marked COMPLETED so they stop taking bookings, and the seats sold for
+ * each show are returned, since only this service knows them.
+ *
+ * Safe to repeat: completing a show twice returns the same counts.
+ */
+@Service
+public class ShowtimeCompletionService {
+
+    @Autowired
+    private ShowtimeRepository showtimeRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Transactional
+    public Map<String, Integer> completeShowtimes(Collection<String> showtimeIds) {
+        Map<String, Integer> soldSeats = new HashMap<>();
+        if (showtimeIds.isEmpty()) {
+            return soldSeats;
+        }
+        showtimeRepository.markCompleted(showtimeIds);
+        for (Object[] row : bookingRepository.countSoldSeatsByShowtime(showtimeIds)) {
+            soldSeats.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return soldSeats;
+    }
+}
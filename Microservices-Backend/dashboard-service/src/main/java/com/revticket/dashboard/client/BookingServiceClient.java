@@ -2,15 +2,31 @@ package com.revticket.dashboard.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.Map;
 
 @FeignClient(name = "booking-service", configuration = com.revticket.dashboard.config.FeignConfig.class)
 public interface BookingServiceClient {
 
-    @GetMapping("/api/admin/bookings/stats")
-    Map<String, Object> getBookingStats();
+    @GetMapping("/api/bookings/report")
+    Map<String, Object> getBookingsPage(@RequestParam(value = "from", required = false) String from,
+                                        @RequestParam(value = "to", required = false) String to,
+                                        @RequestParam("page") int page,
+                                        @RequestParam("size") int size);
 
-    @GetMapping("/api/bookings/all")
-    java.util.List<Object> getAllBookings();
+    @GetMapping("/api/bookings/export")
+    Map<String, Object> getExportPage(@RequestParam(value = "from", required = false) String from,
+                                      @RequestParam(value = "to", required = false) String to,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam("limit") int limit);
+
+    @GetMapping("/api/bookings/changes")
+    Map<String, Object> getChanges(@RequestParam(value = "since", required = false) String since,
+                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                   @RequestParam("limit") int limit);
+
+    @GetMapping("/api/bookings/stats/daily")
+    java.util.List<Map<String, Object>> getDailyStats(@RequestParam("from") String from,
+                                                      @RequestParam("to") String to);
 }
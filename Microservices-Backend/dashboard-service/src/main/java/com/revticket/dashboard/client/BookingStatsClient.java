@@ -0,0 +1,19 @@
+package com.revticket.dashboard.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Map;
+
+/**
+ * Booking summary used by the dashboard fan-out. Kept apart from
+ * {@link BookingServiceClient} so it gets the fan-out read timeout while the
+ * paged export and change-feed reads keep a longer one.
+ */
+@FeignClient(name = "booking-service", contextId = "booking-stats",
+        configuration = com.revticket.dashboard.config.FeignConfig.class)
+public interface BookingStatsClient {
+
+    @GetMapping("/api/admin/bookings/stats")
+    Map<String, Object> getBookingStats();
+}
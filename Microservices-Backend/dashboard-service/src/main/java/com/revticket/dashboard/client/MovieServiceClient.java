@@ -2,6 +2,7 @@ package com.revticket.dashboard.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.Map;
 
@@ -10,4 +11,7 @@ public interface MovieServiceClient {
 
     @GetMapping("/api/admin/movies/stats")
     Map<String, Object> getMovieStats();
+
+    @GetMapping("/api/movies/{id}")
+    Map<String, Object> getMovieById(@PathVariable("id") String id);
 }
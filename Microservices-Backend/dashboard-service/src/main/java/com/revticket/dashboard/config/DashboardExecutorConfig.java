@@ -0,0 +1,40 @@
+package com.revticket.dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded pools for dashboard work off the request thread: one for calling
+ * downstream services in parallel and a separate one for background cache
+ * refreshes, which themselves wait on the fan-out pool. Tasks carry the
+ * caller's Authorization header so FeignConfig can still forward it.
+ */
+@Configuration
+public class DashboardExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor dashboardFanOutExecutor(
+            @Value("${app.dashboard.fan-out.threads:16}") int threads,
+            @Value("${app.dashboard.fan-out.queue-capacity:200}") int queueCapacity) {
+        return newExecutor("dashboard-fan-out-", threads, queueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor dashboardRefreshExecutor(
+            @Value("${app.dashboard.cache.refresh-threads:4}") int threads) {
+        return newExecutor("dashboard-refresh-", threads, 50);
+    }
+
+    private static ThreadPoolTaskExecutor newExecutor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(prefix);
+        executor.setTaskDecorator(ForwardedAuthorization::wrap);
+        executor.initialize();
+        return executor;
+    }
+}
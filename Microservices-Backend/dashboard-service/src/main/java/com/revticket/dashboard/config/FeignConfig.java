@@ -4,10 +4,6 @@ import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-
-import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Feign configuration to forward the Authorization header from incoming
@@ -24,19 +20,11 @@ public class FeignConfig {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate template) {
-                // Get the current HTTP request context
-                ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                        .getRequestAttributes();
-
-                if (attributes != null) {
-                    HttpServletRequest request = attributes.getRequest();
-
-                    // Forward ONLY the Authorization header (JWT token)
-                    // This matches the monolithic backend's authentication pattern
-                    String authorization = request.getHeader("Authorization");
-                    if (authorization != null) {
-                        template.header("Authorization", authorization);
-                    }
+                // Forward ONLY the Authorization header (JWT token)
+                // This matches the monolithic backend's authentication pattern
+                String authorization = ForwardedAuthorization.current();
+                if (authorization != null) {
+                    template.header("Authorization", authorization);
                 }
             }
         };
@@ -0,0 +1,61 @@
+package com.revticket.dashboard.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Authorization header to forward on outgoing Feign calls. On request threads
+ * it is read from the current request; work handed to a background thread
+ * carries the captured value along, so it no longer depends on the request
+ * object after the response has been sent.
+ */
+public final class ForwardedAuthorization {
+
+    private static final ThreadLocal<String> CAPTURED = new ThreadLocal<>();
+
+    private ForwardedAuthorization() {
+    }
+
+    public static String current() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            HttpServletRequest request = attributes.getRequest();
+            String authorization = request.getHeader("Authorization");
+            if (authorization != null) {
+                return authorization;
+            }
+        }
+        return CAPTURED.get();
+    }
+
+    public static Runnable wrap(Runnable task) {
+        String authorization = current();
+        return () -> {
+            try (Scope ignored = open(authorization)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Makes {@code authorization} the forwarded header on this thread until the
+     * returned scope is closed.
+     */
+    public static Scope open(String authorization) {
+        String previous = CAPTURED.get();
+        CAPTURED.set(authorization);
+        return () -> {
+            if (previous != null) {
+                CAPTURED.set(previous);
+            } else {
+                CAPTURED.remove();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -1,12 +1,16 @@
 package com.revticket.dashboard.controller;
 
 import com.revticket.dashboard.dto.*;
+import com.revticket.dashboard.service.CachedValue;
 import com.revticket.dashboard.service.DashboardService;
+import com.revticket.dashboard.service.LeaderboardService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,43 +21,77 @@ public class AdminDashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private LeaderboardService leaderboardService;
+
     @GetMapping("/overview")
     public ResponseEntity<SystemOverviewDTO> getOverview() {
-        return ResponseEntity.ok(dashboardService.getSystemOverview());
+        return cached(dashboardService.getSystemOverview());
     }
 
     @GetMapping("/revenue")
     public ResponseEntity<RevenueStatsDTO> getRevenue() {
-        return ResponseEntity.ok(dashboardService.getRevenueStats());
+        return cached(dashboardService.getRevenueStats());
     }
 
     @GetMapping("/bookings")
     public ResponseEntity<BookingStatsDTO> getBookings() {
-        return ResponseEntity.ok(dashboardService.getBookingStats());
+        return cached(dashboardService.getBookingStats());
     }
 
     @GetMapping("/movies")
     public ResponseEntity<Map<String, Object>> getMovies() {
-        return ResponseEntity.ok(dashboardService.getMovieStats());
+        return cached(dashboardService.getMovieStats());
     }
 
     @GetMapping("/theaters")
     public ResponseEntity<TheaterStatsDTO> getTheaters() {
-        return ResponseEntity.ok(dashboardService.getTheaterStats());
+        return cached(dashboardService.getTheaterStats());
     }
 
     @GetMapping("/showtimes")
     public ResponseEntity<ShowtimeStatsDTO> getShowtimes() {
-        return ResponseEntity.ok(dashboardService.getShowtimeStats());
+        return cached(dashboardService.getShowtimeStats());
     }
 
     @GetMapping("/reviews")
     public ResponseEntity<Map<String, Object>> getReviews() {
-        return ResponseEntity.ok(dashboardService.getReviewStats());
+        return cached(dashboardService.getReviewStats());
     }
 
     @GetMapping("/full-report")
     public ResponseEntity<AnalyticsResponse> getFullReport() {
-        return ResponseEntity.ok(dashboardService.getFullReport());
+        return cached(dashboardService.getFullReport());
+    }
+
+    @GetMapping("/top-movies")
+    public ResponseEntity<List<MoviePerformanceDTO>> getTopMovies(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.getTopMovies(hours, clampLimit(limit)));
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboard(
+            @RequestParam(defaultValue = "movie") String dimension,
+            @RequestParam(defaultValue = "revenue") String metric,
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(leaderboardService.top(dimension, metric, hours, clampLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static <T> ResponseEntity<T> cached(CachedValue<T> cached) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(cached.getAgeSeconds()))
+                .header("X-Cache-Status", cached.getStatus().name())
+                .body(cached.getValue());
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, 50));
     }
 }
@@ -0,0 +1,35 @@
+package com.revticket.dashboard.controller;
+
+import com.revticket.dashboard.dto.AnalyticsQuery;
+import com.revticket.dashboard.dto.AnalyticsQueryResult;
+import com.revticket.dashboard.service.ColumnarBookingStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/dashboard/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    @Autowired
+    private ColumnarBookingStore columnarBookingStore;
+
+    @PostMapping("/query")
+    public ResponseEntity<?> query(@RequestBody AnalyticsQuery query) {
+        try {
+            AnalyticsQueryResult result = columnarBookingStore.query(query);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(columnarBookingStore.getStatus());
+    }
+}
@@ -1,13 +1,22 @@
 package com.revticket.dashboard.controller;
 
+import com.revticket.dashboard.repository.RollupRepository;
 import com.revticket.dashboard.service.DashboardService;
+import com.revticket.dashboard.service.ReportExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/reports")
@@ -17,28 +26,32 @@ public class ReportsController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getReportSummary(
-            @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
 
         Map<String, Object> summary = new HashMap<>();
+        LocalDate start = fromDate != null ? fromDate : LocalDate.now().minusMonths(1);
+        LocalDate end = toDate != null ? toDate : LocalDate.now();
 
         try {
-            // Get all bookings using DashboardService (which uses Feign Client with Auth)
-            List<Object> bookings = dashboardService.getAllBookings();
-
-            int totalBookings = bookings != null ? bookings.size() : 0;
-
-            // Calculate revenue (simplified - in production, sum actual booking amounts)
-            double totalRevenue = totalBookings * 250.0; // Average ticket price
+            long totalBookings = 0;
+            long paidBookings = 0;
+            double totalRevenue = 0.0;
+            for (Map<String, Object> day : dashboardService.getDailyBookingStats(start, end)) {
+                totalBookings += getLong(day, "bookings");
+                paidBookings += getLong(day, "paidBookings");
+                totalRevenue += getDouble(day, "revenue");
+            }
 
             summary.put("totalBookings", totalBookings);
             summary.put("totalRevenue", totalRevenue);
-            summary.put("averageBookingValue", totalBookings > 0 ? totalRevenue / totalBookings : 0);
-            summary.put("period", Map.of(
-                    "from", fromDate != null ? fromDate : LocalDate.now().minusMonths(1).toString(),
-                    "to", toDate != null ? toDate : LocalDate.now().toString()));
+            summary.put("averageBookingValue", paidBookings > 0 ? totalRevenue / paidBookings : 0);
+            summary.put("period", Map.of("from", start.toString(), "to", end.toString()));
 
         } catch (Exception e) {
             // Return empty summary if services are unavailable
@@ -61,21 +74,14 @@ public class ReportsController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Get all bookings using DashboardService
-            List<Object> bookingList = dashboardService.getAllBookings();
-
-            // Simple pagination
-            int start = page * size;
-            int end = Math.min(start + size, bookingList.size());
-            List<Object> paginatedBookings = start < bookingList.size()
-                    ? bookingList.subList(start, end)
-                    : new ArrayList<>();
-
-            response.put("content", paginatedBookings);
-            response.put("totalElements", bookingList.size());
-            response.put("totalPages", (int) Math.ceil((double) bookingList.size() / size));
-            response.put("size", size);
-            response.put("number", page);
+            // booking-service filters and pages in the database and returns only this page
+            Map<String, Object> bookingPage = dashboardService.getBookingsPage(fromDate, toDate, page, size);
+
+            response.put("content", bookingPage.getOrDefault("content", new ArrayList<>()));
+            response.put("totalElements", bookingPage.getOrDefault("totalElements", 0));
+            response.put("totalPages", bookingPage.getOrDefault("totalPages", 0));
+            response.put("size", bookingPage.getOrDefault("size", size));
+            response.put("number", bookingPage.getOrDefault("number", page));
 
         } catch (Exception e) {
             // Return empty result if service is unavailable
@@ -90,37 +96,100 @@ public class ReportsController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Streams every booking in the range as CSV, gzip-compressed when the
+     * client accepts it.
+     */
+    @GetMapping("/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Validated here: once streaming starts, a bad date can only cut the body short
+        String from = fromDate != null ? fromDate.toString() : null;
+        String to = toDate != null ? toDate.toString() : null;
+        return csv("bookings", acceptEncoding,
+                out -> reportExportService.writeBookingsCsv(from, to, authorization, out));
+    }
+
+    @GetMapping("/revenue/export")
+    public ResponseEntity<StreamingResponseBody> exportRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        LocalDate start = fromDate != null ? fromDate : LocalDate.now().minusMonths(1);
+        LocalDate end = toDate != null ? toDate : LocalDate.now();
+        // At most a year of daily rows, fetched up front while the request context is available
+        List<Map<String, Object>> days = dashboardService.getDailyBookingStats(start, end);
+        return csv("revenue", acceptEncoding, out -> reportExportService.writeRevenueCsv(days, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> csv(String name, String acceptEncoding,
+                                                             StreamingResponseBody body) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "-"
+                        + LocalDate.now() + ".csv\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(body);
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 8192, true);
+                    body.writeTo(compressed);
+                    compressed.finish();
+                });
+    }
+
     @GetMapping("/revenue-trend")
     public ResponseEntity<List<Map<String, Object>>> getRevenueTrend(
-            @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
 
-        List<Map<String, Object>> trendData = new ArrayList<>();
+        LocalDate start = fromDate != null ? fromDate : LocalDate.now().minusDays(7);
+        LocalDate end = toDate != null ? toDate : LocalDate.now();
 
         try {
-            // Get bookings using DashboardService
-            List<Object> bookings = dashboardService.getAllBookings();
-
-            // Generate trend data (simplified - in production, group by actual dates)
-            LocalDate start = fromDate != null ? LocalDate.parse(fromDate) : LocalDate.now().minusDays(7);
-            LocalDate end = toDate != null ? LocalDate.parse(toDate) : LocalDate.now();
-
-            int totalBookings = bookings != null ? bookings.size() : 0;
-            long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(start, end);
-
-            for (int i = 0; i <= daysBetween; i++) {
-                LocalDate date = start.plusDays(i);
-                Map<String, Object> dataPoint = new HashMap<>();
-                dataPoint.put("date", date.toString());
-                // Distribute bookings evenly across days (simplified)
-                dataPoint.put("revenue", (totalBookings / Math.max(daysBetween, 1)) * 250.0);
-                trendData.add(dataPoint);
-            }
-
+            // booking-service returns one pre-aggregated row per day, zero-filled
+            return ResponseEntity.ok(dashboardService.getDailyBookingStats(start, end));
         } catch (Exception e) {
             // Return empty trend if service unavailable
+            return ResponseEntity.ok(new ArrayList<>());
         }
+    }
+
+    @GetMapping("/breakdown")
+    public ResponseEntity<List<Map<String, Object>>> getBreakdown(
+            @RequestParam(defaultValue = "theater") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+
+        LocalDate start = fromDate != null ? fromDate : LocalDate.now().minusMonths(1);
+        LocalDate end = toDate != null ? toDate : LocalDate.now();
+        RollupRepository.Dimension dimension;
+        try {
+            dimension = RollupRepository.Dimension.valueOf(groupBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(dashboardService.getBreakdown(start, end, dimension));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private static long getLong(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
 
-        return ResponseEntity.ok(trendData);
+    private static double getDouble(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
     }
 }
@@ -0,0 +1,30 @@
+package com.revticket.dashboard.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ad-hoc query over booking facts. Dimensions: movie, theater, status,
+ * seatCategory, hour, weekday, bookingDay, showDay. Metrics: bookings, seats,
+ * revenue, cancellations, refunds.
+ */
+@Data
+@NoArgsConstructor
+public class AnalyticsQuery {
+    /** Up to three dimensions to group by; empty for a single total row. */
+    private List<String> groupBy = new ArrayList<>();
+    /** Allowed values per dimension, e.g. {"weekday": ["SATURDAY", "SUNDAY"], "hour": ["18", "21"]}. */
+    private Map<String, List<String>> filters = new HashMap<>();
+    /** Inclusive date range, applied to the booking date or the show date. */
+    private LocalDate from;
+    private LocalDate to;
+    private String dateField = "booking";
+    private String orderBy = "revenue";
+    private Integer limit = 100;
+}
@@ -0,0 +1,20 @@
+package com.revticket.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQueryResult {
+    private List<Map<String, Object>> rows;
+    private long scannedRows;
+    private long matchedRows;
+    private long elapsedMs;
+    private LocalDateTime dataAsOf;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,4 +15,6 @@ public class AnalyticsResponse {
     private BookingStatsDTO bookings;
     private TheaterStatsDTO theaters;
     private ShowtimeStatsDTO showtimes;
+    private Map<String, SourceStatus> sources;
+    private boolean partial;
 }
@@ -0,0 +1,18 @@
+package com.revticket.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SourceStatus {
+    private State state;
+    private Long latencyMs;
+    private String error;
+
+    public enum State {
+        OK, FAILED, TIMEOUT
+    }
+}
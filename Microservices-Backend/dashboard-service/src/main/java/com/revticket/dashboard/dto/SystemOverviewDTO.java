@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,4 +19,6 @@ public class SystemOverviewDTO {
     private Double totalRevenue;
     private Long activeBookings;
     private Long cancelledBookings;
+    private Map<String, SourceStatus> sources;
+    private boolean partial;
 }
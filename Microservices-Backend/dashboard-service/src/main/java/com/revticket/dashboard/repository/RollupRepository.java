@@ -0,0 +1,247 @@
+package com.revticket.dashboard.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rollup tables owned by dashboard-service. dashboard-service runs with
+ * ddl-auto disabled, so the tables are created here.
+ *
+ * rollup_booking_facts keeps the last contribution of every booking, which
+ * lets the ETL apply a changed booking as (new - old) to rollup_daily without
+ * rescanning anything.
+ */
+@Repository
+public class RollupRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public void createTables() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rollup_booking_facts ("
+                + "booking_id VARCHAR(255) NOT NULL PRIMARY KEY, "
+                + "stat_date DATE NOT NULL, "
+                + "theater_id VARCHAR(255) NOT NULL, "
+                + "movie_id VARCHAR(255) NOT NULL, "
+                + "bookings INT NOT NULL, "
+                + "seats INT NOT NULL, "
+                + "revenue DOUBLE NOT NULL, "
+                + "cancellations INT NOT NULL, "
+                + "refunds DOUBLE NOT NULL, "
+                + "paid_bookings INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rollup_daily ("
+                + "stat_date DATE NOT NULL, "
+                + "theater_id VARCHAR(255) NOT NULL, "
+                + "movie_id VARCHAR(255) NOT NULL, "
+                + "bookings BIGINT NOT NULL DEFAULT 0, "
+                + "seats BIGINT NOT NULL DEFAULT 0, "
+                + "revenue DOUBLE NOT NULL DEFAULT 0, "
+                + "cancellations BIGINT NOT NULL DEFAULT 0, "
+                + "refunds DOUBLE NOT NULL DEFAULT 0, "
+                + "paid_bookings BIGINT NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (stat_date, theater_id, movie_id), "
+                + "KEY idx_rollup_daily_theater (theater_id, stat_date), "
+                + "KEY idx_rollup_daily_movie (movie_id, stat_date))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rollup_state ("
+                + "name VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "high_water_mark DATETIME(6) NULL, "
+                + "backfill_complete BOOLEAN NOT NULL DEFAULT FALSE)");
+    }
+
+    /**
+     * Locks the job's state row for the current transaction, creating it on
+     * first use, and returns the stored high-water mark.
+     */
+    public LocalDateTime lockHighWaterMark(String name) {
+        jdbcTemplate.update("INSERT IGNORE INTO rollup_state (name, high_water_mark) VALUES (?, NULL)", name);
+        List<Timestamp> marks = jdbcTemplate.queryForList(
+                "SELECT high_water_mark FROM rollup_state WHERE name = ? FOR UPDATE", Timestamp.class, name);
+        Timestamp mark = marks.isEmpty() ? null : marks.get(0);
+        return mark != null ? mark.toLocalDateTime() : null;
+    }
+
+    public LocalDateTime getHighWaterMark(String name) {
+        List<Timestamp> marks = jdbcTemplate.queryForList(
+                "SELECT high_water_mark FROM rollup_state WHERE name = ?", Timestamp.class, name);
+        Timestamp mark = marks.isEmpty() ? null : marks.get(0);
+        return mark != null ? mark.toLocalDateTime() : null;
+    }
+
+    public void advanceHighWaterMark(String name, LocalDateTime mark) {
+        jdbcTemplate.update("UPDATE rollup_state SET high_water_mark = ? "
+                + "WHERE name = ? AND (high_water_mark IS NULL OR high_water_mark < ?)",
+                Timestamp.valueOf(mark), name, Timestamp.valueOf(mark));
+    }
+
+    public boolean isBackfillComplete(String name) {
+        List<Boolean> flags = jdbcTemplate.queryForList(
+                "SELECT backfill_complete FROM rollup_state WHERE name = ?", Boolean.class, name);
+        return !flags.isEmpty() && Boolean.TRUE.equals(flags.get(0));
+    }
+
+    public void markBackfillComplete(String name) {
+        jdbcTemplate.update("UPDATE rollup_state SET backfill_complete = TRUE WHERE name = ?", name);
+    }
+
+    public Map<String, Fact> findFacts(Collection<String> bookingIds) {
+        Map<String, Fact> facts = new HashMap<>();
+        if (bookingIds.isEmpty()) {
+            return facts;
+        }
+        namedJdbcTemplate.query("SELECT * FROM rollup_booking_facts WHERE booking_id IN (:ids)",
+                new MapSqlParameterSource("ids", bookingIds),
+                rs -> {
+                    facts.put(rs.getString("booking_id"), new Fact(
+                            rs.getDate("stat_date").toLocalDate(),
+                            rs.getString("theater_id"),
+                            rs.getString("movie_id"),
+                            rs.getInt("bookings"),
+                            rs.getInt("seats"),
+                            rs.getDouble("revenue"),
+                            rs.getInt("cancellations"),
+                            rs.getDouble("refunds"),
+                            rs.getInt("paid_bookings")));
+                });
+        return facts;
+    }
+
+    public void saveFacts(Map<String, Fact> facts) {
+        List<Object[]> args = new ArrayList<>(facts.size());
+        for (Map.Entry<String, Fact> entry : facts.entrySet()) {
+            Fact fact = entry.getValue();
+            args.add(new Object[] {entry.getKey(), Date.valueOf(fact.date), fact.theaterId, fact.movieId,
+                    fact.bookings, fact.seats, fact.revenue, fact.cancellations, fact.refunds,
+                    fact.paidBookings});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO rollup_booking_facts "
+                + "(booking_id, stat_date, theater_id, movie_id, bookings, seats, revenue, cancellations, refunds, "
+                + "paid_bookings) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE stat_date = VALUES(stat_date), theater_id = VALUES(theater_id), "
+                + "movie_id = VALUES(movie_id), bookings = VALUES(bookings), seats = VALUES(seats), "
+                + "revenue = VALUES(revenue), cancellations = VALUES(cancellations), refunds = VALUES(refunds), "
+                + "paid_bookings = VALUES(paid_bookings)",
+                args);
+    }
+
+    /**
+     * Adds each delta to its (day, theater, movie) bucket.
+     */
+    public void applyDeltas(Collection<Fact> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Fact delta : deltas) {
+            args.add(new Object[] {Date.valueOf(delta.date), delta.theaterId, delta.movieId,
+                    delta.bookings, delta.seats, delta.revenue, delta.cancellations, delta.refunds,
+                    delta.paidBookings});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO rollup_daily "
+                + "(stat_date, theater_id, movie_id, bookings, seats, revenue, cancellations, refunds, paid_bookings) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE bookings = bookings + VALUES(bookings), seats = seats + VALUES(seats), "
+                + "revenue = revenue + VALUES(revenue), cancellations = cancellations + VALUES(cancellations), "
+                + "refunds = refunds + VALUES(refunds), paid_bookings = paid_bookings + VALUES(paid_bookings)",
+                args);
+    }
+
+    /**
+     * Totals per day, per theater or per movie over an inclusive date range.
+     */
+    public List<Map<String, Object>> aggregate(LocalDate from, LocalDate to, Dimension dimension) {
+        return jdbcTemplate.queryForList("SELECT " + dimension.column + " AS " + dimension.alias + ", "
+                + "SUM(bookings) AS bookings, SUM(seats) AS seats, SUM(revenue) AS revenue, "
+                + "SUM(cancellations) AS cancellations, SUM(refunds) AS refunds, "
+                + "SUM(paid_bookings) AS paidBookings "
+                + "FROM rollup_daily WHERE stat_date BETWEEN ? AND ? "
+                + "GROUP BY " + dimension.column + " ORDER BY " + dimension.orderBy,
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public enum Dimension {
+        DAY("stat_date", "date", "stat_date"),
+        THEATER("theater_id", "theaterId", "revenue DESC"),
+        MOVIE("movie_id", "movieId", "revenue DESC");
+
+        private final String column;
+        private final String alias;
+        private final String orderBy;
+
+        Dimension(String column, String alias, String orderBy) {
+            this.column = column;
+            this.alias = alias;
+            this.orderBy = orderBy;
+        }
+    }
+
+    /**
+     * A booking's contribution to its bucket, or a change to a bucket.
+     */
+    public static final class Fact {
+        private final LocalDate date;
+        private final String theaterId;
+        private final String movieId;
+        private final int bookings;
+        private final int seats;
+        private final double revenue;
+        private final int cancellations;
+        private final double refunds;
+        private final int paidBookings;
+
+        public Fact(LocalDate date, String theaterId, String movieId, int bookings, int seats, double revenue,
+                    int cancellations, double refunds, int paidBookings) {
+            this.date = date;
+            this.theaterId = theaterId;
+            this.movieId = movieId;
+            this.bookings = bookings;
+            this.seats = seats;
+            this.revenue = revenue;
+            this.cancellations = cancellations;
+            this.refunds = refunds;
+            this.paidBookings = paidBookings;
+        }
+
+        public String bucket() {
+            return date + "|" + theaterId + "|" + movieId;
+        }
+
+        public Fact plus(Fact other, int sign) {
+            return new Fact(date, theaterId, movieId,
+                    bookings + sign * other.bookings,
+                    seats + sign * other.seats,
+                    revenue + sign * other.revenue,
+                    cancellations + sign * other.cancellations,
+                    refunds + sign * other.refunds,
+                    paidBookings + sign * other.paidBookings);
+        }
+
+        public Fact zero() {
+            return new Fact(date, theaterId, movieId, 0, 0, 0.0, 0, 0.0, 0);
+        }
+
+        public boolean sameAs(Fact other) {
+            return other != null
+                    && bucket().equals(other.bucket())
+                    && bookings == other.bookings
+                    && seats == other.seats
+                    && Double.compare(revenue, other.revenue) == 0
+                    && cancellations == other.cancellations
+                    && Double.compare(refunds, other.refunds) == 0
+                    && paidBookings == other.paidBookings;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.revticket.dashboard.service;
+
+/**
+ * A value served by {@link DashboardCache} together with how old it is.
+ */
+public class CachedValue<T> {
+
+    public enum Status {
+        /** Served from cache within the soft TTL. */
+        FRESH,
+        /** Served from cache past the soft TTL while a refresh runs in the background. */
+        STALE,
+        /** Loaded on this request. */
+        MISS,
+        /** Nothing cached and the load failed; the value is a fallback. */
+        ERROR
+    }
+
+    private final T value;
+    private final long ageSeconds;
+    private final Status status;
+
+    public CachedValue(T value, long ageSeconds, Status status) {
+        this.value = value;
+        this.ageSeconds = ageSeconds;
+        this.status = status;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public long getAgeSeconds() {
+        return ageSeconds;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,710 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.client.BookingServiceClient;
+import com.revticket.dashboard.config.ForwardedAuthorization;
+import com.revticket.dashboard.dto.AnalyticsQuery;
+import com.revticket.dashboard.dto.AnalyticsQueryResult;
+import com.revticket.dashboard.util.JwtUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory column store of booking facts for ad-hoc analytics. Each attribute
+ * is a primitive array indexed by row; string ids are dictionary-encoded to
+ * ints and dates are stored as epoch days. Queries filter and group with a
+ * parallel scan over fixed-size chunks, each chunk aggregating into its own
+ * map before the partial results are merged, so MySQL is never touched at
+ * query time.
+ *
+ * The store follows booking-service's change feed: new bookings are appended
+ * and changed bookings are overwritten in place. The change in each booking's
+ * paid contribution is passed on to the leaderboards, in the hour the
+ * booking was made.
+ *
+ * Unless max-rows is set, the row limit is derived from the heap: a row costs
+ * about {@value #BYTES_PER_ROW} bytes including its index slot and the copy
+ * made when the columns grow, and the store may use heap-fraction of the
+ * maximum heap. Once full, changes to existing rows are still applied and new
+ * bookings are ignored. The store lives in memory, so each instance reads the
+ * whole feed again when it starts.
+ */
+@Service
+public class ColumnarBookingStore {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarBookingStore.class);
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final int BYTES_PER_ROW = 128;
+    private static final int KEY_BITS = 21;
+    private static final int MAX_GROUP_BY = 3;
+    private static final int METRIC_COUNT = 5;
+    private static final String[] METRICS = {"bookings", "seats", "revenue", "cancellations", "refunds"};
+
+    public enum Dimension {
+        MOVIE, THEATER, STATUS, SEAT_CATEGORY, HOUR, WEEKDAY, BOOKING_DAY, SHOW_DAY;
+
+        static Dimension parse(String name) {
+            String normalized = name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+            try {
+                return valueOf(normalized);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown dimension: " + name);
+            }
+        }
+
+        String label() {
+            String[] parts = name().toLowerCase(Locale.ROOT).split("_");
+            StringBuilder label = new StringBuilder(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                label.append(Character.toUpperCase(parts[i].charAt(0))).append(parts[i].substring(1));
+            }
+            return label.toString();
+        }
+    }
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Value("${app.dashboard.analytics.max-rows:0}")
+    private int maxRows;
+
+    @Value("${app.dashboard.analytics.heap-fraction:0.25}")
+    private double heapFraction;
+
+    @Value("${app.dashboard.analytics.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.dashboard.analytics.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    private final ForkJoinPool scanPool;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Dictionary movies = new Dictionary();
+    private final Dictionary theaters = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private final Dictionary seatCategories = new Dictionary();
+    private final RowIndex rowIndex = new RowIndex();
+
+    private int size;
+    private int[] movie = new int[1024];
+    private int[] theater = new int[1024];
+    private byte[] status = new byte[1024];
+    private byte[] seatCategory = new byte[1024];
+    private byte[] hour = new byte[1024];
+    private int[] bookingDay = new int[1024];
+    private int[] showDay = new int[1024];
+    private int[] bookedHour = new int[1024];
+    private int[] seats = new int[1024];
+    private double[] amount = new double[1024];
+    private double[] refund = new double[1024];
+
+    private volatile LocalDateTime lastUpdatedAt;
+    private volatile LocalDateTime dataAsOf;
+
+    public ColumnarBookingStore(@Value("${app.dashboard.analytics.scan-threads:0}") int scanThreads) {
+        this.scanPool = new ForkJoinPool(scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.analytics.refresh-interval-ms:30000}",
+            initialDelayString = "${app.dashboard.analytics.initial-delay-ms:15000}")
+    public void refresh() {
+        String token = "Bearer " + jwtUtil.generateServiceToken("dashboard-service");
+        try (ForwardedAuthorization.Scope ignored = ForwardedAuthorization.open(token)) {
+            LocalDateTime since = lastUpdatedAt != null ? lastUpdatedAt.minusSeconds(overlapSeconds) : null;
+            String cursor = null;
+            long applied = 0;
+            do {
+                Map<String, Object> page = bookingServiceClient.getChanges(
+                        since != null ? since.toString() : null, cursor, pageSize);
+                List<Map<String, Object>> items = items(page);
+                applied += apply(items);
+                cursor = (String) page.get("nextCursor");
+            } while (cursor != null);
+
+            dataAsOf = LocalDateTime.now();
+            if (applied > 0) {
+                logger.info("Analytics store applied {} booking changes, {} rows", applied, size);
+            }
+        } catch (Exception e) {
+            logger.warn("Analytics store refresh failed: {}", e.getMessage());
+        }
+    }
+
+    public AnalyticsQueryResult query(AnalyticsQuery query) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Plan plan = new Plan(query);
+            int rows = size;
+            int chunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Map<Long, double[]> groups;
+            try {
+                groups = scanPool.submit(() -> IntStream.range(0, chunks)
+                        .parallel()
+                        .mapToObj(chunk -> scan(plan, chunk * CHUNK_SIZE, Math.min(rows, (chunk + 1) * CHUNK_SIZE)))
+                        .reduce(new HashMap<>(), ColumnarBookingStore::merge))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Analytics query interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Analytics query failed: " + e.getCause().getMessage(), e.getCause());
+            }
+
+            long matched = 0;
+            List<Map<String, Object>> result = new ArrayList<>(groups.size());
+            for (Map.Entry<Long, double[]> group : groups.entrySet()) {
+                matched += (long) group.getValue()[0];
+                result.add(toRow(plan, group.getKey(), group.getValue()));
+            }
+            result.sort(Comparator.comparingDouble(
+                    (Map<String, Object> row) -> ((Number) row.get(plan.orderBy)).doubleValue()).reversed());
+            if (result.size() > plan.limit) {
+                result = new ArrayList<>(result.subList(0, plan.limit));
+            }
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            return new AnalyticsQueryResult(result, rows, matched, elapsedMs, dataAsOf);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("rows", size);
+            status.put("maxRows", rowLimit());
+            status.put("movies", movies.size());
+            status.put("theaters", theaters.size());
+            status.put("lastUpdatedAt", lastUpdatedAt);
+            status.put("dataAsOf", dataAsOf);
+            return status;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, double[]> scan(Plan plan, int from, int to) {
+        Map<Long, double[]> groups = new HashMap<>();
+        int[] dateColumn = plan.useShowDate ? showDay : bookingDay;
+        for (int row = from; row < to; row++) {
+            int day = dateColumn[row];
+            if (day < plan.minDay || day > plan.maxDay) {
+                continue;
+            }
+            boolean accepted = true;
+            for (int f = 0; f < plan.filterDimensions.length && accepted; f++) {
+                int value = valueAt(plan.filterDimensions[f], row);
+                boolean[] allowed = plan.filterValues[f];
+                accepted = value >= 0 && value < allowed.length && allowed[value];
+            }
+            if (!accepted) {
+                continue;
+            }
+
+            long key = 0;
+            for (int g = 0; g < plan.groupBy.length; g++) {
+                key |= ((long) valueAt(plan.groupBy[g], row)) << (g * KEY_BITS);
+            }
+            double[] metrics = groups.computeIfAbsent(key, k -> new double[METRIC_COUNT]);
+            int statusId = status[row];
+            boolean cancelled = statusId < plan.cancelled.length && plan.cancelled[statusId];
+            metrics[0] += 1;
+            metrics[1] += cancelled ? 0 : seats[row];
+            metrics[2] += statusId < plan.paid.length && plan.paid[statusId] ? amount[row] : 0;
+            metrics[3] += cancelled ? 1 : 0;
+            metrics[4] += refund[row];
+        }
+        return groups;
+    }
+
+    private int valueAt(Dimension dimension, int row) {
+        switch (dimension) {
+            case MOVIE:
+                return movie[row];
+            case THEATER:
+                return theater[row];
+            case STATUS:
+                return status[row];
+            case SEAT_CATEGORY:
+                return seatCategory[row];
+            case HOUR:
+                return hour[row];
+            case WEEKDAY:
+                // Epoch day 0 was a Thursday; 0 = Monday
+                return Math.floorMod(showDay[row] + 3, 7);
+            case BOOKING_DAY:
+                return bookingDay[row];
+            case SHOW_DAY:
+                return showDay[row];
+            default:
+                throw new IllegalStateException("Unhandled dimension " + dimension);
+        }
+    }
+
+    private Map<String, Object> toRow(Plan plan, long key, double[] metrics) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int g = 0; g < plan.groupBy.length; g++) {
+            int value = (int) ((key >>> (g * KEY_BITS)) & ((1L << KEY_BITS) - 1));
+            row.put(plan.groupBy[g].label(), decode(plan.groupBy[g], value));
+        }
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            row.put(METRICS[m], m == 2 || m == 4 ? metrics[m] : (Object) (long) metrics[m]);
+        }
+        return row;
+    }
+
+    private Object decode(Dimension dimension, int value) {
+        switch (dimension) {
+            case MOVIE:
+                return movies.value(value);
+            case THEATER:
+                return theaters.value(value);
+            case STATUS:
+                return statuses.value(value);
+            case SEAT_CATEGORY:
+                return seatCategories.value(value);
+            case HOUR:
+                return value;
+            case WEEKDAY:
+                return DayOfWeek.of(value + 1).name();
+            default:
+                return LocalDate.ofEpochDay(value).toString();
+        }
+    }
+
+    private int encodeFilterValue(Dimension dimension, String value) {
+        switch (dimension) {
+            case MOVIE:
+                return movies.lookup(value);
+            case THEATER:
+                return theaters.lookup(value);
+            case STATUS:
+                return statuses.lookup(value.toUpperCase(Locale.ROOT));
+            case SEAT_CATEGORY:
+                return seatCategories.lookup(value.toUpperCase(Locale.ROOT));
+            case HOUR:
+                return Integer.parseInt(value);
+            case WEEKDAY:
+                return DayOfWeek.valueOf(value.toUpperCase(Locale.ROOT)).getValue() - 1;
+            default:
+                return (int) LocalDate.parse(value).toEpochDay();
+        }
+    }
+
+    private int cardinality(Dimension dimension) {
+        switch (dimension) {
+            case MOVIE:
+                return movies.size();
+            case THEATER:
+                return theaters.size();
+            case STATUS:
+                return statuses.size();
+            case SEAT_CATEGORY:
+                return seatCategories.size();
+            case HOUR:
+                return 24;
+            case WEEKDAY:
+                return 7;
+            default:
+                return (int) LocalDate.of(9999, 12, 31).toEpochDay() + 1;
+        }
+    }
+
+    private int apply(List<Map<String, Object>> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            int applied = 0;
+            int ignored = 0;
+            int limit = rowLimit();
+            for (Map<String, Object> item : items) {
+                String id = (String) item.get("id");
+                int row = rowIndex.get(id);
+                boolean wasPaid = row >= 0 && isPaid(status[row]);
+                double oldRevenue = wasPaid ? amount[row] : 0.0;
+                int oldTickets = wasPaid ? seats[row] : 0;
+                int oldMovie = wasPaid ? movie[row] : -1;
+                int oldTheater = wasPaid ? theater[row] : -1;
+                int oldHour = wasPaid ? bookedHour[row] : -1;
+                if (row < 0) {
+                    if (size >= limit) {
+                        ignored++;
+                        continue;
+                    }
+                    ensureCapacity(size + 1);
+                    row = size++;
+                    rowIndex.put(id, row);
+                }
+                LocalDateTime updatedAt = parseDateTime(item.get("updatedAt"));
+                write(row, item, updatedAt);
+                applied++;
+
+                boolean paid = isPaid(status[row]);
+                if (wasPaid && paid && oldMovie == movie[row] && oldTheater == theater[row]
+                        && oldHour == bookedHour[row]) {
+                    recordContribution(row, amount[row] - oldRevenue, 0, seats[row] - oldTickets, oldHour);
+                } else {
+                    // The old contribution is taken back from the hour it was counted in
+                    if (wasPaid) {
+                        leaderboardService.record(movies.value(oldMovie), theaters.value(oldTheater),
+                                -oldRevenue, -1, -oldTickets, oldHour * HOUR_MILLIS);
+                    }
+                    if (paid) {
+                        recordContribution(row, amount[row], 1, seats[row], bookedHour[row]);
+                    }
+                }
+                if (updatedAt != null && (lastUpdatedAt == null || updatedAt.isAfter(lastUpdatedAt))) {
+                    lastUpdatedAt = updatedAt;
+                }
+            }
+            if (ignored > 0) {
+                logger.warn("Analytics store is full at {} rows, ignored {} new bookings", limit, ignored);
+            }
+            return applied;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int rowLimit() {
+        if (maxRows > 0) {
+            return maxRows;
+        }
+        long budget = (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(CHUNK_SIZE, budget / BYTES_PER_ROW));
+    }
+
+    private void recordContribution(int row, double revenue, int bookings, int tickets, int hourBucket) {
+        leaderboardService.record(movies.value(movie[row]), theaters.value(theater[row]),
+                revenue, bookings, tickets, hourBucket * HOUR_MILLIS);
+    }
+
+    private boolean isPaid(int statusId) {
+        String name = statuses.value(statusId);
+        return "CONFIRMED".equals(name) || "CANCELLATION_PENDING".equals(name);
+    }
+
+    private void write(int row, Map<String, Object> item, LocalDateTime updatedAt) {
+        LocalDateTime booked = parseDateTime(item.get("bookingDate"));
+        LocalDateTime bookedAt = booked != null ? booked : updatedAt;
+        LocalDateTime show = parseDateTime(item.get("showtime"));
+        LocalDateTime refunded = parseDateTime(item.get("refundDate"));
+
+        movie[row] = movies.encode((String) item.get("movieId"));
+        theater[row] = theaters.encode((String) item.get("theaterId"));
+        status[row] = (byte) statuses.encode(String.valueOf(item.get("status")));
+        seatCategory[row] = (byte) seatCategories.encode((String) item.get("seatCategory"));
+        bookingDay[row] = booked != null ? (int) booked.toLocalDate().toEpochDay() : 0;
+        showDay[row] = show != null ? (int) show.toLocalDate().toEpochDay() : bookingDay[row];
+        hour[row] = (byte) (show != null ? show.getHour() : 0);
+        bookedHour[row] = bookedAt != null
+                ? (int) (bookedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / HOUR_MILLIS)
+                : 0;
+        seats[row] = getInt(item, "seatCount");
+        amount[row] = getDouble(item, "totalAmount");
+        refund[row] = refunded != null ? getDouble(item, "refundAmount") : 0.0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= movie.length) {
+            return;
+        }
+        int capacity = Math.max(required, movie.length * 2);
+        movie = Arrays.copyOf(movie, capacity);
+        theater = Arrays.copyOf(theater, capacity);
+        status = Arrays.copyOf(status, capacity);
+        seatCategory = Arrays.copyOf(seatCategory, capacity);
+        hour = Arrays.copyOf(hour, capacity);
+        bookingDay = Arrays.copyOf(bookingDay, capacity);
+        showDay = Arrays.copyOf(showDay, capacity);
+        bookedHour = Arrays.copyOf(bookedHour, capacity);
+        seats = Arrays.copyOf(seats, capacity);
+        amount = Arrays.copyOf(amount, capacity);
+        refund = Arrays.copyOf(refund, capacity);
+    }
+
+    private static Map<Long, double[]> merge(Map<Long, double[]> left, Map<Long, double[]> right) {
+        Map<Long, double[]> target = left.size() >= right.size() ? left : right;
+        Map<Long, double[]> source = target == left ? right : left;
+        for (Map.Entry<Long, double[]> entry : source.entrySet()) {
+            target.merge(entry.getKey(), entry.getValue(), (a, b) -> {
+                for (int i = 0; i < a.length; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            });
+        }
+        return target;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(Map<String, Object> page) {
+        Object items = page.get("items");
+        return items instanceof List ? (List<Map<String, Object>>) items : new ArrayList<>();
+    }
+
+    private static LocalDateTime parseDateTime(Object value) {
+        return value != null ? LocalDateTime.parse(value.toString()) : null;
+    }
+
+    private static int getInt(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static double getDouble(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    /**
+     * A query compiled against the current dictionaries: filter values become
+     * lookup tables indexed by encoded value.
+     */
+    private final class Plan {
+        private final Dimension[] groupBy;
+        private final Dimension[] filterDimensions;
+        private final boolean[][] filterValues;
+        private final boolean[] paid;
+        private final boolean[] cancelled;
+        private final boolean useShowDate;
+        private final int minDay;
+        private final int maxDay;
+        private final String orderBy;
+        private final int limit;
+
+        private Plan(AnalyticsQuery query) {
+            List<String> groupNames = query.getGroupBy() != null ? query.getGroupBy() : List.of();
+            if (groupNames.size() > MAX_GROUP_BY) {
+                throw new IllegalArgumentException("At most " + MAX_GROUP_BY + " group-by dimensions are supported");
+            }
+            groupBy = groupNames.stream().map(Dimension::parse).toArray(Dimension[]::new);
+
+            Map<String, List<String>> filters = query.getFilters() != null ? query.getFilters() : Map.of();
+            filterDimensions = new Dimension[filters.size()];
+            filterValues = new boolean[filters.size()][];
+            int f = 0;
+            for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+                Dimension dimension = Dimension.parse(filter.getKey());
+                if (dimension == Dimension.BOOKING_DAY || dimension == Dimension.SHOW_DAY) {
+                    throw new IllegalArgumentException("Use from/to to filter by date");
+                }
+                boolean[] allowed = new boolean[cardinality(dimension)];
+                for (String value : filter.getValue()) {
+                    int encoded = encodeFilterValue(dimension, value);
+                    if (encoded >= 0 && encoded < allowed.length) {
+                        allowed[encoded] = true;
+                    }
+                }
+                filterDimensions[f] = dimension;
+                filterValues[f++] = allowed;
+            }
+
+            paid = new boolean[statuses.size()];
+            cancelled = new boolean[statuses.size()];
+            for (int i = 0; i < statuses.size(); i++) {
+                String name = statuses.value(i);
+                paid[i] = "CONFIRMED".equals(name) || "CANCELLATION_PENDING".equals(name);
+                cancelled[i] = "CANCELLED".equals(name);
+            }
+
+            useShowDate = "show".equalsIgnoreCase(query.getDateField());
+            minDay = query.getFrom() != null ? (int) query.getFrom().toEpochDay() : Integer.MIN_VALUE;
+            maxDay = query.getTo() != null ? (int) query.getTo().toEpochDay() : Integer.MAX_VALUE;
+
+            orderBy = query.getOrderBy() != null ? query.getOrderBy() : "revenue";
+            if (!Arrays.asList(METRICS).contains(orderBy)) {
+                throw new IllegalArgumentException("Unknown metric: " + orderBy);
+            }
+            limit = query.getLimit() != null && query.getLimit() > 0 ? Math.min(query.getLimit(), 10000) : 100;
+        }
+    }
+
+    /**
+     * Booking id to row. Booking ids are UUIDs, so canonical ones are kept as
+     * two longs in an open-addressing table rather than as String keys of a
+     * HashMap, which would cost several times the row itself. Other ids fall
+     * back to a map.
+     */
+    static final class RowIndex {
+        private static final int NONE = -1;
+
+        private long[] high = new long[1024];
+        private long[] low = new long[1024];
+        private int[] rows = emptyRows(1024);
+        private int used;
+        private final Map<String, Integer> other = new HashMap<>();
+
+        int get(String id) {
+            if (!isCanonicalUuid(id)) {
+                Integer row = other.get(id);
+                return row != null ? row : NONE;
+            }
+            long hi = mostSignificantBits(id);
+            long lo = leastSignificantBits(id);
+            int mask = rows.length - 1;
+            for (int slot = slot(hi, lo, mask); rows[slot] != NONE; slot = (slot + 1) & mask) {
+                if (high[slot] == hi && low[slot] == lo) {
+                    return rows[slot];
+                }
+            }
+            return NONE;
+        }
+
+        void put(String id, int row) {
+            if (!isCanonicalUuid(id)) {
+                other.put(id, row);
+                return;
+            }
+            if ((used + 1) * 3L > rows.length * 2L) {
+                grow();
+            }
+            insert(mostSignificantBits(id), leastSignificantBits(id), row);
+        }
+
+        private void insert(long hi, long lo, int row) {
+            int mask = rows.length - 1;
+            int slot = slot(hi, lo, mask);
+            while (rows[slot] != NONE) {
+                if (high[slot] == hi && low[slot] == lo) {
+                    rows[slot] = row;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            high[slot] = hi;
+            low[slot] = lo;
+            rows[slot] = row;
+            used++;
+        }
+
+        private void grow() {
+            long[] oldHigh = high;
+            long[] oldLow = low;
+            int[] oldRows = rows;
+            high = new long[oldRows.length * 2];
+            low = new long[oldRows.length * 2];
+            rows = emptyRows(oldRows.length * 2);
+            used = 0;
+            for (int i = 0; i < oldRows.length; i++) {
+                if (oldRows[i] != NONE) {
+                    insert(oldHigh[i], oldLow[i], oldRows[i]);
+                }
+            }
+        }
+
+        private static int slot(long hi, long lo, int mask) {
+            long hash = (hi ^ Long.rotateLeft(lo, 32)) * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+
+        private static int[] emptyRows(int capacity) {
+            int[] empty = new int[capacity];
+            Arrays.fill(empty, NONE);
+            return empty;
+        }
+
+        /** Lower-case 8-4-4-4-12 hex, the form booking ids are generated in. */
+        static boolean isCanonicalUuid(String id) {
+            if (id == null || id.length() != 36) {
+                return false;
+            }
+            for (int i = 0; i < 36; i++) {
+                char c = id.charAt(i);
+                boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+                if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long mostSignificantBits(String id) {
+            return hex(id, 0, 8) << 32 | hex(id, 9, 13) << 16 | hex(id, 14, 18);
+        }
+
+        private static long leastSignificantBits(String id) {
+            return hex(id, 19, 23) << 48 | hex(id, 24, 36);
+        }
+
+        private static long hex(String id, int from, int to) {
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                value = value << 4 | Character.digit(id.charAt(i), 16);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Append-only string dictionary. Encoding happens under the store's write
+     * lock; lookups run under the read lock.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            String key = value != null ? value : "";
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = values.size();
+                ids.put(key, id);
+                values.add(key);
+            }
+            return id;
+        }
+
+        int lookup(String value) {
+            Integer id = ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        String value(int id) {
+            return id >= 0 && id < values.size() ? values.get(id) : "";
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.revticket.dashboard.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate cache for dashboard aggregates. A value younger than
+ * the soft TTL is served as is; an older one is still served immediately while
+ * a single background refresh replaces it. Only values past the hard TTL, or
+ * missing entirely, are loaded on the request thread. Concurrent loads of the
+ * same key share one call.
+ *
+ * Incomplete values (some source missed its deadline) are never allowed to
+ * replace a complete one, and are treated as stale so the next read retries.
+ */
+@Component
+public class DashboardCache {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCache.class);
+
+    @Autowired
+    @Qualifier("dashboardRefreshExecutor")
+    private ThreadPoolTaskExecutor refreshExecutor;
+
+    @Value("${app.dashboard.cache.soft-ttl-seconds:30}")
+    private long softTtlSeconds;
+
+    @Value("${app.dashboard.cache.hard-ttl-seconds:600}")
+    private long hardTtlSeconds;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public <T> CachedValue<T> get(String key, Supplier<T> loader, Supplier<T> fallback) {
+        return get(key, loader, value -> true, fallback);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CachedValue<T> get(String key, Supplier<T> loader, Predicate<T> isComplete, Supplier<T> fallback) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            long ageSeconds = entry.ageSeconds();
+            if (ageSeconds < softTtlSeconds && entry.complete) {
+                return new CachedValue<>((T) entry.value, ageSeconds, CachedValue.Status.FRESH);
+            }
+            if (ageSeconds < hardTtlSeconds) {
+                load(key, loader, isComplete, true);
+                return new CachedValue<>((T) entry.value, ageSeconds, CachedValue.Status.STALE);
+            }
+        }
+
+        try {
+            T value = (T) load(key, loader, isComplete, false).join();
+            return new CachedValue<>(value, 0, CachedValue.Status.MISS);
+        } catch (CompletionException e) {
+            logger.warn("Failed to load dashboard {}: {}", key,
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            if (entry != null) {
+                return new CachedValue<>((T) entry.value, entry.ageSeconds(), CachedValue.Status.STALE);
+            }
+            return new CachedValue<>(fallback.get(), 0, CachedValue.Status.ERROR);
+        }
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    private <T> CompletableFuture<Object> load(String key, Supplier<T> loader, Predicate<T> isComplete,
+                                               boolean async) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            try {
+                T value = loader.get();
+                store(key, value, isComplete.test(value));
+                created.complete(value);
+            } catch (Throwable t) {
+                created.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        };
+
+        if (!async) {
+            task.run();
+            return created;
+        }
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void store(String key, Object value, boolean complete) {
+        entries.compute(key, (k, current) -> {
+            if (!complete && current != null && current.complete) {
+                return current;
+            }
+            return new Entry(value, complete);
+        });
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final boolean complete;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Entry(Object value, boolean complete) {
+            this.value = value;
+            this.complete = complete;
+        }
+
+        private long ageSeconds() {
+            return (System.currentTimeMillis() - loadedAt) / 1000;
+        }
+    }
+}
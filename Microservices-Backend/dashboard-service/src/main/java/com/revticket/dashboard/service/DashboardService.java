@@ -2,18 +2,34 @@ package com.revticket.dashboard.service;
 
 import com.revticket.dashboard.client.*;
 import com.revticket.dashboard.dto.*;
+import com.revticket.dashboard.repository.RollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 public class DashboardService {
 
+    private static final String USERS = "users";
+    private static final String BOOKINGS = "bookings";
+    private static final String MOVIES = "movies";
+    private static final String THEATERS = "theaters";
+    private static final String SHOWTIMES = "showtimes";
+    private static final String REVIEWS = "reviews";
+    private static final String PAYMENTS = "payments";
+
     @Autowired
     private BookingServiceClient bookingServiceClient;
 
+    @Autowired
+    private BookingStatsClient bookingStatsClient;
+
     @Autowired
     private PaymentServiceClient paymentServiceClient;
 
@@ -32,151 +48,190 @@ public class DashboardService {
     @Autowired
     private UserServiceClient userServiceClient;
 
-    public SystemOverviewDTO getSystemOverview() {
-        SystemOverviewDTO overview = new SystemOverviewDTO();
-
-        try {
-            Map<String, Object> userStats = userServiceClient.getUserStats();
-            overview.setTotalUsers(getLong(userStats, "totalUsers"));
-        } catch (Exception e) {
-            overview.setTotalUsers(0L);
-        }
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
 
-        try {
-            Map<String, Object> bookingStats = bookingServiceClient.getBookingStats();
-            overview.setTotalBookings(getLong(bookingStats, "totalBookings"));
-            overview.setActiveBookings(getLong(bookingStats, "confirmedBookings"));
-            overview.setCancelledBookings(getLong(bookingStats, "cancelledBookings"));
-        } catch (Exception e) {
-            overview.setTotalBookings(0L);
-            overview.setActiveBookings(0L);
-            overview.setCancelledBookings(0L);
-        }
+    @Autowired
+    private DashboardCache dashboardCache;
 
-        try {
-            Map<String, Object> movieStats = movieServiceClient.getMovieStats();
-            overview.setTotalMovies(getLong(movieStats, "totalMovies"));
-        } catch (Exception e) {
-            overview.setTotalMovies(0L);
-        }
+    @Autowired
+    private RollupRepository rollupRepository;
 
-        try {
-            Map<String, Object> theaterStats = theaterServiceClient.getTheaterStats();
-            overview.setTotalTheaters(getLong(theaterStats, "totalTheaters"));
-        } catch (Exception e) {
-            overview.setTotalTheaters(0L);
-        }
+    @Autowired
+    private RollupEtlService rollupEtlService;
 
-        try {
-            Map<String, Object> showtimeStats = showtimeServiceClient.getShowtimeStats();
-            overview.setTotalShowtimes(getLong(showtimeStats, "totalShowtimes"));
-        } catch (Exception e) {
-            overview.setTotalShowtimes(0L);
-        }
+    public CachedValue<SystemOverviewDTO> getSystemOverview() {
+        return dashboardCache.get("overview",
+                () -> toOverview(fetchAllStats()),
+                overview -> !overview.isPartial(),
+                SystemOverviewDTO::new);
+    }
 
-        try {
-            Map<String, Object> reviewStats = reviewServiceClient.getReviewStats();
-            overview.setTotalReviews(getLong(reviewStats, "totalReviews"));
-        } catch (Exception e) {
-            overview.setTotalReviews(0L);
-        }
+    public CachedValue<RevenueStatsDTO> getRevenueStats() {
+        return dashboardCache.get("revenue",
+                () -> toRevenueStats(paymentServiceClient.getPaymentStats()),
+                () -> toRevenueStats(Collections.emptyMap()));
+    }
 
-        try {
-            Map<String, Object> paymentStats = paymentServiceClient.getPaymentStats();
-            overview.setTotalRevenue(getDouble(paymentStats, "totalRevenue"));
-        } catch (Exception e) {
-            overview.setTotalRevenue(0.0);
-        }
+    public CachedValue<BookingStatsDTO> getBookingStats() {
+        return dashboardCache.get("bookings",
+                () -> toBookingStats(bookingStatsClient.getBookingStats()),
+                () -> toBookingStats(Collections.emptyMap()));
+    }
 
-        return overview;
+    public CachedValue<Map<String, Object>> getMovieStats() {
+        return dashboardCache.get("movies", movieServiceClient::getMovieStats, HashMap::new);
     }
 
-    public RevenueStatsDTO getRevenueStats() {
-        try {
-            Map<String, Object> stats = paymentServiceClient.getPaymentStats();
-            return new RevenueStatsDTO(
-                    getDouble(stats, "totalRevenue"),
-                    getDouble(stats, "convenienceFees"),
-                    getDouble(stats, "gstAmount"),
-                    getDouble(stats, "netRevenue"),
-                    getLong(stats, "totalTransactions"));
-        } catch (Exception e) {
-            return new RevenueStatsDTO(0.0, 0.0, 0.0, 0.0, 0L);
-        }
+    public CachedValue<TheaterStatsDTO> getTheaterStats() {
+        return dashboardCache.get("theaters",
+                () -> toTheaterStats(theaterServiceClient.getTheaterStats()),
+                () -> toTheaterStats(Collections.emptyMap()));
     }
 
-    public BookingStatsDTO getBookingStats() {
-        try {
-            Map<String, Object> stats = bookingServiceClient.getBookingStats();
-            return new BookingStatsDTO(
-                    getLong(stats, "totalBookings"),
-                    getLong(stats, "confirmedBookings"),
-                    getLong(stats, "cancelledBookings"),
-                    getLong(stats, "pendingBookings"),
-                    getDouble(stats, "averageBookingValue"),
-                    getLong(stats, "totalSeatsBooked"));
-        } catch (Exception e) {
-            return new BookingStatsDTO(0L, 0L, 0L, 0L, 0.0, 0L);
-        }
+    public CachedValue<ShowtimeStatsDTO> getShowtimeStats() {
+        return dashboardCache.get("showtimes",
+                () -> toShowtimeStats(showtimeServiceClient.getShowtimeStats()),
+                () -> toShowtimeStats(Collections.emptyMap()));
     }
 
-    public Map<String, Object> getMovieStats() {
-        try {
-            return movieServiceClient.getMovieStats();
-        } catch (Exception e) {
-            return new HashMap<>();
-        }
+    public CachedValue<Map<String, Object>> getReviewStats() {
+        return dashboardCache.get("reviews", reviewServiceClient::getReviewStats, HashMap::new);
     }
 
-    public TheaterStatsDTO getTheaterStats() {
-        try {
-            Map<String, Object> stats = theaterServiceClient.getTheaterStats();
-            return new TheaterStatsDTO(
-                    getLong(stats, "totalTheaters"),
-                    getLong(stats, "activeTheaters"),
-                    getLong(stats, "totalScreens"),
-                    getLong(stats, "totalSeats"));
-        } catch (Exception e) {
-            return new TheaterStatsDTO(0L, 0L, 0L, 0L);
-        }
+    public Map<String, Object> getBookingsPage(String fromDate, String toDate, int page, int size) {
+        return bookingServiceClient.getBookingsPage(fromDate, toDate, page, size);
     }
 
-    public ShowtimeStatsDTO getShowtimeStats() {
-        try {
-            Map<String, Object> stats = showtimeServiceClient.getShowtimeStats();
-            return new ShowtimeStatsDTO(
-                    getLong(stats, "totalShowtimes"),
-                    getLong(stats, "upcomingShowtimes"),
-                    getLong(stats, "completedShowtimes"),
-                    getDouble(stats, "averageOccupancy"));
-        } catch (Exception e) {
-            return new ShowtimeStatsDTO(0L, 0L, 0L, 0.0);
-        }
+    /**
+     * Per-day booking totals, zero-filled. Served from the local rollup tables
+     * once the ETL has run; until then booking-service aggregates on demand.
+     */
+    public java.util.List<Map<String, Object>> getDailyBookingStats(LocalDate from, LocalDate to) {
+        if (!rollupEtlService.isInitialized()) {
+            return bookingServiceClient.getDailyStats(from.toString(), to.toString());
+        }
+
+        Map<String, Map<String, Object>> byDay = new HashMap<>();
+        for (Map<String, Object> row : rollupRepository.aggregate(from, to, RollupRepository.Dimension.DAY)) {
+            byDay.put(String.valueOf(row.get("date")), row);
+        }
+
+        java.util.List<Map<String, Object>> days = new java.util.ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Map<String, Object> row = byDay.get(day.toString());
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("date", day.toString());
+            point.put("revenue", row != null ? getDouble(row, "revenue") : 0.0);
+            point.put("bookings", row != null ? getLong(row, "bookings") : 0L);
+            point.put("seats", row != null ? getLong(row, "seats") : 0L);
+            point.put("cancellations", row != null ? getLong(row, "cancellations") : 0L);
+            point.put("refunds", row != null ? getDouble(row, "refunds") : 0.0);
+            point.put("paidBookings", row != null ? getLong(row, "paidBookings") : 0L);
+            days.add(point);
+        }
+        return days;
     }
 
-    public Map<String, Object> getReviewStats() {
-        try {
-            return reviewServiceClient.getReviewStats();
-        } catch (Exception e) {
-            return new HashMap<>();
-        }
+    /**
+     * Totals per theater or per movie from the rollup tables.
+     *
+     * @throws IllegalStateException while the initial backfill is still running
+     */
+    public java.util.List<Map<String, Object>> getBreakdown(LocalDate from, LocalDate to,
+                                                            RollupRepository.Dimension dimension) {
+        if (!rollupEtlService.isInitialized()) {
+            throw new IllegalStateException("Report rollups are still being built");
+        }
+        return rollupRepository.aggregate(from, to, dimension);
     }
 
-    public java.util.List<Object> getAllBookings() {
-        try {
-            return bookingServiceClient.getAllBookings();
-        } catch (Exception e) {
-            return java.util.Collections.emptyList();
-        }
+    /**
+     * Builds every section from a single fan-out, so each service is called
+     * once even though several sections read the same stats.
+     */
+    public CachedValue<AnalyticsResponse> getFullReport() {
+        return dashboardCache.get("full-report",
+                this::loadFullReport,
+                report -> !report.isPartial(),
+                AnalyticsResponse::new);
     }
 
-    public AnalyticsResponse getFullReport() {
+    private AnalyticsResponse loadFullReport() {
+        FanOutResult result = fetchAllStats();
         return new AnalyticsResponse(
-                getSystemOverview(),
-                getRevenueStats(),
-                getBookingStats(),
-                getTheaterStats(),
-                getShowtimeStats());
+                toOverview(result),
+                toRevenueStats(result.get(PAYMENTS)),
+                toBookingStats(result.get(BOOKINGS)),
+                toTheaterStats(result.get(THEATERS)),
+                toShowtimeStats(result.get(SHOWTIMES)),
+                result.getStatuses(),
+                !result.isComplete());
+    }
+
+    private FanOutResult fetchAllStats() {
+        Map<String, Supplier<Map<String, Object>>> calls = new LinkedHashMap<>();
+        calls.put(USERS, userServiceClient::getUserStats);
+        calls.put(BOOKINGS, bookingStatsClient::getBookingStats);
+        calls.put(MOVIES, movieServiceClient::getMovieStats);
+        calls.put(THEATERS, theaterServiceClient::getTheaterStats);
+        calls.put(SHOWTIMES, showtimeServiceClient::getShowtimeStats);
+        calls.put(REVIEWS, reviewServiceClient::getReviewStats);
+        calls.put(PAYMENTS, paymentServiceClient::getPaymentStats);
+        return fanOutExecutor.fetch(calls);
+    }
+
+    private SystemOverviewDTO toOverview(FanOutResult result) {
+        Map<String, Object> bookingStats = result.get(BOOKINGS);
+
+        SystemOverviewDTO overview = new SystemOverviewDTO();
+        overview.setTotalUsers(getLong(result.get(USERS), "totalUsers"));
+        overview.setTotalBookings(getLong(bookingStats, "totalBookings"));
+        overview.setActiveBookings(getLong(bookingStats, "confirmedBookings"));
+        overview.setCancelledBookings(getLong(bookingStats, "cancelledBookings"));
+        overview.setTotalMovies(getLong(result.get(MOVIES), "totalMovies"));
+        overview.setTotalTheaters(getLong(result.get(THEATERS), "totalTheaters"));
+        overview.setTotalShowtimes(getLong(result.get(SHOWTIMES), "totalShowtimes"));
+        overview.setTotalReviews(getLong(result.get(REVIEWS), "totalReviews"));
+        overview.setTotalRevenue(getDouble(result.get(PAYMENTS), "totalRevenue"));
+        overview.setSources(result.getStatuses());
+        overview.setPartial(!result.isComplete());
+        return overview;
+    }
+
+    private RevenueStatsDTO toRevenueStats(Map<String, Object> stats) {
+        return new RevenueStatsDTO(
+                getDouble(stats, "totalRevenue"),
+                getDouble(stats, "convenienceFees"),
+                getDouble(stats, "gstAmount"),
+                getDouble(stats, "netRevenue"),
+                getLong(stats, "totalTransactions"));
+    }
+
+    private BookingStatsDTO toBookingStats(Map<String, Object> stats) {
+        return new BookingStatsDTO(
+                getLong(stats, "totalBookings"),
+                getLong(stats, "confirmedBookings"),
+                getLong(stats, "cancelledBookings"),
+                getLong(stats, "pendingBookings"),
+                getDouble(stats, "averageBookingValue"),
+                getLong(stats, "totalSeatsBooked"));
+    }
+
+    private TheaterStatsDTO toTheaterStats(Map<String, Object> stats) {
+        return new TheaterStatsDTO(
+                getLong(stats, "totalTheaters"),
+                getLong(stats, "activeTheaters"),
+                getLong(stats, "totalScreens"),
+                getLong(stats, "totalSeats"));
+    }
+
+    private ShowtimeStatsDTO toShowtimeStats(Map<String, Object> stats) {
+        return new ShowtimeStatsDTO(
+                getLong(stats, "totalShowtimes"),
+                getLong(stats, "upcomingShowtimes"),
+                getLong(stats, "completedShowtimes"),
+                getDouble(stats, "averageOccupancy"));
     }
 
     private Long getLong(Map<String, Object> map, String key) {
@@ -0,0 +1,115 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.dto.SourceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Calls several downstream services concurrently. Each call has its own
+ * deadline and the whole fan-out has an overall one; whatever has not arrived
+ * by then is reported as TIMEOUT and the caller gets a partial result instead
+ * of waiting on the slowest service.
+ *
+ * Missing a deadline does not stop the call itself, so the Feign clients used
+ * here have their read timeout set to the call timeout
+ * (spring.cloud.openfeign.client.config) and give the pool thread back at
+ * about the same time.
+ */
+@Component
+public class FanOutExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(FanOutExecutor.class);
+
+    @Autowired
+    @Qualifier("dashboardFanOutExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${app.dashboard.fan-out.call-timeout-ms:2000}")
+    private long callTimeoutMs;
+
+    @Value("${app.dashboard.fan-out.overall-timeout-ms:3000}")
+    private long overallTimeoutMs;
+
+    public FanOutResult fetch(Map<String, Supplier<Map<String, Object>>> calls) {
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Map<String, Object>>> futures = new LinkedHashMap<>();
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+
+        for (Map.Entry<String, Supplier<Map<String, Object>>> call : calls.entrySet()) {
+            String source = call.getKey();
+            Supplier<Map<String, Object>> supplier = call.getValue();
+            CompletableFuture<Map<String, Object>> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return supplier.get();
+                    } finally {
+                        latencies.put(source, elapsedMs(start));
+                    }
+                }, executor).orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.put(source, future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(overallTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Individual outcomes are collected below
+        }
+
+        FanOutResult result = new FanOutResult();
+        for (Map.Entry<String, CompletableFuture<Map<String, Object>>> entry : futures.entrySet()) {
+            String source = entry.getKey();
+            CompletableFuture<Map<String, Object>> future = entry.getValue();
+            Long latency = latencies.getOrDefault(source, elapsedMs(start));
+
+            if (!future.isDone()) {
+                future.cancel(true);
+                result.put(source, null, new SourceStatus(SourceStatus.State.TIMEOUT, latency,
+                        "No response within " + overallTimeoutMs + " ms"));
+                logger.warn("Dashboard source {} missed the overall deadline", source);
+                continue;
+            }
+            try {
+                result.put(source, future.join(), new SourceStatus(SourceStatus.State.OK, latency, null));
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    result.put(source, null, new SourceStatus(SourceStatus.State.TIMEOUT, latency,
+                            "No response within " + callTimeoutMs + " ms"));
+                    logger.warn("Dashboard source {} missed its deadline", source);
+                } else {
+                    result.put(source, null, new SourceStatus(SourceStatus.State.FAILED, latency,
+                            cause.getMessage()));
+                    logger.warn("Dashboard source {} failed: {}", source, cause.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,36 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.dto.SourceStatus;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Responses gathered by {@link FanOutExecutor}. Sources that failed or missed
+ * their deadline have no response and yield an empty map.
+ */
+public class FanOutResult {
+    private final Map<String, Map<String, Object>> responses = new LinkedHashMap<>();
+    private final Map<String, SourceStatus> statuses = new LinkedHashMap<>();
+
+    void put(String source, Map<String, Object> response, SourceStatus status) {
+        if (response != null) {
+            responses.put(source, response);
+        }
+        statuses.put(source, status);
+    }
+
+    public Map<String, Object> get(String source) {
+        Map<String, Object> response = responses.get(source);
+        return response != null ? response : Collections.emptyMap();
+    }
+
+    public Map<String, SourceStatus> getStatuses() {
+        return statuses;
+    }
+
+    public boolean isComplete() {
+        return statuses.values().stream().allMatch(status -> status.getState() == SourceStatus.State.OK);
+    }
+}
@@ -0,0 +1,143 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.client.MovieServiceClient;
+import com.revticket.dashboard.dto.MoviePerformanceDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live top-K movies and theaters by revenue, bookings and tickets over a
+ * sliding window of hourly buckets. Fed with the per-booking changes the
+ * columnar store applies. A booking counts in the hour it was made, and a
+ * cancellation takes it back from that same hour; once that hour has left
+ * the window there is nothing to take back and the change is dropped.
+ */
+@Service
+public class LeaderboardService {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public enum Dimension { MOVIE, THEATER }
+
+    public enum Metric { REVENUE, BOOKINGS, TICKETS }
+
+    @Autowired
+    private MovieServiceClient movieServiceClient;
+
+    private final int windowHours;
+    private final Map<Dimension, Map<Metric, SlidingTopK>> trackers = new EnumMap<>(Dimension.class);
+    private final Map<String, String> movieTitles = new ConcurrentHashMap<>();
+
+    public LeaderboardService(@Value("${app.dashboard.leaderboard.window-hours:168}") int windowHours,
+                              @Value("${app.dashboard.leaderboard.sketch-depth:5}") int depth,
+                              @Value("${app.dashboard.leaderboard.sketch-width:256}") int width,
+                              @Value("${app.dashboard.leaderboard.candidates:64}") int candidates) {
+        this.windowHours = windowHours;
+        for (Dimension dimension : Dimension.values()) {
+            Map<Metric, SlidingTopK> byMetric = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                byMetric.put(metric, new SlidingTopK(3_600_000L, windowHours, depth, width, candidates));
+            }
+            trackers.put(dimension, byMetric);
+        }
+    }
+
+    /**
+     * Records a change in a booking's paid contribution, in the bucket of
+     * {@code bookedAtMillis}, the time the booking was made.
+     */
+    public void record(String movieId, String theaterId, double revenue, int bookings, int tickets,
+                       long bookedAtMillis) {
+        if (revenue == 0 && bookings == 0 && tickets == 0) {
+            return;
+        }
+        long timestamp = bookedAtMillis;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Dimension, Map<Metric, SlidingTopK>> entry : trackers.entrySet()) {
+            String key = entry.getKey() == Dimension.MOVIE ? movieId : theaterId;
+            entry.getValue().get(Metric.REVENUE).add(key, revenue, timestamp, now);
+            entry.getValue().get(Metric.BOOKINGS).add(key, bookings, timestamp, now);
+            entry.getValue().get(Metric.TICKETS).add(key, tickets, timestamp, now);
+        }
+    }
+
+    public List<Map<String, Object>> top(String dimension, String metric, int hours, int limit) {
+        Dimension parsedDimension = parse(Dimension.class, dimension);
+        Metric parsedMetric = parse(Metric.class, metric);
+        int window = clampHours(hours);
+        long now = System.currentTimeMillis();
+
+        Map<Metric, SlidingTopK> byMetric = trackers.get(parsedDimension);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : byMetric.get(parsedMetric).top(limit, window, now).entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(parsedDimension == Dimension.MOVIE ? "movieId" : "theaterId", entry.getKey());
+            for (Metric m : Metric.values()) {
+                double value = m == parsedMetric ? entry.getValue() : byMetric.get(m).estimate(entry.getKey(), window, now);
+                row.put(m.name().toLowerCase(Locale.ROOT), m == Metric.REVENUE ? value : (Object) Math.round(value));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Top movies by revenue in the window, with titles resolved from
+     * movie-service.
+     */
+    public List<MoviePerformanceDTO> getTopMovies(int hours, int limit) {
+        int window = clampHours(hours);
+        long now = System.currentTimeMillis();
+        Map<Metric, SlidingTopK> byMetric = trackers.get(Dimension.MOVIE);
+
+        List<MoviePerformanceDTO> movies = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : byMetric.get(Metric.REVENUE).top(limit, window, now).entrySet()) {
+            MoviePerformanceDTO movie = new MoviePerformanceDTO();
+            movie.setMovieId(entry.getKey());
+            movie.setMovieTitle(movieTitle(entry.getKey()));
+            movie.setTotalRevenue(entry.getValue());
+            movie.setTotalBookings(Math.round(byMetric.get(Metric.BOOKINGS).estimate(entry.getKey(), window, now)));
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private String movieTitle(String movieId) {
+        String title = movieTitles.get(movieId);
+        if (title != null) {
+            return title;
+        }
+        try {
+            Object fetched = movieServiceClient.getMovieById(movieId).get("title");
+            if (fetched != null) {
+                movieTitles.put(movieId, fetched.toString());
+                return fetched.toString();
+            }
+        } catch (Exception e) {
+            logger.debug("Could not resolve title for movie {}: {}", movieId, e.getMessage());
+        }
+        return null;
+    }
+
+    private int clampHours(int hours) {
+        return Math.max(1, Math.min(hours, windowHours));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.client.BookingServiceClient;
+import com.revticket.dashboard.config.ForwardedAuthorization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes report exports as CSV directly to the response stream. Bookings are
+ * fetched from booking-service one cursor page at a time and each page is
+ * written and flushed before the next is requested, so memory use is bounded
+ * by the page size and a slow client simply slows down the paging.
+ */
+@Service
+public class ReportExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportService.class);
+
+    private static final String[] BOOKING_COLUMNS = {
+            "id", "bookingDate", "status", "ticketNumber", "movieTitle", "theaterName", "showtime",
+            "seatCount", "totalAmount", "refundAmount", "paymentMethod", "customerName", "customerEmail"};
+
+    private static final String[] REVENUE_COLUMNS = {"date", "revenue", "bookings", "seats", "cancellations", "refunds"};
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Value("${app.dashboard.export.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Streams all bookings made between the given dates. {@code authorization}
+     * is the caller's header, captured on the request thread because the body
+     * is written from an async thread.
+     */
+    @SuppressWarnings("unchecked")
+    public void writeBookingsCsv(String fromDate, String toDate, String authorization, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeRow(writer, BOOKING_COLUMNS);
+
+        long rows = 0;
+        String cursor = null;
+        try (ForwardedAuthorization.Scope ignored = ForwardedAuthorization.open(authorization)) {
+            do {
+                Map<String, Object> page = bookingServiceClient.getExportPage(fromDate, toDate, cursor, pageSize);
+                List<Map<String, Object>> items = (List<Map<String, Object>>) page.get("items");
+                if (items != null) {
+                    for (Map<String, Object> item : items) {
+                        String[] values = new String[BOOKING_COLUMNS.length];
+                        for (int i = 0; i < BOOKING_COLUMNS.length; i++) {
+                            Object value = item.get(BOOKING_COLUMNS[i]);
+                            values[i] = value != null ? value.toString() : "";
+                        }
+                        writeRow(writer, values);
+                    }
+                    rows += items.size();
+                }
+                writer.flush();
+                cursor = (String) page.get("nextCursor");
+            } while (cursor != null);
+        }
+        writer.flush();
+        logger.info("Exported {} bookings ({} to {})", rows, fromDate, toDate);
+    }
+
+    public void writeRevenueCsv(List<Map<String, Object>> days, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeRow(writer, REVENUE_COLUMNS);
+        for (Map<String, Object> day : days) {
+            String[] values = new String[REVENUE_COLUMNS.length];
+            for (int i = 0; i < REVENUE_COLUMNS.length; i++) {
+                Object value = day.get(REVENUE_COLUMNS[i]);
+                values[i] = value != null ? value.toString() : "";
+            }
+            writeRow(writer, values);
+        }
+        writer.flush();
+    }
+
+    private static void writeRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escape(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        // Leading formula characters are neutralised so spreadsheets do not evaluate them
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            if (!isNumeric(value)) {
+                value = "'" + value;
+            }
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static boolean isNumeric(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.revticket.dashboard.service;
+
+import com.revticket.dashboard.client.BookingServiceClient;
+import com.revticket.dashboard.config.ForwardedAuthorization;
+import com.revticket.dashboard.repository.RollupRepository;
+import com.revticket.dashboard.repository.RollupRepository.Fact;
+import com.revticket.dashboard.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the rollup tables in step with booking-service. Each run reads the
+ * bookings changed since the stored high-water mark (minus a small overlap for
+ * transactions that committed late) and applies each one as the difference
+ * between its new and previously recorded contribution, so re-reading a
+ * booking is harmless and nothing is ever rescanned.
+ *
+ * Refunds come through the same feed: payment-service stamps refundDate on the
+ * booking when a refund is executed, which bumps its updated_at.
+ */
+@Service
+public class RollupEtlService {
+    private static final Logger logger = LoggerFactory.getLogger(RollupEtlService.class);
+
+    static final String JOB_NAME = "bookings";
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Autowired
+    private RollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${app.dashboard.rollup.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.dashboard.rollup.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    private volatile boolean initialized;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rollupRepository.createTables();
+        } catch (Exception e) {
+            logger.error("Failed to create rollup tables: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.rollup.interval-ms:60000}",
+            initialDelayString = "${app.dashboard.rollup.initial-delay-ms:30000}")
+    public void runIncremental() {
+        String token = "Bearer " + jwtUtil.generateServiceToken("dashboard-service");
+        try (ForwardedAuthorization.Scope ignored = ForwardedAuthorization.open(token)) {
+            LocalDateTime mark = rollupRepository.getHighWaterMark(JOB_NAME);
+            LocalDateTime since = mark != null ? mark.minusSeconds(overlapSeconds) : null;
+
+            long applied = 0;
+            String cursor = null;
+            do {
+                Map<String, Object> page = bookingServiceClient.getChanges(
+                        since != null ? since.toString() : null, cursor, pageSize);
+                List<Map<String, Object>> items = changes(page);
+                if (!items.isEmpty()) {
+                    Integer count = transactionTemplate.execute(status -> apply(items));
+                    applied += count != null ? count : 0;
+                }
+                cursor = (String) page.get("nextCursor");
+            } while (cursor != null);
+
+            if (applied > 0) {
+                logger.info("Rollup ETL applied {} booking changes", applied);
+            }
+            // The feed is read oldest first, so reaching its end means every booking has been applied
+            if (!isInitialized()) {
+                rollupRepository.markBackfillComplete(JOB_NAME);
+                initialized = true;
+                logger.info("Rollup backfill complete");
+            }
+        } catch (Exception e) {
+            logger.warn("Rollup ETL run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * True once a run has read the change feed to its end. The high-water mark
+     * moves after every page, so it says nothing about whether a backfill that
+     * is still in progress (or was interrupted) has covered every day.
+     */
+    public boolean isInitialized() {
+        if (!initialized) {
+            initialized = rollupRepository.isBackfillComplete(JOB_NAME);
+        }
+        return initialized;
+    }
+
+    /**
+     * Applies one page of changes. Runs with the state row locked so several
+     * dashboard instances never interleave their diffs.
+     */
+    private int apply(List<Map<String, Object>> items) {
+        rollupRepository.lockHighWaterMark(JOB_NAME);
+
+        Map<String, Fact> current = new LinkedHashMap<>();
+        LocalDateTime maxUpdatedAt = null;
+        for (Map<String, Object> item : items) {
+            current.put((String) item.get("id"), toFact(item));
+            LocalDateTime updatedAt = parseDateTime(item.get("updatedAt"));
+            if (updatedAt != null && (maxUpdatedAt == null || updatedAt.isAfter(maxUpdatedAt))) {
+                maxUpdatedAt = updatedAt;
+            }
+        }
+
+        Map<String, Fact> previous = rollupRepository.findFacts(current.keySet());
+        Map<String, Fact> deltas = new HashMap<>();
+        Map<String, Fact> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, Fact> entry : current.entrySet()) {
+            Fact fact = entry.getValue();
+            Fact old = previous.get(entry.getKey());
+            if (fact.sameAs(old)) {
+                continue;
+            }
+            if (old != null) {
+                deltas.merge(old.bucket(), old.zero().plus(old, -1), (a, b) -> a.plus(b, 1));
+            }
+            deltas.merge(fact.bucket(), fact, (a, b) -> a.plus(b, 1));
+            changed.put(entry.getKey(), fact);
+        }
+
+        if (!changed.isEmpty()) {
+            rollupRepository.applyDeltas(new ArrayList<>(deltas.values()));
+            rollupRepository.saveFacts(changed);
+        }
+        if (maxUpdatedAt != null) {
+            rollupRepository.advanceHighWaterMark(JOB_NAME, maxUpdatedAt);
+        }
+        return changed.size();
+    }
+
+    /**
+     * A booking's contribution; revenue counts paid bookings only, matching
+     * booking-service's daily aggregate.
+     */
+    private static Fact toFact(Map<String, Object> item) {
+        String status = String.valueOf(item.get("status"));
+        boolean cancelled = "CANCELLED".equals(status);
+        boolean paid = "CONFIRMED".equals(status) || "CANCELLATION_PENDING".equals(status);
+        boolean refunded = item.get("refundDate") != null;
+
+        LocalDateTime bookingDate = parseDateTime(item.get("bookingDate"));
+        return new Fact(
+                bookingDate != null ? bookingDate.toLocalDate() : LocalDate.of(1970, 1, 1),
+                item.get("theaterId") != null ? (String) item.get("theaterId") : "",
+                item.get("movieId") != null ? (String) item.get("movieId") : "",
+                1,
+                cancelled ? 0 : getInt(item, "seatCount"),
+                paid ? getDouble(item, "totalAmount") : 0.0,
+                cancelled ? 1 : 0,
+                refunded ? getDouble(item, "refundAmount") : 0.0,
+                paid ? 1 : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> changes(Map<String, Object> page) {
+        Object items = page.get("items");
+        return items instanceof List ? (List<Map<String, Object>>) items : new ArrayList<>();
+    }
+
+    private static LocalDateTime parseDateTime(Object value) {
+        return value != null ? LocalDateTime.parse(value.toString()) : null;
+    }
+
+    private static int getInt(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static double getDouble(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,185 @@
+package com.revticket.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heavy hitters over a sliding window of fixed-size time buckets. Each bucket
+ * holds a Count-Min sketch of the weights added during that period and a
+ * Space-Saving summary that remembers which keys were heaviest. A window query
+ * takes the union of the candidates of its buckets and ranks them by their
+ * summed sketch estimates, so memory does not grow with the number of keys or
+ * events.
+ *
+ * Weights may be negative (a cancelled booking takes its revenue back), so
+ * estimates use the median of the sketch rows rather than the minimum.
+ */
+public class SlidingTopK {
+
+    private final long bucketMillis;
+    private final int depth;
+    private final int width;
+    private final int candidates;
+    private final Bucket[] buckets;
+
+    public SlidingTopK(long bucketMillis, int bucketCount, int depth, int width, int candidates) {
+        this.bucketMillis = bucketMillis;
+        this.depth = depth;
+        this.width = width;
+        this.candidates = candidates;
+        this.buckets = new Bucket[bucketCount];
+    }
+
+    public synchronized void add(String key, double weight, long timestampMillis, long nowMillis) {
+        if (key == null || key.isEmpty() || weight == 0) {
+            return;
+        }
+        long epoch = timestampMillis / bucketMillis;
+        long current = nowMillis / bucketMillis;
+        if (epoch > current || epoch <= current - buckets.length) {
+            return;
+        }
+        bucket(epoch).add(key, weight);
+    }
+
+    /**
+     * The heaviest keys of the last {@code windowBuckets} buckets, including
+     * the current one, with their estimated totals.
+     */
+    public synchronized LinkedHashMap<String, Double> top(int k, int windowBuckets, long nowMillis) {
+        List<Bucket> window = window(windowBuckets, nowMillis);
+        Set<String> keys = new HashSet<>();
+        for (Bucket bucket : window) {
+            keys.addAll(bucket.summary.keySet());
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            double total = estimate(window, key);
+            if (total > 0) {
+                ranked.add(Map.entry(key, total));
+            }
+        }
+        ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+        LinkedHashMap<String, Double> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : ranked.subList(0, Math.min(k, ranked.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    public synchronized double estimate(String key, int windowBuckets, long nowMillis) {
+        return Math.max(0, estimate(window(windowBuckets, nowMillis), key));
+    }
+
+    private double estimate(List<Bucket> window, String key) {
+        double total = 0;
+        for (Bucket bucket : window) {
+            total += bucket.estimate(key);
+        }
+        return total;
+    }
+
+    private List<Bucket> window(int windowBuckets, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        int size = Math.max(1, Math.min(windowBuckets, buckets.length));
+        List<Bucket> window = new ArrayList<>(size);
+        for (long epoch = current - size + 1; epoch <= current; epoch++) {
+            Bucket bucket = buckets[slot(epoch)];
+            if (bucket != null && bucket.epoch == epoch) {
+                window.add(bucket);
+            }
+        }
+        return window;
+    }
+
+    private Bucket bucket(long epoch) {
+        int slot = slot(epoch);
+        Bucket bucket = buckets[slot];
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets[slot] = bucket;
+        }
+        if (bucket.epoch != epoch) {
+            bucket.reset(epoch);
+        }
+        return bucket;
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets.length);
+    }
+
+    private final class Bucket {
+        private long epoch = Long.MIN_VALUE;
+        private final double[][] counts = new double[depth][width];
+        private final Map<String, Double> summary = new HashMap<>();
+
+        void reset(long epoch) {
+            this.epoch = epoch;
+            for (double[] row : counts) {
+                Arrays.fill(row, 0);
+            }
+            summary.clear();
+        }
+
+        void add(String key, double weight) {
+            int hash = key.hashCode();
+            for (int row = 0; row < depth; row++) {
+                counts[row][index(hash, row)] += weight;
+            }
+            if (weight > 0) {
+                track(key, weight);
+            }
+        }
+
+        double estimate(String key) {
+            int hash = key.hashCode();
+            double[] values = new double[depth];
+            for (int row = 0; row < depth; row++) {
+                values[row] = counts[row][index(hash, row)];
+            }
+            Arrays.sort(values);
+            return depth % 2 == 1
+                    ? values[depth / 2]
+                    : (values[depth / 2 - 1] + values[depth / 2]) / 2;
+        }
+
+        /**
+         * Space-Saving: a new key replaces the lightest candidate and inherits
+         * its weight, so a key that is heavy overall cannot be missed.
+         */
+        private void track(String key, double weight) {
+            Double current = summary.get(key);
+            if (current != null || summary.size() < candidates) {
+                summary.put(key, (current != null ? current : 0) + weight);
+                return;
+            }
+            String lightest = null;
+            double min = Double.MAX_VALUE;
+            for (Map.Entry<String, Double> entry : summary.entrySet()) {
+                if (entry.getValue() < min) {
+                    min = entry.getValue();
+                    lightest = entry.getKey();
+                }
+            }
+            summary.remove(lightest);
+            summary.put(key, min + weight);
+        }
+
+        private int index(int hash, int row) {
+            long h = (hash & 0xffffffffL) * 0x9E3779B97F4A7C15L + (row + 1) * 0xC2B2AE3D27D4EB4FL;
+            h ^= h >>> 31;
+            h *= 0x94D049BB133111EBL;
+            h ^= h >>> 29;
+            return (int) Math.floorMod(h, (long) width);
+        }
+    }
+}
@@ -9,11 +9,14 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    private static final long SERVICE_TOKEN_TTL_MS = 10 * 60 * 1000;
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -24,6 +27,21 @@ public class JwtUtil {
         return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * Short-lived ADMIN token for calls this service makes on its own behalf,
+     * such as scheduled jobs that have no user request to forward.
+     */
+    public String generateServiceToken(String subject) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .claims(Map.of("role", "ADMIN"))
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + SERVICE_TOKEN_TTL_MS))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
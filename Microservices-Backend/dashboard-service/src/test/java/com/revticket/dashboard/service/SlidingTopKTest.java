@@ -0,0 +1,85 @@
+package com.revticket.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingTopKTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long NOW = 1_000 * MINUTE;
+
+    private final SlidingTopK topK = new SlidingTopK(MINUTE, 10, 5, 1024, 16);
+
+    @Test
+    void ranksKeysByTotalWeightAcrossBuckets() {
+        topK.add("a", 20, NOW - 2 * MINUTE, NOW);
+        topK.add("a", 30, NOW, NOW);
+        topK.add("b", 40, NOW - MINUTE, NOW);
+        topK.add("c", 10, NOW, NOW);
+
+        LinkedHashMap<String, Double> top = topK.top(2, 10, NOW);
+
+        assertEquals(List.of("a", "b"), List.copyOf(top.keySet()));
+        assertEquals(50.0, top.get("a"));
+        assertEquals(40.0, top.get("b"));
+    }
+
+    @Test
+    void windowOnlyCoversTheRequestedBuckets() {
+        topK.add("old", 100, NOW - 5 * MINUTE, NOW);
+        topK.add("new", 1, NOW, NOW);
+
+        assertEquals(List.of("new"), List.copyOf(topK.top(5, 3, NOW).keySet()));
+        assertEquals(List.of("old", "new"), List.copyOf(topK.top(5, 10, NOW).keySet()));
+    }
+
+    @Test
+    void ignoresEventsOutsideTheRetainedRange() {
+        topK.add("future", 10, NOW + MINUTE, NOW);
+        topK.add("expired", 10, NOW - 10 * MINUTE, NOW);
+
+        assertTrue(topK.top(5, 10, NOW).isEmpty());
+    }
+
+    @Test
+    void reusedBucketForgetsItsPreviousPeriod() {
+        topK.add("a", 10, NOW, NOW);
+        long later = NOW + 10 * MINUTE;
+        topK.add("b", 5, later, later);
+
+        assertEquals(0.0, topK.estimate("a", 10, later));
+        assertEquals(List.of("b"), List.copyOf(topK.top(5, 10, later).keySet()));
+    }
+
+    @Test
+    void negativeWeightTakesBackAnEarlierAdd() {
+        topK.add("a", 40, NOW - MINUTE, NOW);
+        topK.add("b", 10, NOW, NOW);
+        topK.add("a", -40, NOW, NOW);
+
+        assertEquals(0.0, topK.estimate("a", 10, NOW));
+        assertFalse(topK.top(5, 10, NOW).containsKey("a"));
+    }
+
+    @Test
+    void heavyKeySurvivesManyLightKeysBeyondTheCandidateLimit() {
+        SlidingTopK small = new SlidingTopK(MINUTE, 10, 5, 1024, 4);
+        for (int i = 0; i < 200; i++) {
+            small.add("light-" + i, 1, NOW, NOW);
+            if (i % 2 == 0) {
+                small.add("heavy", 1, NOW, NOW);
+            }
+        }
+
+        LinkedHashMap<String, Double> top = small.top(1, 10, NOW);
+
+        assertEquals(List.of("heavy"), List.copyOf(top.keySet()));
+        assertEquals(100.0, top.get("heavy"));
+    }
+}
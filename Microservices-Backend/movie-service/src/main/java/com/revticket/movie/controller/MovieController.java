@@ -13,6 +13,8 @@ import java.util.List;
 @RequestMapping("/api")
 public class MovieController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private MovieService movieService;
 
@@ -30,4 +32,16 @@ public class MovieController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Looks up many movies in one call, for services that would otherwise
+     * fetch them one by one.
+     */
+    @PostMapping("/movies/batch")
+    public ResponseEntity<List<MovieDTO>> getMoviesByIds(@RequestBody List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(movieService.getMoviesByIds(ids));
+    }
 }
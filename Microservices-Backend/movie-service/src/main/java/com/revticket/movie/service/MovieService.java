@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,6 +22,9 @@ public class MovieService {
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private ShowtimeCacheNotifier showtimeCacheNotifier;
+
     public List<Movie> getAllMovies() {
         return movieRepository.findByIsActiveTrue();
     }
@@ -46,6 +51,16 @@ public class MovieService {
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Movies with the given ids, in no particular order; unknown ids are
+     * skipped.
+     */
+    public List<MovieDTO> getMoviesByIds(Collection<String> ids) {
+        return movieRepository.findAllById(new HashSet<>(ids)).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     public MovieDTO createMovie(MovieRequest request) {
         Movie movie = new Movie();
         movie.setTitle(request.getTitle());
@@ -82,6 +97,7 @@ public class MovieService {
         }
 
         Movie saved = movieRepository.save(movie);
+        showtimeCacheNotifier.invalidateAfterCommit("movie", saved.getId());
         return convertToDTO(saved);
     }
 
@@ -0,0 +1,109 @@
+package com.revticket.movie.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tells showtime-service to drop its cached summaries of changed records.
+ * Every showtime-service instance keeps its own cache, so the call goes to
+ * each registered instance rather than through the load balancer. It is sent
+ * once the change is committed, on a bounded background pool and with the
+ * admin's own token; an instance that misses it, or an invalidation dropped
+ * because the pool is full, leaves the old summary until the cache TTL runs
+ * out.
+ */
+@Service
+public class ShowtimeCacheNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeCacheNotifier.class);
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private RestTemplate showtimeCacheRestTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor showtimeCacheNotifierExecutor;
+
+    @Value("${app.showtime-cache.service-id:showtime-service}")
+    private String serviceId;
+
+    @Value("${app.showtime-cache.invalidate-path:/api/admin/showtimes/cache/invalidate}")
+    private String invalidatePath;
+
+    public void invalidateAfterCommit(String type, String id) {
+        String authorization = currentAuthorization();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(type, id, authorization);
+                }
+            });
+        } else {
+            send(type, id, authorization);
+        }
+    }
+
+    private void send(String type, String id, String authorization) {
+        try {
+            showtimeCacheNotifierExecutor.execute(() -> invalidate(type, id, authorization));
+        } catch (TaskRejectedException e) {
+            logger.warn("Dropped invalidation of cached {} {}: notifier queue is full", type, id);
+        }
+    }
+
+    private void invalidate(String type, String id, String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("type", type);
+        body.put("ids", List.of(id));
+        List<ServiceInstance> instances;
+        try {
+            instances = discoveryClient.getInstances(serviceId);
+        } catch (Exception e) {
+            logger.warn("Could not list {} instances to invalidate cached {} {}: {}",
+                    serviceId, type, id, e.getMessage());
+            return;
+        }
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+        for (ServiceInstance instance : instances) {
+            try {
+                showtimeCacheRestTemplate.postForEntity(instance.getUri() + invalidatePath, request, Void.class);
+            } catch (Exception e) {
+                logger.warn("Could not invalidate cached {} {} in {} at {}: {}",
+                        type, id, serviceId, instance.getUri(), e.getMessage());
+            }
+        }
+    }
+
+    private static String currentAuthorization() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+        }
+        return null;
+    }
+}
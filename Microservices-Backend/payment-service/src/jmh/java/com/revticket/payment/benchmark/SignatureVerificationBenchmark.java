@@ -0,0 +1,73 @@
+package com.revticket.payment.benchmark;
+
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import com.revticket.payment.util.RazorpaySignatureVerifier;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Razorpay SDK signature check used before with
+ * {@link RazorpaySignatureVerifier}. Run with the jmh profile; add
+ * {@code -prof gc} to the JMH arguments to see allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SignatureVerificationBenchmark {
+
+    private static final String SECRET = "benchmark_key_secret";
+    private static final String ORDER_ID = "order_NxYQ4H6lPa2Vb1";
+    private static final String PAYMENT_ID = "pay_NxYQ9dS0kq7Tz3";
+
+    private RazorpaySignatureVerifier verifier;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        verifier = new RazorpaySignatureVerifier(SECRET);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(
+                mac.doFinal((ORDER_ID + "|" + PAYMENT_ID).getBytes(StandardCharsets.UTF_8)));
+
+        if (!verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, signature) || !razorpayUtils()) {
+            throw new IllegalStateException("Benchmark signature does not verify");
+        }
+    }
+
+    @Benchmark
+    public boolean razorpayUtils() throws RazorpayException {
+        JSONObject options = new JSONObject();
+        options.put("razorpay_order_id", ORDER_ID);
+        options.put("razorpay_payment_id", PAYMENT_ID);
+        options.put("razorpay_signature", signature);
+        return Utils.verifyPaymentSignature(options, SECRET);
+    }
+
+    @Benchmark
+    public boolean threadLocalVerifier() {
+        return verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, signature);
+    }
+}
@@ -0,0 +1,47 @@
+package com.revticket.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers for @Scheduled jobs. Jobs that can run long or sleep get a
+ * scheduler of their own so they cannot hold up the others, which share the
+ * default taskScheduler.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:2}") int poolSize) {
+        return scheduler(poolSize, "scheduling-");
+    }
+
+    /**
+     * Refund processing paces gateway calls with sleeps.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler refundScheduler() {
+        return scheduler(1, "refunds-");
+    }
+
+    /**
+     * Flushing buffered payment attempts must keep up with checkout traffic
+     * whatever the other jobs are doing.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler paymentAttemptScheduler() {
+        return scheduler(1, "payment-attempts-");
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(int poolSize, String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -34,6 +34,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/payments/public/**").permitAll()
                         .requestMatchers("/api/razorpay/health").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
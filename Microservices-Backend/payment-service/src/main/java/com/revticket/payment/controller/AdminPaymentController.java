@@ -0,0 +1,95 @@
+package com.revticket.payment.controller;
+
+import com.revticket.payment.dto.DailyPaymentStatsDTO;
+import com.revticket.payment.dto.PaymentStatsDTO;
+import com.revticket.payment.dto.ReconciliationSummary;
+import com.revticket.payment.dto.RefundProgressDTO;
+import com.revticket.payment.entity.RefundJob;
+import com.revticket.payment.service.PaymentStatsService;
+import com.revticket.payment.service.RefundProcessingService;
+import com.revticket.payment.service.SettlementReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/payments")
+public class AdminPaymentController {
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private SettlementReconciliationService reconciliationService;
+
+    @Autowired
+    private RefundProcessingService refundProcessingService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<PaymentStatsDTO> getPaymentStats() {
+        return ResponseEntity.ok(paymentStatsService.getStats());
+    }
+
+    @GetMapping("/stats/daily")
+    public ResponseEntity<List<DailyPaymentStatsDTO>> getDailyPaymentStats(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(paymentStatsService.getDailyStats(start, end));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildPaymentStats() {
+        paymentStatsService.rebuild();
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationSummary> reconcileSettlement(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        String name = file.getOriginalFilename() != null
+                ? file.getOriginalFilename().replaceAll("[^A-Za-z0-9._-]", "_")
+                : "settlement.csv";
+        Path upload = Files.createTempDirectory("settlement").resolve(name);
+        try {
+            file.transferTo(upload);
+            return ResponseEntity.ok(reconciliationService.reconcile(upload));
+        } finally {
+            Files.deleteIfExists(upload);
+            Files.deleteIfExists(upload.getParent());
+        }
+    }
+
+    @GetMapping("/reconciliation/reports/{reportName}")
+    public ResponseEntity<Resource> downloadMismatchReport(@PathVariable("reportName") String reportName) {
+        Path report = reconciliationService.resolveReport(reportName);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + reportName + "\"")
+                .body(new FileSystemResource(report));
+    }
+
+    @GetMapping("/refunds")
+    public ResponseEntity<RefundProgressDTO> getRefundProgress() {
+        return ResponseEntity.ok(refundProcessingService.getProgress());
+    }
+
+    @PostMapping("/refunds/{jobId}/retry")
+    public ResponseEntity<RefundJob> retryRefund(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(refundProcessingService.retry(jobId));
+    }
+}
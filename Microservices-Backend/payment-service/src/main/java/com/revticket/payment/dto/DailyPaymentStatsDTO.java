@@ -0,0 +1,19 @@
+package com.revticket.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyPaymentStatsDTO {
+    private LocalDate date;
+    private Double totalRevenue;
+    private Double convenienceFees;
+    private Double gstAmount;
+    private Double netRevenue;
+    private Long totalTransactions;
+}
@@ -0,0 +1,16 @@
+package com.revticket.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatsDTO {
+    private Double totalRevenue;
+    private Double convenienceFees;
+    private Double gstAmount;
+    private Double netRevenue;
+    private Long totalTransactions;
+}
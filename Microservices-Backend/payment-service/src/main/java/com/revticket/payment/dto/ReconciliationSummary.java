@@ -0,0 +1,29 @@
+package com.revticket.payment.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class ReconciliationSummary {
+    private String settlementFile;
+    private String mismatchReport;
+    private long rowsRead;
+    private long rowsSkipped;
+    private long matched;
+    private long mismatched;
+    private Map<MismatchType, Long> mismatchesByType = new EnumMap<>(MismatchType.class);
+    private long durationMs;
+
+    public enum MismatchType {
+        MISSING_IN_SYSTEM, AMOUNT_MISMATCH, STATUS_MISMATCH, MALFORMED_ROW
+    }
+
+    public void addMismatch(MismatchType type) {
+        mismatched++;
+        mismatchesByType.merge(type, 1L, Long::sum);
+    }
+}
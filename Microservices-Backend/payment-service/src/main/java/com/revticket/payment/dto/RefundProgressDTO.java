@@ -0,0 +1,18 @@
+package com.revticket.payment.dto;
+
+import com.revticket.payment.entity.RefundJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundProgressDTO {
+    private Map<RefundJob.RefundJobStatus, Long> jobsByStatus;
+    private Map<RefundJob.RefundJobStatus, Double> amountByStatus;
+    private List<RefundJob> recentFailures;
+}
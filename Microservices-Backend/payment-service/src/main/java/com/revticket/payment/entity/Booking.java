@@ -91,6 +91,11 @@ public class Booking {
     @Column(name = "cancellation_requested_at")
     private LocalDateTime cancellationRequestedAt;
 
+    // Maintained by MySQL on every write, including bulk updates and writes from other services
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private Payment payment;
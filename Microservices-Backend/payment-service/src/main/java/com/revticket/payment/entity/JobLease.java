@@ -0,0 +1,28 @@
+package com.revticket.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per scheduled job that must run on a single instance at a time.
+ */
+@Entity
+@Table(name = "job_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "leased_until", nullable = false)
+    private LocalDateTime leasedUntil;
+}
@@ -10,7 +10,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_razorpay_payment_id", columnList = "razorpay_payment_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,6 +53,26 @@ public class Payment {
     @Column(name = "payment_date", nullable = false, updatable = false)
     private LocalDateTime paymentDate;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "refund_status")
+    private RefundStatus refundStatus;
+
+    @Column(name = "refund_amount")
+    private Double refundAmount;
+
+    @Column(name = "gateway_refund_id")
+    private String gatewayRefundId;
+
+    @Column(name = "refunded_at")
+    private LocalDateTime refundedAt;
+
+    // Fee and GST percentages in force when the payment was taken, for splitting its amount in the stats
+    @Column(name = "fee_percent")
+    private Double feePercent;
+
+    @Column(name = "gst_percent")
+    private Double gstPercent;
+
     public enum PaymentMethod {
         CARD, UPI, WALLET
     }
@@ -58,5 +80,9 @@ public class Payment {
     public enum PaymentStatus {
         PENDING, SUCCESS, FAILED, REFUNDED
     }
+
+    public enum RefundStatus {
+        PENDING, PROCESSING, PROCESSED, FAILED
+    }
 }
 
@@ -0,0 +1,31 @@
+package com.revticket.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "payment_daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDailyStats {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "total_revenue", nullable = false)
+    private Double totalRevenue = 0.0;
+
+    @Column(name = "convenience_fees", nullable = false)
+    private Double convenienceFees = 0.0;
+
+    @Column(name = "gst_amount", nullable = false)
+    private Double gstAmount = 0.0;
+
+    @Column(name = "total_transactions", nullable = false)
+    private Long totalTransactions = 0L;
+}
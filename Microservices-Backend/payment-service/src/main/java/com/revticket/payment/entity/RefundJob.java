@@ -0,0 +1,75 @@
+package com.revticket.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Owner of the refund_jobs schema. booking-service only inserts rows, with
+ * plain SQL, and does not map the table.
+ */
+@Entity
+@Table(name = "refund_jobs", indexes = {
+        @Index(name = "idx_refund_jobs_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "booking_id", nullable = false, unique = true)
+    private String bookingId;
+
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RefundJobStatus status = RefundJobStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "gateway_refund_id")
+    private String gatewayRefundId;
+
+    // Set when an instance claims the job; only the holder may finish it
+    @Column(name = "lease_token")
+    private String leaseToken;
+
+    @Column(name = "leased_until")
+    private LocalDateTime leasedUntil;
+
+    // Set before the first gateway call; from then on a retry looks for the refund before sending another
+    @Column(name = "gateway_requested_at")
+    private LocalDateTime gatewayRequestedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum RefundJobStatus {
+        PENDING, PROCESSING, SUCCEEDED, FAILED
+    }
+}
@@ -0,0 +1,42 @@
+package com.revticket.payment.repository;
+
+import com.revticket.payment.entity.JobLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_leases (job_name, owner, leased_until) " +
+            "VALUES (:jobName, '', '1970-01-01 00:00:00')", nativeQuery = true)
+    void insertIfAbsent(@Param("jobName") String jobName);
+
+    /**
+     * Takes the lease if it has run out. Returns 1 when this caller now holds
+     * it and 0 when another instance does.
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leasedUntil = :until " +
+            "WHERE l.jobName = :jobName AND l.leasedUntil <= :now")
+    int claim(@Param("jobName") String jobName,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLease l WHERE l.jobName = :jobName")
+    Optional<JobLease> lockByJobName(@Param("jobName") String jobName);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT l FROM JobLease l WHERE l.jobName = :jobName")
+    Optional<JobLease> lockSharedByJobName(@Param("jobName") String jobName);
+}
@@ -0,0 +1,37 @@
+package com.revticket.payment.repository;
+
+import com.revticket.payment.entity.PaymentDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PaymentDailyStatsRepository extends JpaRepository<PaymentDailyStats, LocalDate> {
+
+    List<PaymentDailyStats> findByStatDateBetweenOrderByStatDateAsc(LocalDate from, LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(s.totalRevenue), 0), COALESCE(SUM(s.convenienceFees), 0), " +
+            "COALESCE(SUM(s.gstAmount), 0), COALESCE(SUM(s.totalTransactions), 0) FROM PaymentDailyStats s")
+    List<Object[]> sumAll();
+
+    @Modifying
+    @Query(value = "INSERT INTO payment_daily_stats " +
+            "(stat_date, total_revenue, convenience_fees, gst_amount, total_transactions) " +
+            "VALUES (:statDate, :revenue, :fees, :gst, :transactions) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_revenue = total_revenue + VALUES(total_revenue), " +
+            "convenience_fees = convenience_fees + VALUES(convenience_fees), " +
+            "gst_amount = gst_amount + VALUES(gst_amount), " +
+            "total_transactions = total_transactions + VALUES(total_transactions)",
+            nativeQuery = true)
+    void addToDay(@Param("statDate") LocalDate statDate,
+                  @Param("revenue") double revenue,
+                  @Param("fees") double fees,
+                  @Param("gst") double gst,
+                  @Param("transactions") long transactions);
+}
@@ -2,8 +2,12 @@ package com.revticket.payment.repository;
 
 import com.revticket.payment.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +15,19 @@ public interface PaymentRepository extends JpaRepository<Payment, String> {
     Optional<Payment> findByTransactionId(String transactionId);
     Optional<Payment> findByRazorpayOrderId(String razorpayOrderId);
     Optional<Payment> findByRazorpayPaymentId(String razorpayPaymentId);
+
+    @Query("SELECT p.razorpayPaymentId, p.amount, p.status FROM Payment p WHERE p.razorpayPaymentId IN :ids")
+    List<Object[]> findSettlementViewByRazorpayPaymentIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Captured amounts per day and pricing: day, fee percent, GST percent,
+     * amount net of refunds, count. The percentages are null for payments
+     * taken before they were recorded.
+     */
+    @Query(value = "SELECT DATE(payment_date), fee_percent, gst_percent, " +
+            "SUM(CASE WHEN status = 'REFUNDED' THEN amount - COALESCE(refund_amount, 0) ELSE amount END), " +
+            "COUNT(*) FROM payments WHERE status IN ('SUCCESS', 'REFUNDED') " +
+            "GROUP BY DATE(payment_date), fee_percent, gst_percent",
+            nativeQuery = true)
+    List<Object[]> sumCapturedByDay();
 }
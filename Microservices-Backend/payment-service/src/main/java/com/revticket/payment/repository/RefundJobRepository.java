@@ -0,0 +1,53 @@
+package com.revticket.payment.repository;
+
+import com.revticket.payment.entity.RefundJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefundJobRepository extends JpaRepository<RefundJob, String> {
+
+    /**
+     * Locks up to {@code limit} due jobs, skipping rows already claimed by
+     * another instance.
+     */
+    @Query(value = "SELECT * FROM refund_jobs WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<RefundJob> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Returns jobs whose lease ran out to the queue. Jobs claimed before
+     * leases existed fall back to their last update.
+     */
+    @Modifying
+    @Query("UPDATE RefundJob j SET j.status = com.revticket.payment.entity.RefundJob.RefundJobStatus.PENDING, " +
+            "j.leaseToken = NULL " +
+            "WHERE j.status = com.revticket.payment.entity.RefundJob.RefundJobStatus.PROCESSING " +
+            "AND (j.leasedUntil < :now OR (j.leasedUntil IS NULL AND j.updatedAt < :staleBefore))")
+    int releaseStale(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Extends the lease if the caller still holds it and the refund has not
+     * been issued yet, and records that the gateway is about to be called.
+     * Returns 0 when the job must not be sent to the gateway.
+     */
+    @Modifying
+    @Query("UPDATE RefundJob j SET j.leasedUntil = :until, " +
+            "j.gatewayRequestedAt = COALESCE(j.gatewayRequestedAt, :now) " +
+            "WHERE j.id = :id AND j.leaseToken = :token AND j.gatewayRefundId IS NULL " +
+            "AND j.status = com.revticket.payment.entity.RefundJob.RefundJobStatus.PROCESSING")
+    int renewLease(@Param("id") String id, @Param("token") String token, @Param("now") LocalDateTime now,
+                   @Param("until") LocalDateTime until);
+
+    @Query("SELECT j.status, COUNT(j), COALESCE(SUM(j.amount), 0) FROM RefundJob j GROUP BY j.status")
+    List<Object[]> summarizeByStatus();
+
+    List<RefundJob> findByStatusOrderByUpdatedAtDesc(RefundJob.RefundJobStatus status, Pageable pageable);
+}
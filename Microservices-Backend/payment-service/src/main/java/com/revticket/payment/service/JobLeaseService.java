@@ -0,0 +1,79 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Keeps scheduled jobs that every instance fires from running on more than
+ * one of them. A lease is a row in job_leases that one instance claims with a
+ * conditional update; the others see it held and skip their run. Leases are
+ * not released early, so instances whose clocks fire a little later in the
+ * same period also skip.
+ */
+@Service
+public class JobLeaseService {
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    private final TransactionTemplate requiresNew;
+    private final String owner;
+
+    public JobLeaseService(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = hostName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Claims the job for this instance for the given duration. The claim is
+     * committed on its own, whatever transaction the caller is in.
+     */
+    public boolean tryAcquire(String jobName, Duration lease) {
+        Integer claimed = requiresNew.execute(status -> {
+            jobLeaseRepository.insertIfAbsent(jobName);
+            LocalDateTime now = LocalDateTime.now();
+            return jobLeaseRepository.claim(jobName, owner, now, now.plus(lease));
+        });
+        return claimed != null && claimed > 0;
+    }
+
+    /**
+     * Locks the job's row until the caller's transaction ends, so runs of the
+     * job on any instance, scheduled or manual, happen one after another.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(String jobName) {
+        jobLeaseRepository.insertIfAbsent(jobName);
+        jobLeaseRepository.lockByJobName(jobName);
+    }
+
+    /**
+     * Shared counterpart of {@link #lock}: holders do not wait for each other,
+     * only for a transaction holding the exclusive lock, and it waits for them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockShared(String jobName) {
+        jobLeaseRepository.insertIfAbsent(jobName);
+        jobLeaseRepository.lockSharedByJobName(jobName);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.revticket.payment.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of checkout attempts that did not produce a booking: orders
+ * created at the gateway and attempts reported as failed by the client. These
+ * used to be stored as CANCELLED bookings with FAILED payments; keeping them
+ * here leaves the bookings table to real bookings.
+ *
+ * Attempts are buffered in memory and written in JDBC batches. The table is
+ * range-partitioned by month so retention is a cheap DROP PARTITION rather
+ * than a large DELETE; partitions are created ahead of time by a daily
+ * maintenance job. The table is managed here rather than by Hibernate because
+ * ddl-auto cannot create partitioned tables.
+ *
+ * When the buffer is full new attempts are dropped rather than slowing down
+ * checkout; the drop count and buffer depth are published as the
+ * payment.attempts.dropped and payment.attempts.pending metrics.
+ */
+@Service
+public class PaymentAttemptLog {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentAttemptLog.class);
+
+    private static final String TABLE = "payment_attempts";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE
+            + " (attempted_at, outcome, user_id, showtime_id, razorpay_order_id, razorpay_payment_id,"
+            + " amount, seat_count, customer_email) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public enum Outcome {
+        ORDER_CREATED, FAILED
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.payment-attempts.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.payment-attempts.max-pending:20000}")
+    private int maxPending;
+
+    @Value("${app.payment-attempts.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${app.payment-attempts.months-ahead:2}")
+    private int monthsAhead;
+
+    private final ConcurrentLinkedQueue<Attempt> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("payment.attempts.dropped", dropped, AtomicLong::get)
+                .description("Payment attempts dropped because the write buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("payment.attempts.pending", pendingCount, AtomicInteger::get)
+                .description("Payment attempts buffered and not yet written")
+                .register(meterRegistry);
+    }
+
+    public void recordOrderCreated(String razorpayOrderId, String showtimeId, Double amount) {
+        append(new Attempt(LocalDateTime.now(), Outcome.ORDER_CREATED, null, showtimeId, razorpayOrderId,
+                null, amount, null, null));
+    }
+
+    public void recordFailure(String userId, String showtimeId, String razorpayOrderId, String razorpayPaymentId,
+                              Double amount, Integer seatCount, String customerEmail) {
+        append(new Attempt(LocalDateTime.now(), Outcome.FAILED, userId, showtimeId, razorpayOrderId,
+                razorpayPaymentId, amount, seatCount, customerEmail));
+    }
+
+    private void append(Attempt attempt) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                logger.warn("Payment attempt log is full, {} attempts dropped so far", dropped.get());
+            }
+            return;
+        }
+        pending.add(attempt);
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment-attempts.flush-interval-ms:2000}",
+            scheduler = "paymentAttemptScheduler")
+    public void flush() {
+        List<Attempt> batch = new ArrayList<>(batchSize);
+        Attempt attempt;
+        while ((attempt = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(attempt);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<Attempt> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, a) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(a.attemptedAt));
+                ps.setString(2, a.outcome.name());
+                ps.setString(3, a.userId);
+                ps.setString(4, a.showtimeId);
+                ps.setString(5, a.razorpayOrderId);
+                ps.setString(6, a.razorpayPaymentId);
+                if (a.amount != null) {
+                    ps.setDouble(7, a.amount);
+                } else {
+                    ps.setNull(7, Types.DOUBLE);
+                }
+                if (a.seatCount != null) {
+                    ps.setInt(8, a.seatCount);
+                } else {
+                    ps.setNull(8, Types.INTEGER);
+                }
+                ps.setString(9, a.customerEmail);
+            });
+        } catch (Exception e) {
+            // The log is diagnostic; losing a batch must never affect checkout
+            logger.warn("Failed to write {} payment attempts: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the table on first start, adds partitions for the coming months
+     * and drops partitions older than the retention period.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.payment-attempts.maintenance-cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        try {
+            YearMonth current = YearMonth.now();
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                    + "id BIGINT NOT NULL AUTO_INCREMENT, "
+                    + "attempted_at DATETIME(3) NOT NULL, "
+                    + "outcome VARCHAR(20) NOT NULL, "
+                    + "user_id VARCHAR(255), "
+                    + "showtime_id VARCHAR(255), "
+                    + "razorpay_order_id VARCHAR(255), "
+                    + "razorpay_payment_id VARCHAR(255), "
+                    + "amount DOUBLE, "
+                    + "seat_count INT, "
+                    + "customer_email VARCHAR(255), "
+                    + "PRIMARY KEY (id, attempted_at), "
+                    + "KEY idx_payment_attempts_order (razorpay_order_id)"
+                    + ") PARTITION BY RANGE (TO_DAYS(attempted_at)) (" + partitionDefinition(current) + ")");
+
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                    String.class, TABLE));
+            if (existing.isEmpty()) {
+                logger.warn("Table {} is not partitioned, skipping partition maintenance", TABLE);
+                return;
+            }
+
+            // Starts at the current month, which is missing if the service was down past the months ahead
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!existing.contains(month.format(PARTITION_NAME))) {
+                    jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PARTITION (" + partitionDefinition(month) + ")");
+                }
+            }
+
+            String oldestKept = current.minusMonths(retentionMonths).format(PARTITION_NAME);
+            for (String partition : existing) {
+                if (partition.compareTo(oldestKept) < 0) {
+                    jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+                    logger.info("Dropped payment attempt partition {}", partition);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Payment attempt partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private static String partitionDefinition(YearMonth month) {
+        LocalDate upperBound = month.plusMonths(1).atDay(1);
+        return "PARTITION " + month.format(PARTITION_NAME)
+                + " VALUES LESS THAN (TO_DAYS('" + upperBound + "'))";
+    }
+
+    private static final class Attempt {
+        private final LocalDateTime attemptedAt;
+        private final Outcome outcome;
+        private final String userId;
+        private final String showtimeId;
+        private final String razorpayOrderId;
+        private final String razorpayPaymentId;
+        private final Double amount;
+        private final Integer seatCount;
+        private final String customerEmail;
+
+        private Attempt(LocalDateTime attemptedAt, Outcome outcome, String userId, String showtimeId,
+                        String razorpayOrderId, String razorpayPaymentId, Double amount, Integer seatCount,
+                        String customerEmail) {
+            this.attemptedAt = attemptedAt;
+            this.outcome = outcome;
+            this.userId = userId;
+            this.showtimeId = showtimeId;
+            this.razorpayOrderId = razorpayOrderId;
+            this.razorpayPaymentId = razorpayPaymentId;
+            this.amount = amount;
+            this.seatCount = seatCount;
+            this.customerEmail = customerEmail;
+        }
+    }
+}
@@ -22,6 +22,9 @@ public class PaymentService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
     @Transactional
     public Payment processPayment(PaymentRequest request) {
         Booking booking = bookingRepository.findById(Objects.requireNonNullElse(request.getBookingId(), ""))
@@ -33,8 +36,10 @@ public class PaymentService {
         payment.setPaymentMethod(Payment.PaymentMethod.valueOf(request.getPaymentMethod()));
         payment.setStatus(Payment.PaymentStatus.SUCCESS);
         payment.setTransactionId("TXN" + UUID.randomUUID().toString().substring(0, 12).toUpperCase());
+        paymentStatsService.priceAtCurrentRates(payment);
 
         payment = paymentRepository.save(payment);
+        paymentStatsService.recordTransition(payment, null);
 
         // Update booking status
         booking.setStatus(Booking.BookingStatus.CONFIRMED);
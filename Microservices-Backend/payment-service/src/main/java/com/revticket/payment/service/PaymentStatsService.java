@@ -0,0 +1,289 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.DailyPaymentStatsDTO;
+import com.revticket.payment.dto.PaymentStatsDTO;
+import com.revticket.payment.entity.Payment;
+import com.revticket.payment.entity.PaymentDailyStats;
+import com.revticket.payment.repository.PaymentDailyStatsRepository;
+import com.revticket.payment.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains revenue aggregates incrementally as payments change status.
+ * Successful payments are added to a per-day bucket in payment_daily_stats in
+ * the same transaction as the payment itself, and the running totals are kept
+ * in memory so {@link #getStats()} never scans the payments table.
+ *
+ * Convenience fee and GST are split out of each amount using the percentages
+ * recorded on the payment when it was taken, matching how the checkout
+ * computes totals: total = base * (1 + fee%) * (1 + gst%). Payments taken
+ * before the percentages were recorded use the current settings.
+ *
+ * Incremental updates hold a shared lock on the rebuild's job row, so a
+ * rebuild waits for the updates in flight and the updates that follow
+ * apply on top of the rebuilt buckets.
+ */
+@Service
+public class PaymentStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentStatsService.class);
+
+    private static final String REBUILD_JOB = "payment-stats-rebuild";
+
+    @Autowired
+    private PaymentDailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.payment-stats.rebuild-lease-minutes:30}")
+    private long rebuildLeaseMinutes;
+
+    private final AtomicReference<Totals> totals = new AtomicReference<>(Totals.EMPTY);
+
+    /**
+     * Applies the effect of a payment moving from {@code previousStatus} to its
+     * current status. Only transitions into or out of a captured status (SUCCESS
+     * or REFUNDED) change the stats; refunded amounts go through
+     * {@link #recordRefund}.
+     */
+    @Transactional
+    public void recordTransition(Payment payment, Payment.PaymentStatus previousStatus) {
+        int sign = (isCaptured(payment.getStatus()) ? 1 : 0) - (isCaptured(previousStatus) ? 1 : 0);
+        if (sign == 0 || payment.getAmount() == null) {
+            return;
+        }
+        apply(payment, breakdown(payment, payment.getAmount(), sign).withTransactions(sign));
+    }
+
+    /**
+     * Records the current fee and GST percentages on a payment being taken.
+     */
+    public void priceAtCurrentRates(Payment payment) {
+        payment.setFeePercent(settingsService.getConvenienceFeePercent());
+        payment.setGstPercent(settingsService.getGstPercent());
+    }
+
+    /**
+     * Deducts a refund from the revenue of the day the payment was taken. The
+     * transaction itself still counts.
+     */
+    @Transactional
+    public void recordRefund(Payment payment, double refundAmount) {
+        if (refundAmount <= 0) {
+            return;
+        }
+        apply(payment, breakdown(payment, refundAmount, -1));
+    }
+
+    private void apply(Payment payment, Totals delta) {
+        LocalDate day = payment.getPaymentDate() != null
+                ? payment.getPaymentDate().toLocalDate()
+                : LocalDate.now();
+
+        jobLeaseService.lockShared(REBUILD_JOB);
+        dailyStatsRepository.addToDay(day, delta.revenue, delta.fees, delta.gst, delta.transactions);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    totals.accumulateAndGet(delta, Totals::plus);
+                }
+            });
+        } else {
+            totals.accumulateAndGet(delta, Totals::plus);
+        }
+    }
+
+    public PaymentStatsDTO getStats() {
+        Totals current = totals.get();
+        return new PaymentStatsDTO(
+                current.revenue,
+                current.fees,
+                current.gst,
+                current.revenue - current.gst,
+                current.transactions);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyPaymentStatsDTO> getDailyStats(LocalDate from, LocalDate to) {
+        return dailyStatsRepository.findByStatDateBetweenOrderByStatDateAsc(from, to)
+                .stream()
+                .map(day -> new DailyPaymentStatsDTO(
+                        day.getStatDate(),
+                        day.getTotalRevenue(),
+                        day.getConvenienceFees(),
+                        day.getGstAmount(),
+                        day.getTotalRevenue() - day.getGstAmount(),
+                        day.getTotalTransactions()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Nightly rebuild. Every instance fires the cron, but only the one that
+     * takes the lease runs it.
+     */
+    @Scheduled(cron = "${app.payment-stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (!jobLeaseService.tryAcquire(REBUILD_JOB, Duration.ofMinutes(rebuildLeaseMinutes))) {
+            logger.debug("Payment stats rebuild is leased by another instance, skipping");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Recomputes every daily bucket from the payments table, pricing each
+     * payment as the incremental updates did. Concurrent rebuilds on any
+     * instance run one after another rather than interleaving their deletes
+     * and inserts, and incremental updates wait for the rebuild to commit.
+     */
+    public void rebuild() {
+        List<PaymentDailyStats> days = transactionTemplate.execute(status -> {
+            jobLeaseService.lock(REBUILD_JOB);
+
+            double currentFeePercent = settingsService.getConvenienceFeePercent();
+            double currentGstPercent = settingsService.getGstPercent();
+
+            Map<LocalDate, Totals> byDay = new TreeMap<>();
+            for (Object[] row : paymentRepository.sumCapturedByDay()) {
+                if (row[0] == null) {
+                    continue;
+                }
+                double feePercent = row[1] != null ? ((Number) row[1]).doubleValue() : currentFeePercent;
+                double gstPercent = row[2] != null ? ((Number) row[2]).doubleValue() : currentGstPercent;
+                Totals priced = breakdown(((Number) row[3]).doubleValue(), feePercent, gstPercent)
+                        .withTransactions(((Number) row[4]).longValue());
+                byDay.merge(toLocalDate(row[0]), priced, Totals::plus);
+            }
+
+            List<PaymentDailyStats> rebuilt = new ArrayList<>();
+            byDay.forEach((date, day) -> rebuilt.add(new PaymentDailyStats(date, day.revenue, day.fees, day.gst,
+                    day.transactions)));
+
+            dailyStatsRepository.deleteAllInBatch();
+            dailyStatsRepository.saveAll(rebuilt);
+            return rebuilt;
+        });
+        if (days != null) {
+            totals.set(sum(days));
+            logger.info("Rebuilt payment stats for {} days", days.size());
+        }
+    }
+
+    /**
+     * Reloads the running totals from the daily buckets, picking up updates
+     * written by other instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.payment-stats.refresh-interval-ms:300000}",
+            initialDelayString = "${app.payment-stats.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void refreshTotals() {
+        try {
+            List<Object[]> rows = dailyStatsRepository.sumAll();
+            if (rows.isEmpty()) {
+                return;
+            }
+            Object[] row = rows.get(0);
+            totals.set(new Totals(
+                    ((Number) row[0]).doubleValue(),
+                    ((Number) row[1]).doubleValue(),
+                    ((Number) row[2]).doubleValue(),
+                    ((Number) row[3]).longValue()));
+        } catch (Exception e) {
+            logger.warn("Failed to refresh payment stats: {}", e.getMessage());
+        }
+    }
+
+    private Totals breakdown(Payment payment, double amount, int sign) {
+        double feePercent = payment.getFeePercent() != null
+                ? payment.getFeePercent() : settingsService.getConvenienceFeePercent();
+        double gstPercent = payment.getGstPercent() != null
+                ? payment.getGstPercent() : settingsService.getGstPercent();
+        return breakdown(sign * amount, feePercent, gstPercent);
+    }
+
+    private static boolean isCaptured(Payment.PaymentStatus status) {
+        return status == Payment.PaymentStatus.SUCCESS || status == Payment.PaymentStatus.REFUNDED;
+    }
+
+    private static Totals breakdown(double amount, double feePercent, double gstPercent) {
+        double subtotal = amount / (1 + gstPercent / 100);
+        double base = subtotal / (1 + feePercent / 100);
+        return new Totals(amount, subtotal - base, amount - subtotal, 0);
+    }
+
+    private static Totals sum(List<PaymentDailyStats> days) {
+        Totals result = Totals.EMPTY;
+        for (PaymentDailyStats day : days) {
+            result = result.plus(new Totals(day.getTotalRevenue(), day.getConvenienceFees(),
+                    day.getGstAmount(), day.getTotalTransactions()));
+        }
+        return result;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
+    }
+
+    private static final class Totals {
+        static final Totals EMPTY = new Totals(0.0, 0.0, 0.0, 0);
+
+        final double revenue;
+        final double fees;
+        final double gst;
+        final long transactions;
+
+        Totals(double revenue, double fees, double gst, long transactions) {
+            this.revenue = revenue;
+            this.fees = fees;
+            this.gst = gst;
+            this.transactions = transactions;
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(revenue + other.revenue, fees + other.fees, gst + other.gst,
+                    transactions + other.transactions);
+        }
+
+        Totals withTransactions(long count) {
+            return new Totals(revenue, fees, gst, count);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.revticket.payment.service;
 import com.razorpay.Order;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
-import com.razorpay.Utils;
+import com.razorpay.Refund;
 import com.revticket.payment.dto.RazorpayOrderRequest;
 import com.revticket.payment.dto.RazorpayOrderResponse;
 import com.revticket.payment.dto.RazorpayVerificationRequest;
@@ -20,17 +20,17 @@ import com.revticket.payment.repository.PaymentRepository;
 import com.revticket.payment.repository.ShowtimeRepository;
 import com.revticket.payment.repository.TheaterRepository;
 import com.revticket.payment.repository.UserRepository;
+import com.revticket.payment.util.RazorpaySignatureVerifier;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class RazorpayService {
@@ -73,10 +73,19 @@ public class RazorpayService {
     private com.revticket.payment.repository.ScreenRepository screenRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private ShowtimeReplicaCache showtimeReplicaCache;
 
-    @Value("${app.gateway-url:http://localhost:8080}")
-    private String gatewayUrl;
+    @Autowired
+    private RazorpaySignatureVerifier signatureVerifier;
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PaymentAttemptLog paymentAttemptLog;
 
     public RazorpayOrderResponse createOrder(RazorpayOrderRequest request) throws RazorpayException {
         RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
@@ -87,6 +96,7 @@ public class RazorpayService {
         orderRequest.put("receipt", "order_" + System.currentTimeMillis());
 
         Order order = razorpayClient.orders.create(orderRequest);
+        paymentAttemptLog.recordOrderCreated(order.get("id"), request.getShowtimeId(), request.getAmount());
 
         return new RazorpayOrderResponse(
                 order.get("id"),
@@ -95,14 +105,37 @@ public class RazorpayService {
                 razorpayKeyId);
     }
 
-    @Transactional
-    public Booking verifyPaymentAndCreateBooking(String userId, RazorpayVerificationRequest request) throws Exception {
-        // Check if payment already processed
-        var existingPayment = paymentRepository.findByRazorpayOrderId(request.getRazorpayOrderId());
-        if (existingPayment.isPresent() && existingPayment.get().getStatus() == Payment.PaymentStatus.SUCCESS) {
-            return existingPayment.get().getBooking();
+    /**
+     * Issues a (possibly partial) refund against a captured payment and returns
+     * the gateway refund id. {@code receipt} identifies the refund so it can
+     * be found again if the response is lost.
+     */
+    public String refundPayment(String razorpayPaymentId, double amount, String receipt) throws RazorpayException {
+        RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+
+        JSONObject refundRequest = new JSONObject();
+        refundRequest.put("amount", (int) Math.round(amount * 100));
+        refundRequest.put("receipt", receipt);
+
+        Refund refund = razorpayClient.payments.refund(razorpayPaymentId, refundRequest);
+        return refund.get("id");
+    }
+
+    /**
+     * The id of a refund already issued on the payment with the given receipt.
+     */
+    public Optional<String> findRefundByReceipt(String razorpayPaymentId, String receipt) throws RazorpayException {
+        RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+
+        for (Refund refund : razorpayClient.payments.fetchAllRefunds(razorpayPaymentId)) {
+            if (refund.has("receipt") && receipt.equals(String.valueOf(refund.get("receipt")))) {
+                return Optional.of(refund.get("id"));
+            }
         }
+        return Optional.empty();
+    }
 
+    public Booking verifyPaymentAndCreateBooking(String userId, RazorpayVerificationRequest request) throws Exception {
         // Verify signature (skip for test mode)
         // Test mode: if signature starts with "test_" or order ID starts with
         // "order_test", skip verification
@@ -111,12 +144,10 @@ public class RazorpayService {
                 request.getRazorpayOrderId().startsWith("order_Mock");
 
         if (!isTestMode) {
-            JSONObject options = new JSONObject();
-            options.put("razorpay_order_id", request.getRazorpayOrderId());
-            options.put("razorpay_payment_id", request.getRazorpayPaymentId());
-            options.put("razorpay_signature", request.getRazorpaySignature());
-
-            boolean isValidSignature = Utils.verifyPaymentSignature(options, razorpayKeySecret);
+            boolean isValidSignature = signatureVerifier.verifyPaymentSignature(
+                    request.getRazorpayOrderId(),
+                    request.getRazorpayPaymentId(),
+                    request.getRazorpaySignature());
             if (!isValidSignature) {
                 logger.warn("Invalid payment signature for order: {}", request.getRazorpayOrderId());
                 throw new RuntimeException("Invalid payment signature");
@@ -125,19 +156,37 @@ public class RazorpayService {
             logger.info("Test mode: Skipping signature verification for order: {}", request.getRazorpayOrderId());
         }
 
+        // Resolve the showtime before opening the transaction so no remote call
+        // is made while a database connection is held
+        ShowtimeResponse snapshot = showtimeReplicaCache.get(request.getShowtimeId());
+
+        Booking booking = transactionTemplate.execute(status -> createConfirmedBooking(userId, request, snapshot));
+
+        // Send email notifications
+        if (booking != null && settingsService.areEmailNotificationsEnabled()) {
+            try {
+                emailService.sendBookingConfirmation(booking);
+                emailService.sendAdminNewBookingNotification(booking);
+            } catch (Exception e) {
+                System.err.println("Failed to send email notifications: " + e.getMessage());
+            }
+        }
+
+        return booking;
+    }
+
+    private Booking createConfirmedBooking(String userId, RazorpayVerificationRequest request,
+            ShowtimeResponse snapshot) {
+        // Check if payment already processed
+        var existingPayment = paymentRepository.findByRazorpayOrderId(request.getRazorpayOrderId());
+        if (existingPayment.isPresent() && existingPayment.get().getStatus() == Payment.PaymentStatus.SUCCESS) {
+            return existingPayment.get().getBooking();
+        }
+
         // Get or create user
-        User user = userRepository.findById(userId).orElseGet(() -> {
-            User newUser = new User();
-            newUser.setId(userId);
-            newUser.setEmail(request.getCustomerEmail());
-            newUser.setName(request.getCustomerName());
-            newUser.setPhone(request.getCustomerPhone());
-            newUser.setPassword("");
-            newUser.setRole(User.Role.USER);
-            return userRepository.save(newUser);
-        });
+        User user = getOrCreateUser(userId, request);
 
-        Showtime showtime = getShowtimeFromService(request.getShowtimeId());
+        Showtime showtime = getOrReplicateShowtime(request.getShowtimeId(), snapshot);
         if (showtime == null) {
             logger.error("Showtime not found for ID: {} | Request seats: {} | Total amount: {}",
                     request.getShowtimeId(), request.getSeats(), request.getTotalAmount());
@@ -195,25 +244,30 @@ public class RazorpayService {
         payment.setRazorpayPaymentId(request.getRazorpayPaymentId());
         payment.setRazorpaySignature(request.getRazorpaySignature());
         payment.setTransactionId(request.getRazorpayPaymentId());
+        paymentStatsService.priceAtCurrentRates(payment);
 
-        paymentRepository.save(payment);
+        payment = paymentRepository.save(payment);
+        paymentStatsService.recordTransition(payment, null);
 
-        // Send email notifications
-        if (settingsService.areEmailNotificationsEnabled()) {
-            try {
-                emailService.sendBookingConfirmation(booking);
-                emailService.sendAdminNewBookingNotification(booking);
-            } catch (Exception e) {
-                System.err.println("Failed to send email notifications: " + e.getMessage());
-            }
-        }
+        // The available seat count changed, so the cached snapshot is stale
+        showtimeReplicaCache.evict(showtime.getId());
 
         return booking;
     }
 
-    @Transactional
     public void handlePaymentFailure(String userId, RazorpayVerificationRequest request) {
-        User user = userRepository.findById(userId).orElseGet(() -> {
+        paymentAttemptLog.recordFailure(
+                userId,
+                request.getShowtimeId(),
+                request.getRazorpayOrderId(),
+                request.getRazorpayPaymentId(),
+                request.getTotalAmount(),
+                request.getSeats() != null ? request.getSeats().size() : null,
+                request.getCustomerEmail());
+    }
+
+    private User getOrCreateUser(String userId, RazorpayVerificationRequest request) {
+        return userRepository.findById(userId).orElseGet(() -> {
             User newUser = new User();
             newUser.setId(userId);
             newUser.setEmail(request.getCustomerEmail());
@@ -223,90 +277,17 @@ public class RazorpayService {
             newUser.setRole(User.Role.USER);
             return userRepository.save(newUser);
         });
-
-        Showtime showtime = getShowtimeFromService(request.getShowtimeId());
-        if (showtime == null)
-            return;
-
-        Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setShowtime(showtime);
-        booking.setSeats(request.getSeats());
-        booking.setSeatLabels(request.getSeatLabels());
-        booking.setTotalAmount(request.getTotalAmount());
-        booking.setCustomerName(request.getCustomerName());
-        booking.setCustomerEmail(request.getCustomerEmail());
-        booking.setCustomerPhone(request.getCustomerPhone());
-        booking.setStatus(Booking.BookingStatus.CANCELLED);
-        booking.setPaymentMethod("RAZORPAY");
-
-        booking = bookingRepository.save(booking);
-
-        Payment payment = new Payment();
-        payment.setBooking(booking);
-        payment.setAmount(request.getTotalAmount());
-        payment.setPaymentMethod(Payment.PaymentMethod.UPI);
-        payment.setStatus(Payment.PaymentStatus.FAILED);
-        payment.setRazorpayOrderId(request.getRazorpayOrderId());
-
-        paymentRepository.save(payment);
     }
 
-    private Showtime getShowtimeFromService(String showtimeId) {
-        if (showtimeId == null || showtimeId.trim().isEmpty()) {
-            logger.error("Showtime ID is null or empty");
-            return null;
-        }
-
-        // First, check local database
+    private Showtime getOrReplicateShowtime(String showtimeId, ShowtimeResponse snapshot) {
         Showtime localShowtime = showtimeRepository.findById(showtimeId).orElse(null);
-        if (localShowtime != null) {
-            logger.info("Showtime {} found in local database", showtimeId);
+        if (localShowtime != null || snapshot == null) {
             return localShowtime;
         }
 
-        // If not found locally, fetch from showtime service
-        ShowtimeResponse showtimeResponse = null;
-
-        try {
-            logger.info("Fetching showtime from showtime-service: {}", showtimeId);
-            showtimeResponse = restTemplate.getForObject(
-                    "http://showtime-service/api/showtimes/" + showtimeId,
-                    ShowtimeResponse.class);
-            if (showtimeResponse != null) {
-                logger.info("Successfully fetched showtime from service: {}", showtimeId);
-            }
-        } catch (RestClientException e) {
-            logger.warn("Service discovery failed for ID {}: {}", showtimeId, e.getMessage());
-        } catch (Exception e) {
-            logger.warn("Unexpected error fetching from service discovery: {}", e.getMessage());
-        }
-
-        // Try gateway fallback if service discovery failed
-        if (showtimeResponse == null) {
-            try {
-                logger.info("Attempting gateway fallback for showtime: {}", showtimeId);
-                showtimeResponse = restTemplate.getForObject(
-                        gatewayUrl + "/api/showtimes/" + showtimeId,
-                        ShowtimeResponse.class);
-                if (showtimeResponse != null) {
-                    logger.info("Successfully fetched showtime via gateway: {}", showtimeId);
-                }
-            } catch (RestClientException e) {
-                logger.warn("Gateway fallback failed for ID {}: {}", showtimeId, e.getMessage());
-            } catch (Exception e) {
-                logger.warn("Unexpected error fetching from gateway: {}", e.getMessage());
-            }
-        }
-
-        if (showtimeResponse == null) {
-            logger.error("Showtime {} not found in any source (service discovery or gateway)", showtimeId);
-            return null;
-        }
-
-        // Map ShowtimeResponse to Showtime entity and save to local database
+        // Map the cached snapshot to a Showtime entity and save it to the local database
         try {
-            Showtime showtime = mapShowtimeResponseToEntity(showtimeResponse);
+            Showtime showtime = mapShowtimeResponseToEntity(snapshot);
             showtime = showtimeRepository.save(showtime);
             logger.info("Successfully saved showtime {} to local database", showtimeId);
             return showtime;
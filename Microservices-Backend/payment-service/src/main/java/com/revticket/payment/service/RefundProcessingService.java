@@ -0,0 +1,337 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.RefundProgressDTO;
+import com.revticket.payment.entity.Booking;
+import com.revticket.payment.entity.Payment;
+import com.revticket.payment.entity.RefundJob;
+import com.revticket.payment.repository.BookingRepository;
+import com.revticket.payment.repository.PaymentRepository;
+import com.revticket.payment.repository.RefundJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Executes refund jobs enqueued by booking-service when a booking is
+ * cancelled. Due jobs are claimed in batches with SKIP LOCKED so several
+ * instances can share the queue, gateway calls are paced to the configured
+ * rate and made outside any transaction, and failures are retried with
+ * exponential backoff until the attempt limit is reached.
+ *
+ * Each claim carries a lease token. The lease is renewed right before the
+ * gateway call and only its holder may complete or fail the job, so a job
+ * released as stale while a slow call is still running is neither refunded
+ * twice nor overwritten.
+ *
+ * Every gateway refund carries the job id as its receipt. Once a job has
+ * been sent, a retry first looks for a refund with that receipt on the
+ * payment, so a refund whose response was lost is recorded rather than
+ * issued again.
+ *
+ * The refund_jobs table is written by booking-service and read here, like
+ * the bookings and payments tables, so both services must use the same
+ * database. Its schema is owned by this service's RefundJob entity.
+ */
+@Service
+public class RefundProcessingService {
+    private static final Logger logger = LoggerFactory.getLogger(RefundProcessingService.class);
+
+    @Autowired
+    private RefundJobRepository refundJobRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RazorpayService razorpayService;
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.refunds.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.refunds.max-jobs-per-tick:200}")
+    private int maxJobsPerTick;
+
+    @Value("${app.refunds.max-calls-per-second:5}")
+    private int maxCallsPerSecond;
+
+    @Value("${app.refunds.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.refunds.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.refunds.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.refunds.stale-after-minutes:15}")
+    private long staleAfterMinutes;
+
+    private long lastGatewayCallAt;
+
+    /**
+     * Works through due jobs, at most max-jobs-per-tick of them, so a long
+     * queue is drained over several runs. Runs on its own scheduler because
+     * pacing sleeps between gateway calls.
+     */
+    @Scheduled(fixedDelayString = "${app.refunds.poll-interval-ms:10000}", scheduler = "refundScheduler")
+    public void processDueRefunds() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            refundJobRepository.releaseStale(now, now.minusMinutes(staleAfterMinutes));
+        });
+
+        int processed = 0;
+        List<RefundJob> batch;
+        do {
+            batch = claimBatch(Math.min(batchSize, maxJobsPerTick - processed));
+            for (RefundJob job : batch) {
+                execute(job);
+            }
+            processed += batch.size();
+        } while (!batch.isEmpty() && batch.size() == batchSize && processed < maxJobsPerTick);
+    }
+
+    @Transactional(readOnly = true)
+    public RefundProgressDTO getProgress() {
+        Map<RefundJob.RefundJobStatus, Long> counts = new EnumMap<>(RefundJob.RefundJobStatus.class);
+        Map<RefundJob.RefundJobStatus, Double> amounts = new EnumMap<>(RefundJob.RefundJobStatus.class);
+        for (RefundJob.RefundJobStatus status : RefundJob.RefundJobStatus.values()) {
+            counts.put(status, 0L);
+            amounts.put(status, 0.0);
+        }
+        for (Object[] row : refundJobRepository.summarizeByStatus()) {
+            RefundJob.RefundJobStatus status = (RefundJob.RefundJobStatus) row[0];
+            counts.put(status, ((Number) row[1]).longValue());
+            amounts.put(status, ((Number) row[2]).doubleValue());
+        }
+        List<RefundJob> failures = refundJobRepository.findByStatusOrderByUpdatedAtDesc(
+                RefundJob.RefundJobStatus.FAILED, PageRequest.of(0, 20));
+        return new RefundProgressDTO(counts, amounts, failures);
+    }
+
+    /**
+     * Puts a failed job back on the queue with a fresh attempt budget.
+     */
+    @Transactional
+    public RefundJob retry(String jobId) {
+        RefundJob job = refundJobRepository.findById(Objects.requireNonNullElse(jobId, ""))
+                .orElseThrow(() -> new RuntimeException("Refund job not found"));
+        if (job.getStatus() != RefundJob.RefundJobStatus.FAILED) {
+            throw new RuntimeException("Only failed refund jobs can be retried");
+        }
+        job.setStatus(RefundJob.RefundJobStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextAttemptAt(LocalDateTime.now());
+        return refundJobRepository.save(job);
+    }
+
+    private List<RefundJob> claimBatch(int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<RefundJob> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<RefundJob> due = refundJobRepository.claimDue(now, limit);
+            for (RefundJob job : due) {
+                job.setStatus(RefundJob.RefundJobStatus.PROCESSING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLeaseToken(UUID.randomUUID().toString());
+                job.setLeasedUntil(now.plusMinutes(staleAfterMinutes));
+                findPayment(job).ifPresent(payment -> payment.setRefundStatus(Payment.RefundStatus.PROCESSING));
+            }
+            return refundJobRepository.saveAll(due);
+        });
+        return claimed != null ? claimed : new ArrayList<>();
+    }
+
+    private void execute(RefundJob job) {
+        Payment payment = findPayment(job).orElse(null);
+        if (payment == null) {
+            transactionTemplate.executeWithoutResult(status -> fail(job, "Payment not found", true));
+            return;
+        }
+
+        // A job that already reached the gateway is only completed locally, never refunded twice
+        String refundId = job.getGatewayRefundId();
+        try {
+            if (refundId == null && requiresGateway(payment)) {
+                if (!renewLease(job)) {
+                    logger.warn("Lost the lease on the refund for booking {}, leaving it to its new owner",
+                            job.getBookingId());
+                    return;
+                }
+                if (job.getGatewayRequestedAt() != null) {
+                    refundId = razorpayService.findRefundByReceipt(payment.getRazorpayPaymentId(), job.getId())
+                            .orElse(null);
+                    if (refundId != null) {
+                        logger.info("Found refund {} already issued for booking {}", refundId, job.getBookingId());
+                    }
+                }
+                if (refundId == null) {
+                    pace();
+                    refundId = razorpayService.refundPayment(payment.getRazorpayPaymentId(), job.getAmount(),
+                            job.getId());
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Refund attempt {} for booking {} failed: {}", job.getAttempts(), job.getBookingId(),
+                    e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> fail(job, e.getMessage(), false));
+            return;
+        }
+
+        String gatewayRefundId = refundId;
+        try {
+            transactionTemplate.executeWithoutResult(status -> complete(job, gatewayRefundId));
+        } catch (Exception e) {
+            logger.error("Refund {} for booking {} was issued but could not be recorded: {}",
+                    gatewayRefundId, job.getBookingId(), e.getMessage(), e);
+            transactionTemplate.executeWithoutResult(status -> {
+                RefundJob pending = refundJobRepository.findById(job.getId()).orElseThrow();
+                pending.setGatewayRefundId(gatewayRefundId);
+                pending.setStatus(RefundJob.RefundJobStatus.PENDING);
+                pending.setLeaseToken(null);
+                pending.setLastError(e.getMessage());
+                refundJobRepository.save(pending);
+            });
+        }
+    }
+
+    private boolean renewLease(RefundJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer renewed = transactionTemplate.execute(status -> refundJobRepository.renewLease(
+                job.getId(), job.getLeaseToken(), now, now.plusMinutes(staleAfterMinutes)));
+        return renewed != null && renewed > 0;
+    }
+
+    /**
+     * Loads the job for finishing it, or returns null if the caller's claim
+     * is no longer the current one.
+     */
+    private RefundJob reload(RefundJob claimed) {
+        RefundJob job = refundJobRepository.findById(claimed.getId()).orElseThrow();
+        if (job.getStatus() != RefundJob.RefundJobStatus.PROCESSING
+                || !Objects.equals(job.getLeaseToken(), claimed.getLeaseToken())) {
+            return null;
+        }
+        return job;
+    }
+
+    private void complete(RefundJob claimed, String gatewayRefundId) {
+        RefundJob job = reload(claimed);
+        if (job == null) {
+            RefundJob current = refundJobRepository.findById(claimed.getId()).orElseThrow();
+            if (gatewayRefundId != null && current.getGatewayRefundId() == null) {
+                // Keep the issued refund on record so whoever holds the job does not send it again
+                current.setGatewayRefundId(gatewayRefundId);
+                refundJobRepository.save(current);
+            }
+            logger.warn("Refund for booking {} was reclaimed by another instance before it was recorded",
+                    claimed.getBookingId());
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        job.setStatus(RefundJob.RefundJobStatus.SUCCEEDED);
+        job.setGatewayRefundId(gatewayRefundId);
+        job.setLeaseToken(null);
+        job.setLastError(null);
+        refundJobRepository.save(job);
+
+        findPayment(job).ifPresent(payment -> {
+            Payment.PaymentStatus previousStatus = payment.getStatus();
+            payment.setStatus(Payment.PaymentStatus.REFUNDED);
+            payment.setRefundStatus(Payment.RefundStatus.PROCESSED);
+            payment.setRefundAmount(job.getAmount());
+            payment.setGatewayRefundId(gatewayRefundId);
+            payment.setRefundedAt(now);
+            paymentRepository.save(payment);
+            paymentStatsService.recordTransition(payment, previousStatus);
+            paymentStatsService.recordRefund(payment, job.getAmount());
+        });
+
+        bookingRepository.findById(job.getBookingId()).ifPresent(booking -> {
+            booking.setRefundDate(now);
+            bookingRepository.save(booking);
+        });
+        logger.info("Refund of {} for booking {} processed", job.getAmount(), job.getBookingId());
+    }
+
+    private void fail(RefundJob claimed, String error, boolean permanent) {
+        RefundJob job = reload(claimed);
+        if (job == null) {
+            logger.warn("Refund for booking {} was reclaimed by another instance, dropping its failure: {}",
+                    claimed.getBookingId(), error);
+            return;
+        }
+        job.setLastError(error);
+        job.setLeaseToken(null);
+
+        if (permanent || job.getAttempts() >= maxAttempts) {
+            job.setStatus(RefundJob.RefundJobStatus.FAILED);
+            findPayment(job).ifPresent(payment -> payment.setRefundStatus(Payment.RefundStatus.FAILED));
+            logger.error("Refund for booking {} failed permanently: {}", job.getBookingId(), error);
+        } else {
+            long backoff = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(job.getAttempts() - 1, 20));
+            job.setStatus(RefundJob.RefundJobStatus.PENDING);
+            job.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+            findPayment(job).ifPresent(payment -> payment.setRefundStatus(Payment.RefundStatus.PENDING));
+        }
+        refundJobRepository.save(job);
+    }
+
+    private Optional<Payment> findPayment(RefundJob job) {
+        if (job.getPaymentId() != null) {
+            return paymentRepository.findById(job.getPaymentId());
+        }
+        return bookingRepository.findById(job.getBookingId()).map(Booking::getPayment);
+    }
+
+    /**
+     * Payments without a captured Razorpay payment (mock and test-mode checkouts)
+     * are refunded locally.
+     */
+    private boolean requiresGateway(Payment payment) {
+        String orderId = payment.getRazorpayOrderId();
+        return payment.getRazorpayPaymentId() != null
+                && orderId != null
+                && !orderId.startsWith("order_test")
+                && !orderId.startsWith("order_Mock");
+    }
+
+    private void pace() throws InterruptedException {
+        long minIntervalMs = 1000L / Math.max(1, maxCallsPerSecond);
+        long wait = lastGatewayCallAt + minIntervalMs - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+        lastGatewayCallAt = System.currentTimeMillis();
+    }
+}
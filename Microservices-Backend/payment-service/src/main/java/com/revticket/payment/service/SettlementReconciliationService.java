@@ -0,0 +1,451 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.ReconciliationSummary;
+import com.revticket.payment.dto.ReconciliationSummary.MismatchType;
+import com.revticket.payment.entity.Payment;
+import com.revticket.payment.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconciles the gateway's settlement report against the payments table.
+ * The CSV is read line by line and looked up in batches, and mismatches are
+ * written straight to a report file, so memory stays bounded by the batch size
+ * regardless of how many rows the settlement contains.
+ *
+ * Files dropped into the inbox directory are picked up by a polling job;
+ * admins can also upload a file through AdminPaymentController. When several
+ * instances poll a shared inbox, each file is claimed by an atomic move into
+ * processing/, so only one of them reconciles it. The claimant touches the
+ * file as it works, so a long run is not mistaken for one whose instance
+ * died, and it stops if the file was taken back from it anyway.
+ *
+ * Mismatch reports are written to a directory that must be shared by every
+ * instance, so a report can be downloaded from any of them.
+ *
+ * Amounts are compared in paise. Razorpay reports amounts in paise; set
+ * amount-unit to rupees for reports that use rupees.
+ */
+@Service
+public class SettlementReconciliationService {
+    private static final Logger logger = LoggerFactory.getLogger(SettlementReconciliationService.class);
+
+    private static final DateTimeFormatter REPORT_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<String> ID_COLUMNS = List.of("entity_id", "payment_id", "razorpay_payment_id");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Value("${app.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.reconciliation.report-dir:}")
+    private String reportDir;
+
+    @Value("${app.reconciliation.inbox-dir:}")
+    private String inboxDir;
+
+    @Value("${app.reconciliation.stale-after-minutes:30}")
+    private long staleAfterMinutes;
+
+    @Value("${app.reconciliation.amount-unit:paise}")
+    private String amountUnit;
+
+    /**
+     * Picks up settlement files from the inbox, reconciles them and moves them to
+     * processed/ or failed/. Files left in processing/ by an instance that died
+     * are put back in the inbox once they are stale.
+     */
+    @Scheduled(fixedDelayString = "${app.reconciliation.poll-interval-ms:60000}")
+    public void processInbox() {
+        if (inboxDir == null || inboxDir.isBlank()) {
+            return;
+        }
+        Path inbox = Paths.get(inboxDir);
+        if (!Files.isDirectory(inbox)) {
+            return;
+        }
+        Path processing = inbox.resolve("processing");
+        releaseStale(inbox, processing);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inbox, "*.csv")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Failed to scan reconciliation inbox {}: {}", inboxDir, e.getMessage());
+            return;
+        }
+
+        for (Path pending : files) {
+            Path file = claim(pending, processing);
+            if (file == null) {
+                continue;
+            }
+            Path target;
+            try {
+                ReconciliationSummary summary = reconcile(file, file);
+                logger.info("Reconciled {}: {} rows, {} matched, {} mismatched",
+                        file.getFileName(), summary.getRowsRead(), summary.getMatched(), summary.getMismatched());
+                target = inbox.resolve("processed");
+            } catch (ClaimLostException e) {
+                logger.warn("Stopped reconciling {}: {}", file.getFileName(), e.getMessage());
+                continue;
+            } catch (Exception e) {
+                logger.error("Failed to reconcile {}: {}", file.getFileName(), e.getMessage(), e);
+                target = inbox.resolve("failed");
+            }
+            try {
+                Files.createDirectories(target);
+                Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.warn("Failed to move {} to {}: {}", file.getFileName(), target, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Moves the file into processing/. Returns null if another instance moved
+     * it first.
+     */
+    private Path claim(Path file, Path processing) {
+        try {
+            Files.createDirectories(processing);
+            Path claimed = Files.move(file, processing.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(claimed, FileTime.fromMillis(System.currentTimeMillis()));
+            return claimed;
+        } catch (IOException e) {
+            logger.debug("Settlement file {} was claimed elsewhere: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void releaseStale(Path inbox, Path processing) {
+        if (!Files.isDirectory(processing)) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - Duration.ofMinutes(staleAfterMinutes).toMillis();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(processing, "*.csv")) {
+            for (Path file : stream) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < staleBefore) {
+                        Files.move(file, inbox.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+                        logger.warn("Returned stale settlement file {} to the inbox", file.getFileName());
+                    }
+                } catch (IOException e) {
+                    logger.debug("Could not return {} to the inbox: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to scan {}: {}", processing, e.getMessage());
+        }
+    }
+
+    public ReconciliationSummary reconcile(Path settlementFile) throws IOException {
+        return reconcile(settlementFile, null);
+    }
+
+    /**
+     * Reconciles the file, touching {@code claimed} as it goes when the file
+     * was claimed from the inbox.
+     */
+    private ReconciliationSummary reconcile(Path settlementFile, Path claimed) throws IOException {
+        long start = System.currentTimeMillis();
+        boolean amountsInPaise = amountsInPaise();
+        Path reports = reportDirectory();
+        Files.createDirectories(reports);
+        Heartbeat heartbeat = new Heartbeat(claimed, Duration.ofMinutes(staleAfterMinutes).toMillis() / 3);
+
+        String baseName = settlementFile.getFileName().toString().replaceFirst("\\.csv$", "");
+        Path report = reports.resolve(baseName + "-mismatches-" + LocalDateTime.now().format(REPORT_SUFFIX) + ".csv");
+
+        ReconciliationSummary summary = new ReconciliationSummary();
+        summary.setSettlementFile(settlementFile.getFileName().toString());
+        summary.setMismatchReport(report.getFileName().toString());
+
+        try (BufferedReader reader = Files.newBufferedReader(settlementFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write("line,payment_id,mismatch,settlement_amount_paise,system_amount_paise,system_status");
+            writer.newLine();
+
+            String header = reader.readLine();
+            if (header == null) {
+                summary.setDurationMs(System.currentTimeMillis() - start);
+                return summary;
+            }
+            Columns columns = Columns.from(parseCsvLine(header));
+
+            List<SettlementRow> batch = new ArrayList<>(batchSize);
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                summary.setRowsRead(summary.getRowsRead() + 1);
+
+                List<String> fields = parseCsvLine(line);
+                if (columns.type >= 0 && !"payment".equalsIgnoreCase(field(fields, columns.type))) {
+                    summary.setRowsSkipped(summary.getRowsSkipped() + 1);
+                    continue;
+                }
+
+                String paymentId = field(fields, columns.id);
+                Long amount = parsePaise(field(fields, columns.amount), amountsInPaise);
+                if (paymentId.isEmpty() || amount == null) {
+                    summary.addMismatch(MismatchType.MALFORMED_ROW);
+                    writeMismatch(writer, lineNumber, paymentId, MismatchType.MALFORMED_ROW, null, null, null);
+                    continue;
+                }
+
+                batch.add(new SettlementRow(lineNumber, paymentId, amount));
+                if (batch.size() >= batchSize) {
+                    reconcileBatch(batch, writer, summary);
+                    batch.clear();
+                    heartbeat.beat();
+                }
+            }
+            if (!batch.isEmpty()) {
+                reconcileBatch(batch, writer, summary);
+            }
+        }
+
+        summary.setDurationMs(System.currentTimeMillis() - start);
+        return summary;
+    }
+
+    public Path resolveReport(String reportName) {
+        if (reportName == null || !reportName.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid report name");
+        }
+        Path report = reportDirectory().resolve(reportName);
+        if (!Files.isRegularFile(report)) {
+            throw new IllegalArgumentException("Report not found: " + reportName);
+        }
+        return report;
+    }
+
+    private void reconcileBatch(List<SettlementRow> batch, BufferedWriter writer, ReconciliationSummary summary)
+            throws IOException {
+        Set<String> ids = new LinkedHashSet<>();
+        for (SettlementRow row : batch) {
+            ids.add(row.paymentId);
+        }
+
+        Map<String, Object[]> payments = new HashMap<>();
+        for (Object[] view : paymentRepository.findSettlementViewByRazorpayPaymentIds(ids)) {
+            payments.put((String) view[0], view);
+        }
+
+        for (SettlementRow row : batch) {
+            Object[] view = payments.get(row.paymentId);
+            if (view == null) {
+                summary.addMismatch(MismatchType.MISSING_IN_SYSTEM);
+                writeMismatch(writer, row.lineNumber, row.paymentId, MismatchType.MISSING_IN_SYSTEM,
+                        row.amount, null, null);
+                continue;
+            }
+
+            Long systemAmount = view[1] != null ? Math.round((Double) view[1] * 100) : null;
+            Payment.PaymentStatus status = (Payment.PaymentStatus) view[2];
+            // Refunds settle as separate rows, so a refunded payment was still captured
+            if (status != Payment.PaymentStatus.SUCCESS && status != Payment.PaymentStatus.REFUNDED) {
+                summary.addMismatch(MismatchType.STATUS_MISMATCH);
+                writeMismatch(writer, row.lineNumber, row.paymentId, MismatchType.STATUS_MISMATCH,
+                        row.amount, systemAmount, status);
+            } else if (systemAmount == null || systemAmount != row.amount) {
+                summary.addMismatch(MismatchType.AMOUNT_MISMATCH);
+                writeMismatch(writer, row.lineNumber, row.paymentId, MismatchType.AMOUNT_MISMATCH,
+                        row.amount, systemAmount, status);
+            } else {
+                summary.setMatched(summary.getMatched() + 1);
+            }
+        }
+    }
+
+    private static void writeMismatch(BufferedWriter writer, long lineNumber, String paymentId, MismatchType type,
+            Long settlementAmount, Long systemAmount, Payment.PaymentStatus status) throws IOException {
+        writer.write(lineNumber + "," + paymentId.replace(",", " ") + "," + type + ","
+                + (settlementAmount != null ? settlementAmount : "") + ","
+                + (systemAmount != null ? systemAmount : "") + ","
+                + (status != null ? status : ""));
+        writer.newLine();
+    }
+
+    private Path reportDirectory() {
+        if (reportDir != null && !reportDir.isBlank()) {
+            return Paths.get(reportDir);
+        }
+        if (inboxDir != null && !inboxDir.isBlank()) {
+            return Paths.get(inboxDir).resolve("reports");
+        }
+        throw new IllegalStateException(
+                "app.reconciliation.report-dir must be set to a directory shared by all instances");
+    }
+
+    private boolean amountsInPaise() {
+        if ("paise".equalsIgnoreCase(amountUnit)) {
+            return true;
+        }
+        if ("rupees".equalsIgnoreCase(amountUnit)) {
+            return false;
+        }
+        throw new IllegalStateException("app.reconciliation.amount-unit must be paise or rupees: " + amountUnit);
+    }
+
+    /**
+     * Parses an amount into paise. Returns null for anything that is not a
+     * whole number of paise.
+     */
+    static Long parsePaise(String value, boolean inPaise) {
+        try {
+            BigDecimal amount = new BigDecimal(value);
+            return (inPaise ? amount : amount.movePointRight(2)).setScale(0, RoundingMode.UNNECESSARY)
+                    .longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    /**
+     * Splits a single CSV line, honouring double-quoted fields and escaped
+     * quotes. Quoted fields spanning multiple lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static final class Columns {
+        private final int id;
+        private final int amount;
+        private final int type;
+
+        private Columns(int id, int amount, int type) {
+            this.id = id;
+            this.amount = amount;
+            this.type = type;
+        }
+
+        static Columns from(List<String> header) {
+            int id = -1;
+            int amount = -1;
+            int type = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                if (id < 0 && ID_COLUMNS.contains(name)) {
+                    id = i;
+                } else if (name.equals("amount")) {
+                    amount = i;
+                } else if (name.equals("type")) {
+                    type = i;
+                }
+            }
+            if (id < 0 || amount < 0) {
+                throw new IllegalArgumentException(
+                        "Settlement file must have a payment id column " + ID_COLUMNS + " and an amount column");
+            }
+            return new Columns(id, amount, type);
+        }
+    }
+
+    private static final class SettlementRow {
+        private final long lineNumber;
+        private final String paymentId;
+        private final long amount;
+
+        private SettlementRow(long lineNumber, String paymentId, long amount) {
+            this.lineNumber = lineNumber;
+            this.paymentId = paymentId;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * Keeps a claimed file's modification time fresh so releaseStale leaves
+     * it alone, and notices when it was released anyway.
+     */
+    private static final class Heartbeat {
+        private final Path claimed;
+        private final long intervalMs;
+        private long lastBeat = System.currentTimeMillis();
+
+        private Heartbeat(Path claimed, long intervalMs) {
+            this.claimed = claimed;
+            this.intervalMs = intervalMs;
+        }
+
+        void beat() throws ClaimLostException {
+            long now = System.currentTimeMillis();
+            if (claimed == null || now - lastBeat < intervalMs) {
+                return;
+            }
+            try {
+                Files.setLastModifiedTime(claimed, FileTime.fromMillis(now));
+                lastBeat = now;
+            } catch (IOException e) {
+                throw new ClaimLostException(claimed.getFileName() + " was released to another instance");
+            }
+        }
+    }
+
+    private static final class ClaimLostException extends IOException {
+        private ClaimLostException(String message) {
+            super(message);
+        }
+    }
+}
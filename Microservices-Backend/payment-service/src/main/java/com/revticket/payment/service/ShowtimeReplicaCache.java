@@ -0,0 +1,268 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.ShowtimeResponse;
+import com.revticket.payment.entity.Showtime;
+import com.revticket.payment.repository.ShowtimeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of showtime snapshots used by payment verification.
+ * Lookups are resolved against the local showtimes table first and then the
+ * showtime-service (service discovery, then gateway). Misses are cached for a
+ * short negative TTL, concurrent loads of the same id are coalesced and the
+ * total number of in-flight remote loads is bounded. Once full, the least
+ * recently used snapshot is evicted.
+ *
+ * Callers are expected to resolve the snapshot before opening a transaction so
+ * that no cross-service HTTP call is made while a database connection is held.
+ */
+@Service
+public class ShowtimeReplicaCache {
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeReplicaCache.class);
+
+    /** Largest window showtime-service's upcoming endpoint accepts. */
+    private static final long MAX_PREFETCH_WINDOW_HOURS = 168;
+
+    @Autowired
+    private ShowtimeRepository showtimeRepository;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${app.gateway-url:http://localhost:8080}")
+    private String gatewayUrl;
+
+    @Value("${app.showtime-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.showtime-cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.showtime-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.showtime-cache.prefetch-window-hours:24}")
+    private long prefetchWindowHours;
+
+    @Value("${app.showtime-cache.load-timeout-ms:5000}")
+    private long loadTimeoutMs;
+
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore loadPermits;
+
+    public ShowtimeReplicaCache(@Value("${app.showtime-cache.max-concurrent-loads:16}") int maxConcurrentLoads) {
+        this.loadPermits = new Semaphore(Math.max(1, maxConcurrentLoads));
+    }
+
+    /**
+     * Returns the snapshot for the given showtime, or null if it does not exist
+     * in any source. Must not be called inside a transaction.
+     */
+    public ShowtimeResponse get(String showtimeId) {
+        if (showtimeId == null || showtimeId.trim().isEmpty()) {
+            logger.error("Showtime ID is null or empty");
+            return null;
+        }
+
+        CacheEntry cached;
+        synchronized (entries) {
+            cached = entries.get(showtimeId);
+        }
+        if (cached != null && !cached.isExpired()) {
+            return cached.snapshot;
+        }
+
+        CompletableFuture<CacheEntry> load = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(showtimeId, load);
+        if (existing != null) {
+            return awaitLoad(showtimeId, existing);
+        }
+
+        try {
+            CacheEntry entry = load(showtimeId);
+            if (entry != null) {
+                put(showtimeId, entry);
+            }
+            load.complete(entry);
+            return entry != null ? entry.snapshot : null;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(showtimeId, load);
+        }
+    }
+
+    /**
+     * Drops the cached snapshot so the next lookup re-reads it.
+     */
+    public void evict(String showtimeId) {
+        if (showtimeId != null) {
+            synchronized (entries) {
+                entries.remove(showtimeId);
+            }
+        }
+    }
+
+    /**
+     * Warms the cache with the showtimes that showtime-service has starting
+     * within the prefetch window, including ones not yet replicated locally,
+     * so the checkout path for upcoming shows is served from memory.
+     */
+    @Scheduled(fixedDelayString = "${app.showtime-cache.prefetch-interval-ms:300000}",
+            initialDelayString = "${app.showtime-cache.prefetch-initial-delay-ms:30000}")
+    public void prefetchUpcomingShowtimes() {
+        String path = "/api/showtimes/upcoming?hours=" + Math.min(prefetchWindowHours, MAX_PREFETCH_WINDOW_HOURS);
+        ShowtimeResponse[] upcoming = fetchUpcoming("http://showtime-service" + path);
+        if (upcoming == null) {
+            upcoming = fetchUpcoming(gatewayUrl + path);
+        }
+        if (upcoming == null) {
+            logger.warn("Failed to prefetch upcoming showtimes from any source");
+            return;
+        }
+        int prefetched = 0;
+        for (ShowtimeResponse showtime : upcoming) {
+            if (showtime != null && showtime.getId() != null && prefetched < maxEntries) {
+                put(showtime.getId(), CacheEntry.positive(showtime, ttlSeconds));
+                prefetched++;
+            }
+        }
+        logger.info("Prefetched {} upcoming showtimes into replica cache", prefetched);
+    }
+
+    private ShowtimeResponse awaitLoad(String showtimeId, CompletableFuture<CacheEntry> pending) {
+        try {
+            CacheEntry entry = pending.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+            return entry != null ? entry.snapshot : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading showtime " + showtimeId);
+        } catch (Exception e) {
+            throw new RuntimeException("Timed out loading showtime " + showtimeId);
+        }
+    }
+
+    /**
+     * Resolves a showtime from the local table or the showtime-service. Returns
+     * a negative entry when no source knows the id, or null when the lookup could
+     * not be completed and therefore must not be cached.
+     */
+    private CacheEntry load(String showtimeId) {
+        Showtime localShowtime = showtimeRepository.findById(showtimeId).orElse(null);
+        if (localShowtime != null) {
+            logger.info("Showtime {} found in local database", showtimeId);
+            return CacheEntry.positive(toSnapshot(localShowtime), ttlSeconds);
+        }
+
+        boolean acquired;
+        try {
+            acquired = loadPermits.tryAcquire(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading showtime " + showtimeId);
+        }
+        if (!acquired) {
+            logger.warn("Too many concurrent showtime loads, giving up on {}", showtimeId);
+            return null;
+        }
+
+        try {
+            ShowtimeResponse remote = fetch("http://showtime-service/api/showtimes/" + showtimeId, showtimeId);
+            if (remote == null) {
+                remote = fetch(gatewayUrl + "/api/showtimes/" + showtimeId, showtimeId);
+            }
+            if (remote == null) {
+                logger.error("Showtime {} not found in any source (service discovery or gateway)", showtimeId);
+                return CacheEntry.negative(negativeTtlSeconds);
+            }
+            return CacheEntry.positive(remote, ttlSeconds);
+        } finally {
+            loadPermits.release();
+        }
+    }
+
+    private ShowtimeResponse fetch(String url, String showtimeId) {
+        try {
+            logger.info("Fetching showtime {} from {}", showtimeId, url);
+            return restTemplate.getForObject(url, ShowtimeResponse.class);
+        } catch (RestClientException e) {
+            logger.warn("Showtime lookup failed for ID {} at {}: {}", showtimeId, url, e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Unexpected error fetching showtime {}: {}", showtimeId, e.getMessage());
+        }
+        return null;
+    }
+
+    private ShowtimeResponse[] fetchUpcoming(String url) {
+        try {
+            return restTemplate.getForObject(url, ShowtimeResponse[].class);
+        } catch (Exception e) {
+            logger.warn("Upcoming showtime lookup failed at {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private void put(String showtimeId, CacheEntry entry) {
+        synchronized (entries) {
+            entries.put(showtimeId, entry);
+            Iterator<CacheEntry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private ShowtimeResponse toSnapshot(Showtime showtime) {
+        ShowtimeResponse snapshot = new ShowtimeResponse();
+        snapshot.setId(showtime.getId());
+        snapshot.setMovieId(showtime.getMovie() != null ? showtime.getMovie().getId() : null);
+        snapshot.setTheaterId(showtime.getTheater() != null ? showtime.getTheater().getId() : null);
+        snapshot.setScreen(showtime.getScreen());
+        snapshot.setShowDateTime(showtime.getShowDateTime());
+        snapshot.setTicketPrice(showtime.getTicketPrice());
+        snapshot.setTotalSeats(showtime.getTotalSeats());
+        snapshot.setAvailableSeats(showtime.getAvailableSeats());
+        snapshot.setStatus(showtime.getStatus() != null ? showtime.getStatus().name() : null);
+        return snapshot;
+    }
+
+    private static final class CacheEntry {
+        private final ShowtimeResponse snapshot;
+        private final long expiresAt;
+
+        private CacheEntry(ShowtimeResponse snapshot, long expiresAt) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+
+        static CacheEntry positive(ShowtimeResponse snapshot, long ttlSeconds) {
+            return new CacheEntry(snapshot, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        }
+
+        static CacheEntry negative(long ttlSeconds) {
+            return new CacheEntry(null, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.revticket.payment.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Verifies Razorpay HMAC-SHA256 signatures without per-call allocation.
+ * Each thread keeps its own initialised {@link Mac} and scratch buffers, and
+ * the hex signature is compared against the digest in constant time.
+ */
+@Component
+public class RazorpaySignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final int INITIAL_BUFFER_SIZE = 128;
+
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<byte[]> input = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+    private final ThreadLocal<byte[]> digest = ThreadLocal.withInitial(() -> new byte[DIGEST_LENGTH]);
+
+    public RazorpaySignatureVerifier(@Value("${razorpay.key.secret}") String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        newMac(key); // fail fast on an unusable key
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    /**
+     * Checks a checkout signature, computed by Razorpay over
+     * {@code orderId + "|" + paymentId}.
+     */
+    public boolean verifyPaymentSignature(String orderId, String paymentId, String signature) {
+        if (orderId == null || paymentId == null || signature == null) {
+            return false;
+        }
+
+        int length = orderId.length() + 1 + paymentId.length();
+        byte[] buffer = input.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            input.set(buffer);
+        }
+
+        int position = writeAscii(orderId, buffer, 0);
+        if (position < 0) {
+            byte[] payload = (orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8);
+            return verify(payload, 0, payload.length, signature);
+        }
+        buffer[position++] = '|';
+        position = writeAscii(paymentId, buffer, position);
+        if (position < 0) {
+            byte[] payload = (orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8);
+            return verify(payload, 0, payload.length, signature);
+        }
+        return verify(buffer, 0, position, signature);
+    }
+
+    /**
+     * Checks a signature over an arbitrary payload, such as a webhook body.
+     */
+    public boolean verify(byte[] payload, int offset, int length, String signature) {
+        if (payload == null || signature == null || signature.length() != DIGEST_LENGTH * 2) {
+            return false;
+        }
+
+        Mac hmac = mac.get();
+        byte[] expected = digest.get();
+        hmac.update(payload, offset, length);
+        try {
+            hmac.doFinal(expected, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException("Digest buffer too small", e);
+        }
+
+        int diff = 0;
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            int high = hexValue(signature.charAt(2 * i));
+            int low = hexValue(signature.charAt(2 * i + 1));
+            // Invalid characters yield -1, which sets high bits and forces a mismatch
+            diff |= ((high << 4) | low) ^ (expected[i] & 0xFF);
+        }
+        return diff == 0;
+    }
+
+    private static int writeAscii(String value, byte[] buffer, int position) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0x7F) {
+                return -1;
+            }
+            buffer[position++] = (byte) c;
+        }
+        return position;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac hmac = Mac.getInstance(ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.PaymentStatsDTO;
+import com.revticket.payment.entity.Payment;
+import com.revticket.payment.entity.PaymentDailyStats;
+import com.revticket.payment.repository.PaymentDailyStatsRepository;
+import com.revticket.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentStatsServiceTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DAY_2 = LocalDate.of(2024, 3, 2);
+    private static final double DELTA = 1e-9;
+
+    private final PaymentDailyStatsRepository dailyStatsRepository = mock(PaymentDailyStatsRepository.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final SettingsService settingsService = mock(SettingsService.class);
+    private final JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+
+    /** Buckets as the incremental updates leave them: revenue, fees, gst, transactions. */
+    private final Map<LocalDate, double[]> incremental = new TreeMap<>();
+    private final List<PaymentDailyStats> rebuilt = new ArrayList<>();
+
+    private PaymentStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentStatsService();
+        ReflectionTestUtils.setField(service, "dailyStatsRepository", dailyStatsRepository);
+        ReflectionTestUtils.setField(service, "paymentRepository", paymentRepository);
+        ReflectionTestUtils.setField(service, "settingsService", settingsService);
+        ReflectionTestUtils.setField(service, "jobLeaseService", jobLeaseService);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        doAnswer(invocation -> {
+            double[] day = incremental.computeIfAbsent(invocation.getArgument(0), d -> new double[4]);
+            day[0] += (double) invocation.getArgument(1);
+            day[1] += (double) invocation.getArgument(2);
+            day[2] += (double) invocation.getArgument(3);
+            day[3] += (long) invocation.getArgument(4);
+            return null;
+        }).when(dailyStatsRepository).addToDay(any(), anyDouble(), anyDouble(), anyDouble(), anyLong());
+        when(dailyStatsRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<PaymentDailyStats> days = invocation.getArgument(0);
+            rebuilt.addAll(days);
+            return days;
+        });
+        rates(2.0, 18.0);
+    }
+
+    private void rates(double feePercent, double gstPercent) {
+        when(settingsService.getConvenienceFeePercent()).thenReturn(feePercent);
+        when(settingsService.getGstPercent()).thenReturn(gstPercent);
+    }
+
+    private Payment capture(LocalDate day, double amount, boolean priced) {
+        Payment payment = new Payment();
+        payment.setAmount(amount);
+        payment.setPaymentDate(day.atTime(12, 0));
+        payment.setStatus(Payment.PaymentStatus.SUCCESS);
+        if (priced) {
+            service.priceAtCurrentRates(payment);
+        }
+        service.recordTransition(payment, null);
+        return payment;
+    }
+
+    private static Object[] row(LocalDate day, Double feePercent, Double gstPercent, double amount, long count) {
+        return new Object[]{day, feePercent, gstPercent, amount, count};
+    }
+
+    @Test
+    void rebuildReproducesTheIncrementalBucketsAfterTheRatesChange() {
+        Payment first = capture(DAY_1, 600.0, true);
+        rates(5.0, 12.0);
+        capture(DAY_1, 400.0, true);
+        // Taken before percentages were recorded, so priced at the current rates both ways
+        capture(DAY_2, 250.0, false);
+
+        first.setStatus(Payment.PaymentStatus.REFUNDED);
+        service.recordTransition(first, Payment.PaymentStatus.SUCCESS);
+        service.recordRefund(first, 540.0);
+        PaymentStatsDTO incrementalStats = service.getStats();
+
+        when(paymentRepository.sumCapturedByDay()).thenReturn(List.of(
+                row(DAY_1, 2.0, 18.0, 60.0, 1),
+                row(DAY_1, 5.0, 12.0, 400.0, 1),
+                row(DAY_2, null, null, 250.0, 1)));
+        service.rebuild();
+
+        assertEquals(incremental.size(), rebuilt.size());
+        for (PaymentDailyStats day : rebuilt) {
+            double[] expected = incremental.get(day.getStatDate());
+            assertEquals(expected[0], day.getTotalRevenue(), DELTA);
+            assertEquals(expected[1], day.getConvenienceFees(), DELTA);
+            assertEquals(expected[2], day.getGstAmount(), DELTA);
+            assertEquals((long) expected[3], day.getTotalTransactions());
+        }
+
+        PaymentStatsDTO rebuiltStats = service.getStats();
+        assertEquals(incrementalStats.getTotalRevenue(), rebuiltStats.getTotalRevenue(), DELTA);
+        assertEquals(incrementalStats.getConvenienceFees(), rebuiltStats.getConvenienceFees(), DELTA);
+        assertEquals(incrementalStats.getGstAmount(), rebuiltStats.getGstAmount(), DELTA);
+        assertEquals(incrementalStats.getTotalTransactions(), rebuiltStats.getTotalTransactions());
+    }
+
+    @Test
+    void paymentIsSplitAtTheRatesItWasTakenAt() {
+        Payment payment = capture(DAY_1, 120.36, true);
+        rates(10.0, 28.0);
+        service.recordRefund(payment, 120.36);
+
+        double[] day = incremental.get(DAY_1);
+        assertEquals(0.0, day[0], DELTA);
+        assertEquals(0.0, day[1], DELTA);
+        assertEquals(0.0, day[2], DELTA);
+        assertEquals(1.0, day[3], DELTA);
+    }
+
+    @Test
+    void incrementalUpdatesWaitForARunningRebuild() {
+        capture(DAY_1, 100.0, true);
+        when(paymentRepository.sumCapturedByDay()).thenReturn(List.of());
+        service.rebuild();
+
+        verify(jobLeaseService, times(1)).lockShared(eq("payment-stats-rebuild"));
+        verify(jobLeaseService, times(1)).lock(eq("payment-stats-rebuild"));
+    }
+}
@@ -0,0 +1,170 @@
+package com.revticket.payment.service;
+
+import com.razorpay.RazorpayException;
+import com.revticket.payment.entity.Payment;
+import com.revticket.payment.entity.RefundJob;
+import com.revticket.payment.repository.BookingRepository;
+import com.revticket.payment.repository.PaymentRepository;
+import com.revticket.payment.repository.RefundJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RefundProcessingServiceTest {
+
+    private final RefundJobRepository refundJobRepository = mock(RefundJobRepository.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RazorpayService razorpayService = mock(RazorpayService.class);
+    private final PaymentStatsService paymentStatsService = mock(PaymentStatsService.class);
+
+    private RefundProcessingService service;
+    private RefundJob job;
+
+    @BeforeEach
+    void setUp() {
+        service = new RefundProcessingService();
+        ReflectionTestUtils.setField(service, "refundJobRepository", refundJobRepository);
+        ReflectionTestUtils.setField(service, "paymentRepository", paymentRepository);
+        ReflectionTestUtils.setField(service, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(service, "razorpayService", razorpayService);
+        ReflectionTestUtils.setField(service, "paymentStatsService", paymentStatsService);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "batchSize", 50);
+        ReflectionTestUtils.setField(service, "maxJobsPerTick", 200);
+        ReflectionTestUtils.setField(service, "maxCallsPerSecond", 1000);
+        ReflectionTestUtils.setField(service, "maxAttempts", 6);
+        ReflectionTestUtils.setField(service, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(service, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "staleAfterMinutes", 15L);
+
+        Payment payment = new Payment();
+        payment.setId("payment-1");
+        payment.setRazorpayOrderId("order_1");
+        payment.setRazorpayPaymentId("pay_1");
+        when(paymentRepository.findById("payment-1")).thenReturn(Optional.of(payment));
+
+        job = new RefundJob();
+        job.setId("job-1");
+        job.setBookingId("booking-1");
+        job.setPaymentId("payment-1");
+        job.setAmount(90.0);
+        job.setStatus(RefundJob.RefundJobStatus.PENDING);
+        job.setAttempts(0);
+        when(refundJobRepository.claimDue(any(), anyInt())).thenReturn(List.of(job));
+        when(refundJobRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(refundJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        when(refundJobRepository.renewLease(anyString(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void firstAttemptSendsTheRefundWithTheJobIdAsReceipt() throws Exception {
+        when(razorpayService.refundPayment("pay_1", 90.0, "job-1")).thenReturn("rfnd_1");
+
+        service.processDueRefunds();
+
+        verify(razorpayService, never()).findRefundByReceipt(anyString(), anyString());
+        assertEquals(RefundJob.RefundJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals("rfnd_1", job.getGatewayRefundId());
+        assertNull(job.getLeaseToken());
+    }
+
+    @Test
+    void retryRecordsARefundAlreadyIssuedInsteadOfSendingAnother() throws Exception {
+        // An earlier attempt reached the gateway but its response was lost
+        job.setGatewayRequestedAt(LocalDateTime.now().minusMinutes(20));
+        job.setAttempts(1);
+        when(razorpayService.findRefundByReceipt("pay_1", "job-1")).thenReturn(Optional.of("rfnd_1"));
+
+        service.processDueRefunds();
+
+        verify(razorpayService, never()).refundPayment(anyString(), anyDouble(), anyString());
+        assertEquals(RefundJob.RefundJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals("rfnd_1", job.getGatewayRefundId());
+    }
+
+    @Test
+    void retrySendsTheRefundWhenTheGatewayHasNoneForTheJob() throws Exception {
+        job.setGatewayRequestedAt(LocalDateTime.now().minusMinutes(20));
+        job.setAttempts(1);
+        when(razorpayService.findRefundByReceipt("pay_1", "job-1")).thenReturn(Optional.empty());
+        when(razorpayService.refundPayment("pay_1", 90.0, "job-1")).thenReturn("rfnd_2");
+
+        service.processDueRefunds();
+
+        assertEquals(RefundJob.RefundJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals("rfnd_2", job.getGatewayRefundId());
+    }
+
+    @Test
+    void jobWithARecordedRefundIsCompletedWithoutCallingTheGateway() {
+        job.setGatewayRefundId("rfnd_1");
+
+        service.processDueRefunds();
+
+        verifyNoInteractions(razorpayService);
+        assertEquals(RefundJob.RefundJobStatus.SUCCEEDED, job.getStatus());
+    }
+
+    @Test
+    void lostLeaseLeavesTheJobToItsNewOwner() {
+        when(refundJobRepository.renewLease(anyString(), anyString(), any(), any())).thenReturn(0);
+
+        service.processDueRefunds();
+
+        verifyNoInteractions(razorpayService);
+        assertEquals(RefundJob.RefundJobStatus.PROCESSING, job.getStatus());
+    }
+
+    @Test
+    void gatewayFailureIsRetriedWithBackoff() throws Exception {
+        when(razorpayService.refundPayment("pay_1", 90.0, "job-1")).thenThrow(new RazorpayException("timeout"));
+
+        LocalDateTime before = LocalDateTime.now();
+        service.processDueRefunds();
+
+        assertEquals(RefundJob.RefundJobStatus.PENDING, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertEquals("timeout", job.getLastError());
+        assertNull(job.getLeaseToken());
+        assertTrue(!job.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+    }
+
+    @Test
+    void refundIssuedAfterTheJobWasReclaimedIsKeptButNotCompleted() throws Exception {
+        RefundJob reclaimed = new RefundJob();
+        reclaimed.setId("job-1");
+        reclaimed.setBookingId("booking-1");
+        reclaimed.setStatus(RefundJob.RefundJobStatus.PROCESSING);
+        reclaimed.setLeaseToken("another-instance");
+        when(refundJobRepository.findById("job-1")).thenReturn(Optional.of(reclaimed));
+        when(razorpayService.refundPayment("pay_1", 90.0, "job-1")).thenReturn("rfnd_1");
+
+        service.processDueRefunds();
+
+        assertEquals("rfnd_1", reclaimed.getGatewayRefundId());
+        assertEquals(RefundJob.RefundJobStatus.PROCESSING, reclaimed.getStatus());
+        verify(refundJobRepository).save(reclaimed);
+        verifyNoInteractions(paymentStatsService);
+    }
+}
@@ -0,0 +1,166 @@
+package com.revticket.payment.service;
+
+import com.revticket.payment.dto.ShowtimeResponse;
+import com.revticket.payment.entity.Showtime;
+import com.revticket.payment.repository.ShowtimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ShowtimeReplicaCacheTest {
+
+    private static final String UPCOMING = "/api/showtimes/upcoming?hours=";
+
+    private final ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    private ShowtimeReplicaCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(300, 10);
+        when(showtimeRepository.findById(anyString())).thenAnswer(invocation -> Optional.of(local(invocation.getArgument(0))));
+    }
+
+    private ShowtimeReplicaCache cache(long ttlSeconds, int maxEntries) {
+        ShowtimeReplicaCache cache = new ShowtimeReplicaCache(4);
+        ReflectionTestUtils.setField(cache, "showtimeRepository", showtimeRepository);
+        ReflectionTestUtils.setField(cache, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(cache, "gatewayUrl", "http://gateway");
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "prefetchWindowHours", 24L);
+        ReflectionTestUtils.setField(cache, "loadTimeoutMs", 1000L);
+        return cache;
+    }
+
+    private static Showtime local(String id) {
+        Showtime showtime = new Showtime();
+        showtime.setId(id);
+        return showtime;
+    }
+
+    private static ShowtimeResponse remote(String id) {
+        ShowtimeResponse showtime = new ShowtimeResponse();
+        showtime.setId(id);
+        return showtime;
+    }
+
+    @Test
+    void servesRepeatedLookupsFromMemoryWithinTheTtl() {
+        assertEquals("s1", cache.get("s1").getId());
+        assertEquals("s1", cache.get("s1").getId());
+
+        verify(showtimeRepository, times(1)).findById("s1");
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void reloadsAnExpiredSnapshot() {
+        ShowtimeReplicaCache expiring = cache(0, 10);
+
+        expiring.get("s1");
+        expiring.get("s1");
+
+        verify(showtimeRepository, times(2)).findById("s1");
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSnapshot() {
+        ShowtimeReplicaCache small = cache(300, 2);
+        small.get("a");
+        small.get("b");
+        small.get("a");
+        small.get("c");
+
+        small.get("a");
+        small.get("c");
+        verify(showtimeRepository, times(1)).findById("a");
+        verify(showtimeRepository, times(1)).findById("c");
+
+        small.get("b");
+        verify(showtimeRepository, times(2)).findById("b");
+    }
+
+    @Test
+    void evictedSnapshotIsReadAgain() {
+        cache.get("s1");
+        cache.evict("s1");
+        cache.get("s1");
+
+        verify(showtimeRepository, times(2)).findById("s1");
+    }
+
+    @Test
+    void fallsBackToTheGatewayAndCachesAnUnknownIdForTheNegativeTtl() {
+        when(showtimeRepository.findById("gone")).thenReturn(Optional.empty());
+        when(restTemplate.getForObject(anyString(), eq(ShowtimeResponse.class)))
+                .thenThrow(new RestClientException("connection refused"))
+                .thenReturn(null);
+
+        assertNull(cache.get("gone"));
+        assertNull(cache.get("gone"));
+
+        verify(restTemplate).getForObject("http://showtime-service/api/showtimes/gone", ShowtimeResponse.class);
+        verify(restTemplate).getForObject("http://gateway/api/showtimes/gone", ShowtimeResponse.class);
+        verify(showtimeRepository, times(1)).findById("gone");
+    }
+
+    @Test
+    void prefetchedShowtimesAreServedWithoutALookup() {
+        when(restTemplate.getForObject("http://showtime-service" + UPCOMING + 24, ShowtimeResponse[].class))
+                .thenReturn(new ShowtimeResponse[]{remote("u1"), null, remote("u2")});
+
+        cache.prefetchUpcomingShowtimes();
+
+        assertEquals("u1", cache.get("u1").getId());
+        assertEquals("u2", cache.get("u2").getId());
+        verify(showtimeRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void prefetchFallsBackToTheGatewayAndCapsTheWindow() {
+        ReflectionTestUtils.setField(cache, "prefetchWindowHours", 1000L);
+        when(restTemplate.getForObject("http://showtime-service" + UPCOMING + 168, ShowtimeResponse[].class))
+                .thenThrow(new RestClientException("no instances"));
+        when(restTemplate.getForObject("http://gateway" + UPCOMING + 168, ShowtimeResponse[].class))
+                .thenReturn(new ShowtimeResponse[]{remote("u1")});
+
+        cache.prefetchUpcomingShowtimes();
+
+        assertEquals("u1", cache.get("u1").getId());
+        verify(showtimeRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void prefetchStopsAtTheEntryLimit() {
+        ShowtimeReplicaCache small = cache(300, 2);
+        when(restTemplate.getForObject("http://showtime-service" + UPCOMING + 24, ShowtimeResponse[].class))
+                .thenReturn(new ShowtimeResponse[]{remote("u1"), remote("u2"), remote("u3")});
+
+        small.prefetchUpcomingShowtimes();
+
+        small.get("u1");
+        small.get("u2");
+        small.get("u3");
+        verify(showtimeRepository, never()).findById("u1");
+        verify(showtimeRepository, never()).findById("u2");
+        verify(showtimeRepository, times(1)).findById("u3");
+    }
+}
@@ -0,0 +1,72 @@
+package com.revticket.payment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RazorpaySignatureVerifierTest {
+
+    private static final String ORDER_ID = "order_9A33XWu170gUtm";
+    private static final String PAYMENT_ID = "pay_29QQoUBi66xm2f";
+    // HMAC-SHA256 of ORDER_ID + "|" + PAYMENT_ID under "test_key_secret"
+    private static final String SIGNATURE = "05a90d99a226250bdd07dcbec806d936d0ac974af71513b19a36466e7f5eb3a3";
+
+    private final RazorpaySignatureVerifier verifier = new RazorpaySignatureVerifier("test_key_secret");
+
+    @Test
+    void acceptsAKnownGoodSignature() {
+        assertTrue(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE));
+        // Repeated calls reuse the thread's buffers
+        assertTrue(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE));
+    }
+
+    @Test
+    void acceptsUpperCaseHex() {
+        assertTrue(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE.toUpperCase()));
+    }
+
+    @Test
+    void rejectsASignatureDifferingInAnyDigit() {
+        for (int i = 0; i < SIGNATURE.length(); i++) {
+            char flipped = SIGNATURE.charAt(i) == '0' ? '1' : '0';
+            String tampered = SIGNATURE.substring(0, i) + flipped + SIGNATURE.substring(i + 1);
+            assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, tampered), "digit " + i);
+        }
+    }
+
+    @Test
+    void rejectsNonHexWrongLengthAndMissingInput() {
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, "g" + SIGNATURE.substring(1)));
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE.substring(0, 63) + " "));
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE.substring(2)));
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE + "00"));
+        assertFalse(verifier.verifyPaymentSignature(null, PAYMENT_ID, SIGNATURE));
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, PAYMENT_ID, null));
+    }
+
+    @Test
+    void rejectsTheSignatureOfOtherIdsOrAnotherKey() {
+        assertFalse(verifier.verifyPaymentSignature(ORDER_ID, "pay_29QQoUBi66xm2g", SIGNATURE));
+        assertFalse(new RazorpaySignatureVerifier("other_key_secret")
+                .verifyPaymentSignature(ORDER_ID, PAYMENT_ID, SIGNATURE));
+    }
+
+    @Test
+    void hashesNonAsciiIdsAsUtf8() {
+        assertTrue(verifier.verifyPaymentSignature("order_1", "pay_\u00e9",
+                "8e71b5cd35034836c8bfc2aba2ecc67328723e59a62aa7d3fe707d4d81762f36"));
+    }
+
+    @Test
+    void verifiesAPayloadSlice() {
+        byte[] body = "xx{\"event\":\"payment.captured\"}yy".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(verifier.verify(body, 2, body.length - 4,
+                "b8409601528c89cc64b78dda4f1f269adb67bcdabc8789f0598aec1f6f245311"));
+        assertFalse(verifier.verify(body, 0, body.length,
+                "b8409601528c89cc64b78dda4f1f269adb67bcdabc8789f0598aec1f6f245311"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.revticket.review.controller;
 
+import com.revticket.review.dto.MovieRatingSummary;
 import com.revticket.review.dto.ReviewRequest;
 import com.revticket.review.dto.ReviewResponse;
 import com.revticket.review.service.ReviewService;
@@ -47,6 +48,11 @@ public class ReviewController {
         return ResponseEntity.ok(Map.of("averageRating", avgRating != null ? avgRating : 0.0));
     }
 
+    @GetMapping("/movie/ratings")
+    public ResponseEntity<List<MovieRatingSummary>> getRatingSummaries() {
+        return ResponseEntity.ok(reviewService.getRatingSummaries());
+    }
+
     @GetMapping("/can-review/{movieId}")
     public ResponseEntity<Map<String, Boolean>> canReviewMovie(@PathVariable String movieId,
             Authentication authentication) {
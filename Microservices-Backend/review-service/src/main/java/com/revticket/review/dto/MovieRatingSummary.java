@@ -0,0 +1,14 @@
+package com.revticket.review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieRatingSummary {
+    private String movieId;
+    private Double averageRating;
+    private Long reviewCount;
+}
@@ -1,6 +1,8 @@
 package com.revticket.review.repository;
 
+import com.revticket.review.dto.MovieRatingSummary;
 import com.revticket.review.entity.Review;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -19,4 +21,11 @@ public interface ReviewRepository extends MongoRepository<Review, String> {
     long countApprovedByMovieId(String movieId);
     
     long countByApproved(boolean approved);
+
+    @Aggregation(pipeline = {
+            "{ '$match': { 'approved': true } }",
+            "{ '$group': { '_id': '$movieId', 'averageRating': { '$avg': '$rating' }, 'reviewCount': { '$sum': 1 } } }",
+            "{ '$project': { '_id': 0, 'movieId': '$_id', 'averageRating': 1, 'reviewCount': 1 } }"
+    })
+    List<MovieRatingSummary> summarizeApprovedRatings();
 }
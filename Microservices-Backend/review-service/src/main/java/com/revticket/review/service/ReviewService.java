@@ -2,6 +2,7 @@ package com.revticket.review.service;
 
 import com.revticket.review.client.BookingServiceClient;
 import com.revticket.review.client.MovieServiceClient;
+import com.revticket.review.dto.MovieRatingSummary;
 import com.revticket.review.dto.ReviewRequest;
 import com.revticket.review.dto.ReviewResponse;
 import com.revticket.review.entity.Review;
@@ -109,6 +110,14 @@ public class ReviewService {
                         .orElse(0.0);
     }
 
+    /**
+     * Average approved rating and review count of every reviewed movie,
+     * grouped in the database.
+     */
+    public List<MovieRatingSummary> getRatingSummaries() {
+        return reviewRepository.summarizeApprovedRatings();
+    }
+
     public List<ReviewResponse> getAllPendingReviews() {
         return reviewRepository.findByApprovedFalseOrderByCreatedAtDesc()
                 .stream()
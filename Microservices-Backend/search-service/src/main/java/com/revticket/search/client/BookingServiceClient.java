@@ -0,0 +1,15 @@
+package com.revticket.search.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.Map;
+
+@FeignClient(name = "booking-service", configuration = com.revticket.search.config.FeignConfig.class)
+public interface BookingServiceClient {
+
+    @GetMapping("/api/bookings/public/popularity")
+    List<Map<String, Object>> getMoviePopularity(@RequestParam("days") int days);
+}
@@ -0,0 +1,14 @@
+package com.revticket.search.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.List;
+import java.util.Map;
+
+@FeignClient(name = "review-service", configuration = com.revticket.search.config.FeignConfig.class)
+public interface ReviewServiceClient {
+
+    @GetMapping("/api/reviews/movie/ratings")
+    List<Map<String, Object>> getRatingSummaries();
+}
@@ -0,0 +1,26 @@
+package com.revticket.search.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded pool used to fetch the movie, theater and showtime snapshots in
+ * parallel during an index refresh.
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor searchSnapshotExecutor(
+            @Value("${app.search.index.fetch-threads:3}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("search-snapshot-");
+        executor.initialize();
+        return executor;
+    }
+}
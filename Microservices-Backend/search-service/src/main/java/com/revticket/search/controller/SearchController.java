@@ -4,14 +4,22 @@ import com.revticket.search.dto.*;
 import com.revticket.search.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/search")
 public class SearchController {
 
+    private static final Set<String> PAGING_PARAMS = Set.of("offset", "limit");
+
     @Autowired
     private SearchService searchService;
 
@@ -38,4 +46,60 @@ public class SearchController {
         List<ShowtimeSearchDTO> showtimes = searchService.searchShowtimes(query);
         return ResponseEntity.ok(showtimes);
     }
+
+    /**
+     * Movies filtered by facet, e.g. ?genre=Action&genre=Drama&language=Hindi.
+     * Values of one facet may also be comma-separated.
+     */
+    @GetMapping("/facets/movies")
+    public ResponseEntity<FacetedSearchResponse<MovieSearchDTO>> facetMovies(
+            @RequestParam MultiValueMap<String, String> params,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.facetMovies(filters(params), offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/facets/showtimes")
+    public ResponseEntity<FacetedSearchResponse<ShowtimeSearchDTO>> facetShowtimes(
+            @RequestParam MultiValueMap<String, String> params,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.facetShowtimes(filters(params), offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.suggest(prefix, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<SearchCacheStats> getCacheStats() {
+        return ResponseEntity.ok(searchService.getCacheStats());
+    }
+
+    private static Map<String, List<String>> filters(MultiValueMap<String, String> params) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        params.forEach((name, values) -> {
+            if (PAGING_PARAMS.contains(name)) {
+                return;
+            }
+            List<String> split = new ArrayList<>();
+            values.forEach(value -> Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(part -> !part.isEmpty())
+                    .forEach(split::add));
+            filters.put(name, split);
+        });
+        return filters;
+    }
 }
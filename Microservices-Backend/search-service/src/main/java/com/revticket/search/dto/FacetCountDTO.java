@@ -0,0 +1,14 @@
+package com.revticket.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+    private String value;
+    private String label; // display text; the value itself unless the value is an id
+    private int count;
+}
@@ -0,0 +1,20 @@
+package com.revticket.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedSearchResponse<T> {
+    private List<T> results;
+    private int total;
+    private int offset;
+    // Facet name to the matching count of each value, most frequent first
+    private Map<String, List<FacetCountDTO>> facets;
+    private boolean partial;
+}
@@ -0,0 +1,20 @@
+package com.revticket.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCacheStats {
+    private int entries;
+    private long weight;
+    private long maxWeight;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -13,4 +14,7 @@ public class SearchResponse {
     private List<MovieSearchDTO> movies;
     private List<TheaterSearchDTO> theaters;
     private List<ShowtimeSearchDTO> showtimes;
+    private List<SearchResultDTO> results;
+    private Map<String, SourceStatus> sources;
+    private boolean partial;
 }
@@ -0,0 +1,21 @@
+package com.revticket.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the merged result list. Score is the match's field weight
+ * relative to a title match on every query token, so it is comparable across
+ * types.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    private String type; // "movie", "theater", "showtime"
+    private String id;
+    private String title;
+    private String subtitle;
+    private Double score;
+}
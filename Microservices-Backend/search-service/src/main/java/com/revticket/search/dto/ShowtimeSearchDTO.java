@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ShowtimeSearchDTO {
     private String id;
+    private String movieId;
     private String movieTitle;
+    private String theaterId;
     private String theaterName;
     private LocalDateTime showDateTime;
     private String screenName;
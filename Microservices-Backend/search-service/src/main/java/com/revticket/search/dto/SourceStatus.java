@@ -0,0 +1,26 @@
+package com.revticket.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of the last snapshot fetch for one index. An index whose last fetch
+ * failed keeps serving the documents from its last successful one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SourceStatus {
+    private State state;
+    private Long latencyMs;
+    private String error;
+    private LocalDateTime lastRefreshedAt;
+    private Integer documents;
+
+    public enum State {
+        OK, FAILED, TIMEOUT, PENDING
+    }
+}
@@ -0,0 +1,235 @@
+package com.revticket.search.service;
+
+import com.revticket.search.dto.FacetCountDTO;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable facet index over a fixed, ordered list of documents. Documents
+ * are numbered by their position and every facet value keeps a bitset of the
+ * documents that have it, so a filter is a few word-wise ORs and ANDs and a
+ * count is a popcount.
+ *
+ * Values selected within one facet are ORed and facets are ANDed. Each
+ * facet's counts are computed with every filter except its own applied, so
+ * the counts show what picking another value of that facet would return.
+ */
+public final class FacetIndex<T> {
+
+    private final List<T> documents;
+    private final List<String> facetNames;
+    private final Map<String, Map<String, BitSet>> bitsets;
+    private final Map<String, Map<String, String>> values;
+    private final Map<String, Map<String, String>> labels;
+
+    private FacetIndex(List<T> documents, List<String> facetNames, Map<String, Map<String, BitSet>> bitsets,
+                       Map<String, Map<String, String>> values, Map<String, Map<String, String>> labels) {
+        this.documents = documents;
+        this.facetNames = facetNames;
+        this.bitsets = bitsets;
+        this.values = values;
+        this.labels = labels;
+    }
+
+    public static <T> FacetIndex<T> empty(List<String> facetNames) {
+        return new Builder<T>(facetNames).build();
+    }
+
+    public static <T> Builder<T> builder(List<String> facetNames) {
+        return new Builder<>(facetNames);
+    }
+
+    public static final class Builder<T> {
+        private final List<String> facetNames;
+        private final List<T> documents = new ArrayList<>();
+        private final Map<String, Map<String, BitSet>> bitsets = new LinkedHashMap<>();
+        private final Map<String, Map<String, String>> values = new HashMap<>();
+        private final Map<String, Map<String, String>> labels = new HashMap<>();
+
+        private Builder(List<String> facetNames) {
+            this.facetNames = List.copyOf(facetNames);
+            for (String facet : facetNames) {
+                bitsets.put(facet, new HashMap<>());
+                values.put(facet, new HashMap<>());
+                labels.put(facet, new HashMap<>());
+            }
+        }
+
+        /**
+         * Sets the display text of a value, for facets whose values are ids.
+         */
+        public Builder<T> label(String facet, String value, String label) {
+            if (labels.containsKey(facet) && value != null && label != null && !label.isBlank()) {
+                labels.get(facet).put(key(value), label.trim());
+            }
+            return this;
+        }
+
+        /**
+         * Appends a document; documents are returned in the order added.
+         * Facets missing from {@code values} leave the document without a
+         * value for them.
+         */
+        public Builder<T> add(T document, Map<String, ? extends Collection<String>> documentValues) {
+            int doc = documents.size();
+            documents.add(document);
+            for (String facet : facetNames) {
+                Collection<String> facetValues = documentValues.get(facet);
+                if (facetValues == null) {
+                    continue;
+                }
+                for (String value : facetValues) {
+                    if (value == null || value.isBlank()) {
+                        continue;
+                    }
+                    String key = key(value);
+                    bitsets.get(facet).computeIfAbsent(key, k -> new BitSet()).set(doc);
+                    values.get(facet).putIfAbsent(key, value.trim());
+                }
+            }
+            return this;
+        }
+
+        public FacetIndex<T> build() {
+            return new FacetIndex<>(List.copyOf(documents), facetNames, bitsets, values, labels);
+        }
+    }
+
+    public static final class Result<T> {
+        private final int total;
+        private final List<T> documents;
+        private final Map<String, List<FacetCountDTO>> facets;
+
+        private Result(int total, List<T> documents, Map<String, List<FacetCountDTO>> facets) {
+            this.total = total;
+            this.documents = documents;
+            this.facets = facets;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<T> getDocuments() {
+            return documents;
+        }
+
+        public Map<String, List<FacetCountDTO>> getFacets() {
+            return facets;
+        }
+    }
+
+    /**
+     * Applies the filters to the documents numbered {@code fromDoc} and up
+     * and returns one page of matches with the facet counts.
+     *
+     * @throws IllegalArgumentException if a filter names an unknown facet
+     */
+    public Result<T> query(Map<String, ? extends Collection<String>> filters, int fromDoc, int offset, int limit) {
+        BitSet live = new BitSet(documents.size());
+        live.set(Math.max(0, Math.min(fromDoc, documents.size())), documents.size());
+
+        Map<String, BitSet> selected = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> filter : filters.entrySet()) {
+            Map<String, BitSet> values = bitsets.get(filter.getKey());
+            if (values == null) {
+                throw new IllegalArgumentException("Unknown facet: " + filter.getKey());
+            }
+            if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                continue;
+            }
+            BitSet union = new BitSet(documents.size());
+            for (String value : filter.getValue()) {
+                BitSet bits = values.get(key(value));
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            selected.put(filter.getKey(), union);
+        }
+
+        BitSet matches = (BitSet) live.clone();
+        selected.values().forEach(matches::and);
+
+        List<T> page = new ArrayList<>(Math.max(0, limit));
+        int skipped = 0;
+        for (int doc = matches.nextSetBit(0); doc >= 0 && page.size() < limit; doc = matches.nextSetBit(doc + 1)) {
+            if (skipped++ >= offset) {
+                page.add(documents.get(doc));
+            }
+        }
+
+        Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+        for (String facet : facetNames) {
+            BitSet base = matches;
+            if (selected.containsKey(facet)) {
+                base = (BitSet) live.clone();
+                for (Map.Entry<String, BitSet> other : selected.entrySet()) {
+                    if (!other.getKey().equals(facet)) {
+                        base.and(other.getValue());
+                    }
+                }
+            }
+            facets.put(facet, counts(facet, base));
+        }
+        return new Result<>(matches.cardinality(), page, facets);
+    }
+
+    /**
+     * The number of leading documents that satisfy {@code before}, which must
+     * hold for a prefix of the documents and not after it.
+     */
+    public int countLeading(Predicate<T> before) {
+        int low = 0;
+        int high = documents.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (before.test(documents.get(mid))) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public Set<String> facetNames() {
+        return bitsets.keySet();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private List<FacetCountDTO> counts(String facet, BitSet base) {
+        List<FacetCountDTO> counts = new ArrayList<>();
+        BitSet scratch = new BitSet(documents.size());
+        for (Map.Entry<String, BitSet> bits : bitsets.get(facet).entrySet()) {
+            scratch.clear();
+            scratch.or(bits.getValue());
+            scratch.and(base);
+            int count = scratch.cardinality();
+            if (count > 0) {
+                String value = values.get(facet).get(bits.getKey());
+                counts.add(new FacetCountDTO(value, labels.get(facet).getOrDefault(bits.getKey(), value), count));
+            }
+        }
+        counts.sort(Comparator.comparingInt(FacetCountDTO::getCount).reversed()
+                .thenComparing(FacetCountDTO::getLabel));
+        return counts;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
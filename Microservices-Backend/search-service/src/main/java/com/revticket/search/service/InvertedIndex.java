@@ -0,0 +1,326 @@
+package com.revticket.search.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index from normalised tokens to document ids. Each
+ * posting carries the weight of the heaviest field the token appeared in, so
+ * a title match outranks a crew match. Documents are replaced as a whole, and
+ * a replacement with an unchanged value and text is a no-op.
+ *
+ * Every document also carries a precomputed boost between 0 and 1, such as
+ * its popularity. Hits are ranked by text relevance blended with the boost,
+ * so ranking reads one field of an entry the search has already looked up.
+ */
+public class InvertedIndex<T> {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Entry<T>> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int maxFieldWeight;
+    private final double boostWeight;
+
+    /**
+     * @param maxFieldWeight the heaviest field weight, a perfect text match
+     * @param boostWeight    share of the rank taken by the boost, 0 to ignore it
+     */
+    public InvertedIndex(int maxFieldWeight, double boostWeight) {
+        if (boostWeight < 0 || boostWeight > 1) {
+            throw new IllegalArgumentException("Boost weight must be between 0 and 1");
+        }
+        this.maxFieldWeight = maxFieldWeight;
+        this.boostWeight = boostWeight;
+    }
+
+    /**
+     * A document's searchable text, field by field, with each field's weight.
+     */
+    public static final class Fields {
+        private final Map<String, Integer> weights = new HashMap<>();
+
+        public Fields add(String text, int weight) {
+            for (String token : tokenize(text)) {
+                weights.merge(token, weight, Math::max);
+            }
+            return this;
+        }
+
+        public Fields add(Collection<String> texts, int weight) {
+            if (texts != null) {
+                texts.forEach(text -> add(text, weight));
+            }
+            return this;
+        }
+    }
+
+    public static final class Hit<T> {
+        private final T value;
+        private final int score;
+        private final int queryTokens;
+        private final double rank;
+
+        private Hit(T value, int score, int queryTokens, double rank) {
+            this.value = value;
+            this.score = score;
+            this.queryTokens = queryTokens;
+            this.rank = rank;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getQueryTokens() {
+            return queryTokens;
+        }
+
+        /**
+         * Text relevance blended with the document's boost, between 0 and 1.
+         */
+        public double getRank() {
+            return rank;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final Map<String, Integer> tokens;
+        private double boost;
+
+        private Entry(T value, Map<String, Integer> tokens, double boost) {
+            this.value = value;
+            this.tokens = tokens;
+            this.boost = boost;
+        }
+    }
+
+    /**
+     * Lower-cases, strips accents and splits on anything that is not a letter
+     * or digit, so "Amélie (2001)" becomes [amelie, 2001].
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds or replaces a document. Returns false when the stored value and
+     * its tokens were already equal, in which case nothing is touched. A
+     * replaced document keeps its boost.
+     */
+    public boolean upsert(String id, T value, Fields fields) {
+        lock.writeLock().lock();
+        try {
+            Entry<T> existing = documents.get(id);
+            if (existing != null && Objects.equals(existing.value, value) && existing.tokens.equals(fields.weights)) {
+                return false;
+            }
+            if (existing != null) {
+                unlink(id, existing);
+            }
+            Map<String, Integer> tokens = new HashMap<>(fields.weights);
+            for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+                postings.computeIfAbsent(token.getKey(), k -> new HashMap<>()).put(id, token.getValue());
+            }
+            documents.put(id, new Entry<>(value, tokens, existing != null ? existing.boost : 0.0));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets a document's boost, clamped to [0, 1]. Returns whether it changed;
+     * unknown ids are ignored.
+     */
+    public boolean setBoost(String id, double boost) {
+        double clamped = Math.max(0.0, Math.min(1.0, boost));
+        lock.writeLock().lock();
+        try {
+            Entry<T> entry = documents.get(id);
+            if (entry == null || entry.boost == clamped) {
+                return false;
+            }
+            entry.boost = clamped;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Entry<T> existing = documents.remove(id);
+            if (existing == null) {
+                return false;
+            }
+            unlink(id, existing);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document whose id is not in {@code keep}. Returns the
+     * number removed.
+     */
+    public int retainAll(Set<String> keep) {
+        lock.writeLock().lock();
+        try {
+            List<String> stale = new ArrayList<>();
+            for (String id : documents.keySet()) {
+                if (!keep.contains(id)) {
+                    stale.add(id);
+                }
+            }
+            for (String id : stale) {
+                unlink(id, documents.remove(id));
+            }
+            return stale.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents containing every query token, best rank first.
+     */
+    public List<T> search(String query, Predicate<T> filter, int limit) {
+        List<T> results = new ArrayList<>();
+        for (Hit<T> hit : searchHits(query, filter, limit)) {
+            results.add(hit.getValue());
+        }
+        return results;
+    }
+
+    /**
+     * Like {@link #search} but keeps each match's score, the sum over the
+     * query tokens of the heaviest field each token matched, and its rank:
+     * the score relative to a perfect match, blended with the boost.
+     */
+    public List<Hit<T>> searchHits(String query, Predicate<T> filter, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        List<Hit<T>> results = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return results;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<String, Integer>> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Map<String, Integer> list = postings.get(token);
+                if (list == null) {
+                    return results;
+                }
+                lists.add(list);
+            }
+            // Intersect starting from the shortest posting list
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            double perfect = (double) tokens.size() * maxFieldWeight;
+            List<Hit<T>> matches = new ArrayList<>();
+            for (Map.Entry<String, Integer> posting : lists.get(0).entrySet()) {
+                int score = posting.getValue();
+                boolean all = true;
+                for (int i = 1; i < lists.size() && all; i++) {
+                    Integer weight = lists.get(i).get(posting.getKey());
+                    all = weight != null;
+                    score += all ? weight : 0;
+                }
+                if (all) {
+                    Entry<T> entry = documents.get(posting.getKey());
+                    double rank = (1 - boostWeight) * Math.min(1.0, score / perfect) + boostWeight * entry.boost;
+                    matches.add(new Hit<>(entry.value, score, tokens.size(), rank));
+                }
+            }
+
+            matches.sort(Comparator.comparingDouble((Hit<T> hit) -> hit.rank).reversed());
+            for (Hit<T> hit : matches) {
+                if (filter == null || filter.test(hit.value)) {
+                    results.add(hit);
+                    if (results.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> values() {
+        lock.readLock().lock();
+        try {
+            List<T> values = new ArrayList<>(documents.size());
+            documents.values().forEach(entry -> values.add(entry.value));
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<String> ids() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unlink(String id, Entry<T> entry) {
+        for (String token : entry.tokens.keySet()) {
+            Map<String, Integer> list = postings.get(token);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
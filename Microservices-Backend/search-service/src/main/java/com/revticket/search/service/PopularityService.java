@@ -0,0 +1,133 @@
+package com.revticket.search.service;
+
+import com.revticket.search.client.BookingServiceClient;
+import com.revticket.search.client.ReviewServiceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns booking velocity and review ratings into one popularity score per
+ * movie and hands it to the search indexes, which store it on each document
+ * so ranking needs no call at query time.
+ *
+ * The score blends bookings in the last day, tickets sold over the window and
+ * the average rating. Counts are log-scaled against the top movie so one
+ * blockbuster does not flatten the rest, and ratings are shrunk towards a
+ * neutral prior until a movie has a few reviews. When a source cannot be
+ * reached its last known values are kept.
+ */
+@Service
+public class PopularityService {
+    private static final Logger logger = LoggerFactory.getLogger(PopularityService.class);
+
+    private static final double VELOCITY_SHARE = 0.4;
+    private static final double VOLUME_SHARE = 0.3;
+    private static final double RATING_SHARE = 0.3;
+    private static final double PRIOR_RATING = 3.0;
+    private static final double PRIOR_REVIEWS = 5.0;
+    private static final double MAX_RATING = 5.0;
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Autowired
+    private ReviewServiceClient reviewServiceClient;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Value("${app.search.ranking.window-days:7}")
+    private int windowDays;
+
+    /** Bookings in the last day and tickets over the window, per movie. */
+    private Map<String, long[]> bookings = Map.of();
+
+    /** Average approved rating and review count, per movie. */
+    private Map<String, double[]> ratings = Map.of();
+
+    @Scheduled(fixedDelayString = "${app.search.ranking.refresh-interval-ms:300000}",
+            initialDelayString = "${app.search.ranking.initial-delay-ms:15000}")
+    public void refresh() {
+        try {
+            Map<String, long[]> latest = new HashMap<>();
+            for (Map<String, Object> row : bookingServiceClient.getMoviePopularity(windowDays)) {
+                if (row.get("movieId") != null) {
+                    latest.put(row.get("movieId").toString(),
+                            new long[] {getLong(row, "bookingsLastDay"), getLong(row, "tickets")});
+                }
+            }
+            bookings = latest;
+        } catch (Exception e) {
+            logger.warn("Could not refresh booking popularity, keeping previous values: {}", e.getMessage());
+        }
+
+        try {
+            Map<String, double[]> latest = new HashMap<>();
+            for (Map<String, Object> row : reviewServiceClient.getRatingSummaries()) {
+                if (row.get("movieId") != null) {
+                    latest.put(row.get("movieId").toString(),
+                            new double[] {getDouble(row, "averageRating"), getLong(row, "reviewCount")});
+                }
+            }
+            ratings = latest;
+        } catch (Exception e) {
+            logger.warn("Could not refresh movie ratings, keeping previous values: {}", e.getMessage());
+        }
+
+        int changed = searchIndexService.applyPopularity(score(bookings, ratings));
+        if (changed > 0) {
+            logger.info("Popularity updated for {} movies", changed);
+        }
+    }
+
+    static Map<String, Double> score(Map<String, long[]> bookings, Map<String, double[]> ratings) {
+        long maxRecent = 0;
+        long maxTickets = 0;
+        for (long[] counts : bookings.values()) {
+            maxRecent = Math.max(maxRecent, counts[0]);
+            maxTickets = Math.max(maxTickets, counts[1]);
+        }
+
+        Set<String> movieIds = new HashSet<>(bookings.keySet());
+        movieIds.addAll(ratings.keySet());
+        Map<String, Double> scores = new HashMap<>();
+        for (String movieId : movieIds) {
+            long[] counts = bookings.getOrDefault(movieId, new long[2]);
+            double velocity = logShare(counts[0], maxRecent);
+            double volume = logShare(counts[1], maxTickets);
+
+            double rating = 0.0;
+            double[] review = ratings.get(movieId);
+            if (review != null && review[1] > 0) {
+                rating = (review[0] * review[1] + PRIOR_RATING * PRIOR_REVIEWS)
+                        / (review[1] + PRIOR_REVIEWS) / MAX_RATING;
+            }
+
+            double score = VELOCITY_SHARE * velocity + VOLUME_SHARE * volume + RATING_SHARE * rating;
+            // Rounded so that noise in the counts does not re-boost every movie on every refresh
+            scores.put(movieId, Math.round(score * 1000) / 1000.0);
+        }
+        return scores;
+    }
+
+    private static double logShare(long value, long max) {
+        return max > 0 ? Math.log1p(value) / Math.log1p(max) : 0.0;
+    }
+
+    private static long getLong(Map<String, Object> row, String key) {
+        return row.get(key) instanceof Number ? ((Number) row.get(key)).longValue() : 0L;
+    }
+
+    private static double getDouble(Map<String, Object> row, String key) {
+        return row.get(key) instanceof Number ? ((Number) row.get(key)).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,516 @@
+package com.revticket.search.service;
+
+import com.revticket.search.client.MovieServiceClient;
+import com.revticket.search.client.ShowtimeServiceClient;
+import com.revticket.search.client.TheaterServiceClient;
+import com.revticket.search.dto.MovieSearchDTO;
+import com.revticket.search.dto.ShowtimeSearchDTO;
+import com.revticket.search.dto.SourceStatus;
+import com.revticket.search.dto.SuggestionDTO;
+import com.revticket.search.dto.TheaterSearchDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the movie, theater and showtime indexes. Each refresh pulls the three
+ * snapshots in parallel under a shared deadline and applies only the
+ * difference: changed documents are re-indexed, unchanged ones are left alone
+ * and documents that are gone are removed. A failed or late snapshot leaves
+ * that index as it was and is reported in its source status.
+ *
+ * The typeahead trie and the facet indexes are rebuilt from the same data
+ * whenever an index changed and swapped in whole, so readers never see a
+ * partial build.
+ */
+@Service
+public class SearchIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private static final int TITLE_WEIGHT = 4;
+    private static final int NAME_WEIGHT = 3;
+    private static final int DETAIL_WEIGHT = 1;
+    private static final int MAX_WEIGHT = TITLE_WEIGHT;
+
+    public static final String MOVIES = "movies";
+    public static final String THEATERS = "theaters";
+    public static final String SHOWTIMES = "showtimes";
+
+    public static final List<String> MOVIE_FACETS = List.of("genre", "language", "theater", "city", "date");
+    public static final List<String> SHOWTIME_FACETS =
+            List.of("movie", "genre", "language", "theater", "city", "date", "format");
+
+    @Autowired
+    private MovieServiceClient movieServiceClient;
+
+    @Autowired
+    private TheaterServiceClient theaterServiceClient;
+
+    @Autowired
+    private ShowtimeServiceClient showtimeServiceClient;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    @Qualifier("searchSnapshotExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${app.search.index.fetch-timeout-ms:5000}")
+    private long fetchTimeoutMs;
+
+    @Value("${app.search.index.overall-timeout-ms:8000}")
+    private long overallTimeoutMs;
+
+    private final InvertedIndex<MovieSearchDTO> movies;
+    private final InvertedIndex<TheaterSearchDTO> theaters;
+    private final InvertedIndex<ShowtimeSearchDTO> showtimes;
+
+    /** Popularity of each movie, between 0 and 1; showtimes share their movie's. */
+    private volatile Map<String, Double> moviePopularity = Map.of();
+
+    /** Serialises index updates with popularity updates so no boost is missed. */
+    private final Object indexLock = new Object();
+
+    /** Directors and crew of each indexed movie, for person suggestions. */
+    private final Map<String, List<String>> moviePeople = new HashMap<>();
+
+    /** Facet values of each indexed movie and upcoming showtime. */
+    private final Map<String, Map<String, List<String>>> movieFacetValues = new HashMap<>();
+    private final Map<String, Map<String, List<String>>> showtimeFacetValues = new HashMap<>();
+
+    private volatile SuggestTrie suggestTrie = SuggestTrie.empty();
+    private volatile FacetIndex<MovieSearchDTO> movieFacets = FacetIndex.empty(MOVIE_FACETS);
+    private volatile FacetIndex<ShowtimeSearchDTO> showtimeFacets = FacetIndex.empty(SHOWTIME_FACETS);
+
+    private final Map<String, SourceStatus> statuses = new ConcurrentHashMap<>(Map.of(
+            MOVIES, new SourceStatus(SourceStatus.State.PENDING, null, null, null, 0),
+            THEATERS, new SourceStatus(SourceStatus.State.PENDING, null, null, null, 0),
+            SHOWTIMES, new SourceStatus(SourceStatus.State.PENDING, null, null, null, 0)));
+
+    @Value("${app.search.suggest.top-n:10}")
+    private int suggestTopN;
+
+    public SearchIndexService(@Value("${app.search.ranking.popularity-weight:0.3}") double popularityWeight) {
+        this.movies = new InvertedIndex<>(MAX_WEIGHT, popularityWeight);
+        this.theaters = new InvertedIndex<>(MAX_WEIGHT, popularityWeight);
+        this.showtimes = new InvertedIndex<>(MAX_WEIGHT, popularityWeight);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.index.refresh-interval-ms:60000}",
+            initialDelayString = "${app.search.index.initial-delay-ms:5000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+        CompletableFuture<List<Map<String, Object>>> movieSnapshot =
+                fetch(MOVIES, movieServiceClient::getAllMovies, start, latencies);
+        CompletableFuture<List<Map<String, Object>>> theaterSnapshot =
+                fetch(THEATERS, () -> theaterServiceClient.getAllTheaters(true), start, latencies);
+        CompletableFuture<List<Map<String, Object>>> showtimeSnapshot =
+                fetch(SHOWTIMES, showtimeServiceClient::getAllShowtimes, start, latencies);
+
+        try {
+            CompletableFuture.allOf(movieSnapshot, theaterSnapshot, showtimeSnapshot)
+                    .get(overallTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Individual outcomes are handled below
+        }
+
+        synchronized (indexLock) {
+            boolean changed = apply(MOVIES, movieSnapshot, this::indexMovies, movies, start, latencies);
+            changed |= apply(THEATERS, theaterSnapshot, this::indexTheaters, theaters, start, latencies);
+            changed |= apply(SHOWTIMES, showtimeSnapshot, this::indexShowtimes, showtimes, start, latencies);
+            if (changed) {
+                rebuildSuggestions();
+                rebuildFacets();
+                boostTheaters();
+                searchResultCache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Replaces the movie popularity scores and re-boosts only the movies
+     * whose score changed, together with their showtimes. Returns the number
+     * of movies changed.
+     */
+    public int applyPopularity(Map<String, Double> scores) {
+        synchronized (indexLock) {
+            Map<String, Double> previous = moviePopularity;
+            Set<String> changed = new HashSet<>();
+            for (String id : movies.ids()) {
+                if (!scores.getOrDefault(id, 0.0).equals(previous.getOrDefault(id, 0.0))) {
+                    changed.add(id);
+                }
+            }
+            moviePopularity = Map.copyOf(scores);
+            if (changed.isEmpty()) {
+                return 0;
+            }
+
+            changed.forEach(id -> movies.setBoost(id, popularity(id)));
+            for (ShowtimeSearchDTO showtime : showtimes.values()) {
+                if (changed.contains(showtime.getMovieId())) {
+                    showtimes.setBoost(showtime.getId(), popularity(showtime.getMovieId()));
+                }
+            }
+            searchResultCache.invalidateAll();
+            return changed.size();
+        }
+    }
+
+    public Map<String, SourceStatus> getStatuses() {
+        Map<String, SourceStatus> result = new LinkedHashMap<>();
+        result.put(MOVIES, statuses.get(MOVIES));
+        result.put(THEATERS, statuses.get(THEATERS));
+        result.put(SHOWTIMES, statuses.get(SHOWTIMES));
+        return result;
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> fetch(String source,
+                                                                Supplier<List<Map<String, Object>>> snapshot,
+                                                                long start, Map<String, Long> latencies) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return snapshot.get();
+                } finally {
+                    latencies.put(source, elapsedMs(start));
+                }
+            }, executor).orTimeout(fetchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Indexes a finished snapshot and records the outcome. Returns whether the
+     * index changed.
+     */
+    private boolean apply(String source, CompletableFuture<List<Map<String, Object>>> snapshot,
+                          Function<List<Map<String, Object>>, Boolean> indexer, InvertedIndex<?> index,
+                          long start, Map<String, Long> latencies) {
+        Long latency = latencies.getOrDefault(source, elapsedMs(start));
+        LocalDateTime lastRefreshedAt = statuses.get(source).getLastRefreshedAt();
+
+        if (!snapshot.isDone()) {
+            snapshot.cancel(true);
+            statuses.put(source, new SourceStatus(SourceStatus.State.TIMEOUT, latency,
+                    "No snapshot within " + overallTimeoutMs + " ms", lastRefreshedAt, index.size()));
+            logger.warn("Search index {} snapshot missed the overall deadline", source);
+            return false;
+        }
+        try {
+            boolean changed = indexer.apply(snapshot.join());
+            statuses.put(source, new SourceStatus(SourceStatus.State.OK, latency, null,
+                    LocalDateTime.now(), index.size()));
+            return changed;
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            boolean timedOut = cause instanceof TimeoutException;
+            statuses.put(source, new SourceStatus(
+                    timedOut ? SourceStatus.State.TIMEOUT : SourceStatus.State.FAILED, latency,
+                    timedOut ? "No snapshot within " + fetchTimeoutMs + " ms" : cause.getMessage(),
+                    lastRefreshedAt, index.size()));
+            logger.warn("Search index {} refresh failed: {}", source, cause.getMessage());
+            return false;
+        }
+    }
+
+    public SuggestTrie suggestions() {
+        return suggestTrie;
+    }
+
+    public FacetIndex<MovieSearchDTO> movieFacets() {
+        return movieFacets;
+    }
+
+    public FacetIndex<ShowtimeSearchDTO> showtimeFacets() {
+        return showtimeFacets;
+    }
+
+    public InvertedIndex<MovieSearchDTO> movies() {
+        return movies;
+    }
+
+    public InvertedIndex<TheaterSearchDTO> theaters() {
+        return theaters;
+    }
+
+    public InvertedIndex<ShowtimeSearchDTO> showtimes() {
+        return showtimes;
+    }
+
+    private boolean indexMovies(List<Map<String, Object>> snapshot) {
+        Set<String> seen = new HashSet<>();
+        int changed = 0;
+        for (Map<String, Object> movie : snapshot) {
+            String id = getString(movie, "id");
+            List<String> genres = getStrings(movie, "genre");
+            MovieSearchDTO dto = new MovieSearchDTO(
+                    id,
+                    getString(movie, "title"),
+                    String.join(", ", genres),
+                    getString(movie, "language"),
+                    movie.get("duration") instanceof Number ? ((Number) movie.get("duration")).intValue() : null,
+                    getString(movie, "posterUrl"));
+            InvertedIndex.Fields fields = new InvertedIndex.Fields()
+                    .add(dto.getTitle(), TITLE_WEIGHT)
+                    .add(getString(movie, "director"), DETAIL_WEIGHT)
+                    .add(getStrings(movie, "crew"), DETAIL_WEIGHT)
+                    .add(genres, DETAIL_WEIGHT)
+                    .add(dto.getLanguage(), DETAIL_WEIGHT);
+            List<String> people = new ArrayList<>();
+            if (getString(movie, "director") != null) {
+                people.add(getString(movie, "director"));
+            }
+            people.addAll(getStrings(movie, "crew"));
+            seen.add(id);
+            moviePeople.put(id, people);
+            movieFacetValues.put(id, Map.of(
+                    "genre", genres,
+                    "language", dto.getLanguage() != null ? List.of(dto.getLanguage()) : List.of()));
+            changed += movies.upsert(id, dto, fields) ? 1 : 0;
+            movies.setBoost(id, popularity(id));
+        }
+        moviePeople.keySet().retainAll(seen);
+        movieFacetValues.keySet().retainAll(seen);
+        return log(MOVIES, changed, movies.retainAll(seen));
+    }
+
+    private boolean indexTheaters(List<Map<String, Object>> snapshot) {
+        Set<String> seen = new HashSet<>();
+        int changed = 0;
+        for (Map<String, Object> theater : snapshot) {
+            String id = getString(theater, "id");
+            // theater-service stores the city as the theater's location
+            TheaterSearchDTO dto = new TheaterSearchDTO(
+                    id,
+                    getString(theater, "name"),
+                    getString(theater, "address"),
+                    getString(theater, "location"));
+            InvertedIndex.Fields fields = new InvertedIndex.Fields()
+                    .add(dto.getName(), NAME_WEIGHT)
+                    .add(dto.getLocation(), DETAIL_WEIGHT)
+                    .add(dto.getCity(), DETAIL_WEIGHT);
+            seen.add(id);
+            changed += theaters.upsert(id, dto, fields) ? 1 : 0;
+        }
+        return log(THEATERS, changed, theaters.retainAll(seen));
+    }
+
+    private boolean indexShowtimes(List<Map<String, Object>> snapshot) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> seen = new HashSet<>();
+        int changed = 0;
+        for (Map<String, Object> showtime : snapshot) {
+            LocalDateTime showDateTime = showtime.get("showDateTime") != null
+                    ? LocalDateTime.parse(showtime.get("showDateTime").toString()) : null;
+            if (showDateTime == null || !showDateTime.isAfter(now)
+                    || !"ACTIVE".equals(getString(showtime, "status"))) {
+                continue;
+            }
+
+            String id = getString(showtime, "id");
+            Map<String, Object> movie = getMap(showtime, "movie");
+            Map<String, Object> theater = getMap(showtime, "theater");
+            Map<String, Object> screen = getMap(showtime, "screenInfo");
+            ShowtimeSearchDTO dto = new ShowtimeSearchDTO(
+                    id,
+                    getString(showtime, "movieId"),
+                    getString(movie, "title"),
+                    getString(showtime, "theaterId"),
+                    getString(theater, "name"),
+                    showDateTime,
+                    getString(screen, "name"));
+            InvertedIndex.Fields fields = new InvertedIndex.Fields()
+                    .add(dto.getMovieTitle(), TITLE_WEIGHT)
+                    .add(dto.getTheaterName(), NAME_WEIGHT)
+                    .add(getString(theater, "location"), DETAIL_WEIGHT)
+                    .add(getString(movie, "language"), DETAIL_WEIGHT)
+                    .add(dto.getScreenName(), DETAIL_WEIGHT);
+            Map<String, List<String>> facetValues = new HashMap<>();
+            facetValues.put("movie", values(dto.getMovieId()));
+            facetValues.put("genre", movie != null ? getStrings(movie, "genre") : List.of());
+            facetValues.put("language", values(getString(movie, "language")));
+            facetValues.put("theater", values(dto.getTheaterId()));
+            facetValues.put("city", values(getString(theater, "location")));
+            facetValues.put("date", values(showDateTime.toLocalDate().toString()));
+            // Showtimes have no format of their own; the screen name (IMAX, 4DX, ...) stands in for it
+            facetValues.put("format", values(dto.getScreenName()));
+            seen.add(id);
+            showtimeFacetValues.put(id, facetValues);
+            changed += showtimes.upsert(id, dto, fields) ? 1 : 0;
+            showtimes.setBoost(id, popularity(dto.getMovieId()));
+        }
+        showtimeFacetValues.keySet().retainAll(seen);
+        return log(SHOWTIMES, changed, showtimes.retainAll(seen));
+    }
+
+    /**
+     * Movies and theaters score one plus their number of upcoming shows; a
+     * person scores the sum of their movies.
+     */
+    private void rebuildSuggestions() {
+        Map<String, Integer> showsByMovie = new HashMap<>();
+        Map<String, Integer> showsByTheater = new HashMap<>();
+        for (ShowtimeSearchDTO showtime : showtimes.values()) {
+            showsByMovie.merge(String.valueOf(showtime.getMovieId()), 1, Integer::sum);
+            showsByTheater.merge(String.valueOf(showtime.getTheaterId()), 1, Integer::sum);
+        }
+
+        List<SuggestionDTO> entries = new ArrayList<>();
+        Map<String, Double> people = new HashMap<>();
+        for (MovieSearchDTO movie : movies.values()) {
+            double score = 1 + showsByMovie.getOrDefault(movie.getId(), 0);
+            entries.add(new SuggestionDTO(movie.getTitle(), "movie", movie.getId(), score));
+            for (String person : new LinkedHashSet<>(moviePeople.getOrDefault(movie.getId(), List.of()))) {
+                people.merge(person, score, Double::sum);
+            }
+        }
+        people.forEach((person, score) -> entries.add(new SuggestionDTO(person, "person", null, score)));
+        for (TheaterSearchDTO theater : theaters.values()) {
+            double score = 1 + showsByTheater.getOrDefault(theater.getId(), 0);
+            entries.add(new SuggestionDTO(theater.getName(), "theater", theater.getId(), score));
+        }
+
+        entries.removeIf(entry -> entry.getText() == null || entry.getText().isBlank());
+        SuggestTrie trie = SuggestTrie.build(entries, suggestTopN);
+        suggestTrie = trie;
+        logger.info("Suggest trie rebuilt: {} suggestions, {} nodes", trie.size(), trie.nodeCount());
+    }
+
+    /**
+     * Movies are ordered by title and showtimes by start time, which is the
+     * order the facet queries return them in. A movie takes its theater, city
+     * and date values from its upcoming showtimes.
+     */
+    private void rebuildFacets() {
+        Map<String, Map<String, Set<String>>> playing = new HashMap<>();
+        List<ShowtimeSearchDTO> upcoming = new ArrayList<>(showtimes.values());
+        upcoming.sort(Comparator.comparing(ShowtimeSearchDTO::getShowDateTime)
+                .thenComparing(ShowtimeSearchDTO::getId));
+
+        FacetIndex.Builder<ShowtimeSearchDTO> showtimeBuilder = FacetIndex.builder(SHOWTIME_FACETS);
+        for (ShowtimeSearchDTO showtime : upcoming) {
+            Map<String, List<String>> facetValues = showtimeFacetValues.getOrDefault(showtime.getId(), Map.of());
+            showtimeBuilder.add(showtime, facetValues)
+                    .label("movie", showtime.getMovieId(), showtime.getMovieTitle())
+                    .label("theater", showtime.getTheaterId(), showtime.getTheaterName());
+            Map<String, Set<String>> movieValues = playing.computeIfAbsent(
+                    String.valueOf(showtime.getMovieId()), k -> new HashMap<>());
+            for (String facet : List.of("theater", "city", "date")) {
+                movieValues.computeIfAbsent(facet, k -> new LinkedHashSet<>())
+                        .addAll(facetValues.getOrDefault(facet, List.of()));
+            }
+        }
+
+        List<MovieSearchDTO> titles = new ArrayList<>(movies.values());
+        titles.sort(Comparator.comparing((MovieSearchDTO movie) -> String.valueOf(movie.getTitle()),
+                String.CASE_INSENSITIVE_ORDER).thenComparing(MovieSearchDTO::getId));
+        FacetIndex.Builder<MovieSearchDTO> movieBuilder = FacetIndex.builder(MOVIE_FACETS);
+        for (MovieSearchDTO movie : titles) {
+            Map<String, Collection<String>> facetValues = new HashMap<>(
+                    movieFacetValues.getOrDefault(movie.getId(), Map.of()));
+            facetValues.putAll(playing.getOrDefault(movie.getId(), Map.of()));
+            movieBuilder.add(movie, facetValues);
+        }
+        for (TheaterSearchDTO theater : theaters.values()) {
+            movieBuilder.label("theater", theater.getId(), theater.getName());
+            showtimeBuilder.label("theater", theater.getId(), theater.getName());
+        }
+
+        movieFacets = movieBuilder.build();
+        showtimeFacets = showtimeBuilder.build();
+        logger.info("Facet indexes rebuilt: {} movies, {} showtimes", movieFacets.size(), showtimeFacets.size());
+    }
+
+    /**
+     * Theaters have no booking or rating signal of their own, so they are
+     * boosted by how many upcoming shows they run, on a log scale relative to
+     * the busiest theater.
+     */
+    private void boostTheaters() {
+        Map<String, Integer> showsByTheater = new HashMap<>();
+        for (ShowtimeSearchDTO showtime : showtimes.values()) {
+            showsByTheater.merge(String.valueOf(showtime.getTheaterId()), 1, Integer::sum);
+        }
+        int busiest = showsByTheater.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        for (String id : theaters.ids()) {
+            double boost = busiest > 0
+                    ? Math.log1p(showsByTheater.getOrDefault(id, 0)) / Math.log1p(busiest) : 0.0;
+            theaters.setBoost(id, Math.round(boost * 1000) / 1000.0);
+        }
+    }
+
+    private boolean log(String index, int changed, int removed) {
+        if (changed > 0 || removed > 0) {
+            logger.info("Search index {}: {} documents updated, {} removed", index, changed, removed);
+            return true;
+        }
+        return false;
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private double popularity(String movieId) {
+        return movieId != null ? moviePopularity.getOrDefault(movieId, 0.0) : 0.0;
+    }
+
+    private static List<String> values(String value) {
+        return value != null ? List.of(value) : List.of();
+    }
+
+    private static String getString(Map<String, Object> map, String key) {
+        Object value = map != null ? map.get(key) : null;
+        return value != null ? value.toString() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getMap(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static List<String> getStrings(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof List) {
+            return ((List<?>) value).stream()
+                    .filter(item -> item != null)
+                    .map(Object::toString)
+                    .collect(Collectors.toList());
+        }
+        return value != null ? List.of(value.toString()) : List.of();
+    }
+}
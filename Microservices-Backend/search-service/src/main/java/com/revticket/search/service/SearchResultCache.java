@@ -0,0 +1,170 @@
+package com.revticket.search.service;
+
+import com.revticket.search.dto.SearchCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * LRU cache of search results keyed by the normalised query. Each entry is
+ * weighed by the number of rows it holds and the least recently used entries
+ * are evicted once the total passes the configured weight, so a few large
+ * result sets cannot crowd out many small ones unnoticed.
+ *
+ * Entries expire after a TTL and are all dropped when an index changes. A
+ * result computed against an index that changed while it was being computed
+ * is returned but not stored.
+ */
+@Component
+public class SearchResultCache {
+
+    @Value("${app.search.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.search.cache.max-weight:50000}")
+    private long maxWeight;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry {
+        private final Object value;
+        private final int weight;
+        private final long expiresAt;
+
+        private Entry(Object value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Builds a key that is the same for queries differing only in case,
+     * accents, punctuation, repeated words, word order or filter order.
+     */
+    public static String key(String kind, String query, Map<String, ? extends Collection<String>> filters,
+                             int offset, int limit) {
+        StringBuilder key = new StringBuilder(kind).append('|');
+        key.append(String.join(" ", new TreeSet<>(InvertedIndex.tokenize(query))));
+        if (filters != null) {
+            Map<String, TreeSet<String>> sorted = new TreeMap<>();
+            filters.forEach((name, values) -> {
+                TreeSet<String> normalised = sorted.computeIfAbsent(name, k -> new TreeSet<>());
+                if (values != null) {
+                    values.forEach(value -> normalised.add(value.trim().toLowerCase(Locale.ROOT)));
+                }
+            });
+            sorted.forEach((name, values) -> key.append('|').append(name).append('=')
+                    .append(String.join(",", values)));
+        }
+        return key.append('|').append(offset).append('|').append(limit).toString();
+    }
+
+    /**
+     * Returns the cached value for the key, or loads, weighs and stores it.
+     * The loader runs outside the cache lock; concurrent misses on one key
+     * may each load it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader, ToIntFunction<T> weigher) {
+        long loadedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.nanoTime()) {
+                    hits.incrementAndGet();
+                    return (T) entry.value;
+                }
+                unlink(key, entry);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadedGeneration = generation;
+        }
+
+        T value = loader.get();
+        int entryWeight = Math.max(1, weigher.applyAsInt(value));
+        synchronized (this) {
+            if (loadedGeneration == generation && entryWeight <= maxWeight) {
+                Entry previous = entries.put(key, new Entry(value, entryWeight,
+                        System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+                if (previous != null) {
+                    weight -= previous.weight;
+                }
+                weight += entryWeight;
+                evict();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops every entry. Called whenever an index changes.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+        generation++;
+        invalidations.incrementAndGet();
+    }
+
+    public SearchCacheStats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        int size;
+        long currentWeight;
+        synchronized (this) {
+            size = entries.size();
+            currentWeight = weight;
+        }
+        return new SearchCacheStats(size, currentWeight, maxWeight, hitCount, missCount,
+                lookups > 0 ? Math.round(hitCount * 10000.0 / lookups) / 10000.0 : 0.0,
+                evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    /**
+     * Weight of a result: one per row, plus one for the response itself.
+     */
+    public static int rows(List<?>... lists) {
+        int rows = 1;
+        for (List<?> list : lists) {
+            rows += list != null ? list.size() : 0;
+        }
+        return rows;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void unlink(String key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+}
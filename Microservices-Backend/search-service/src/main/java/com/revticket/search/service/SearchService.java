@@ -1,74 +1,209 @@
 package com.revticket.search.service;
 
-import com.revticket.search.client.MovieServiceClient;
-import com.revticket.search.client.ShowtimeServiceClient;
-import com.revticket.search.client.TheaterServiceClient;
 import com.revticket.search.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+/**
+ * Answers queries from the local indexes; no downstream service is called
+ * while searching. Results are cached by normalised query until the TTL
+ * passes or an index changes. Source statuses are never cached, and cached
+ * showtimes that have started since are dropped on the way out.
+ */
 @Service
 public class SearchService {
 
-    @Autowired
-    private MovieServiceClient movieServiceClient;
+    private static final DateTimeFormatter SHOW_TIME = DateTimeFormatter.ofPattern("EEE d MMM, HH:mm");
 
     @Autowired
-    private TheaterServiceClient theaterServiceClient;
+    private SearchIndexService searchIndexService;
 
     @Autowired
-    private ShowtimeServiceClient showtimeServiceClient;
+    private SearchResultCache searchResultCache;
+
+    @Value("${app.search.max-results:50}")
+    private int maxResults;
+
+    @Value("${app.search.suggest.top-n:10}")
+    private int suggestLimit;
 
+    /**
+     * Searches all three indexes and also returns one list merged across
+     * types by relevance. The response is partial when an index has never
+     * loaded or its last refresh failed, in which case it may be stale or
+     * empty.
+     */
     public SearchResponse searchAll(String query) {
-        List<MovieSearchDTO> movies = new ArrayList<>();
-        List<TheaterSearchDTO> theaters = new ArrayList<>();
-        List<ShowtimeSearchDTO> showtimes = new ArrayList<>();
-
-        try {
-            movies = movieServiceClient.searchMovies(query);
-        } catch (Exception e) {
-            // Log error but continue
-        }
+        SearchResponse cached = searchResultCache.get(
+                SearchResultCache.key("all", query, null, 0, maxResults),
+                () -> computeSearchAll(query),
+                response -> SearchResultCache.rows(response.getMovies(), response.getTheaters(),
+                        response.getShowtimes(), response.getResults()));
 
-        try {
-            theaters = theaterServiceClient.searchTheaters(query);
-        } catch (Exception e) {
-            // Log error but continue
+        List<ShowtimeSearchDTO> showtimes = upcoming(cached.getShowtimes());
+        List<SearchResultDTO> results = cached.getResults();
+        if (showtimes.size() < cached.getShowtimes().size()) {
+            Set<String> live = showtimes.stream().map(ShowtimeSearchDTO::getId).collect(Collectors.toSet());
+            results = results.stream()
+                    .filter(result -> !"showtime".equals(result.getType()) || live.contains(result.getId()))
+                    .collect(Collectors.toList());
         }
 
-        try {
-            showtimes = showtimeServiceClient.searchShowtimes(query);
-        } catch (Exception e) {
-            // Log error but continue
-        }
+        Map<String, SourceStatus> sources = searchIndexService.getStatuses();
+        boolean partial = sources.values().stream()
+                .anyMatch(status -> status.getState() != SourceStatus.State.OK);
+        return new SearchResponse(cached.getMovies(), cached.getTheaters(), showtimes, results, sources, partial);
+    }
+
+    private SearchResponse computeSearchAll(String query) {
+        List<InvertedIndex.Hit<MovieSearchDTO>> movieHits =
+                searchIndexService.movies().searchHits(query, null, maxResults);
+        List<InvertedIndex.Hit<TheaterSearchDTO>> theaterHits =
+                searchIndexService.theaters().searchHits(query, null, maxResults);
+        List<InvertedIndex.Hit<ShowtimeSearchDTO>> showtimeHits =
+                searchIndexService.showtimes().searchHits(query, upcoming(), maxResults);
 
-        return new SearchResponse(movies, theaters, showtimes);
+        List<SearchResultDTO> results = new ArrayList<>();
+        movieHits.forEach(hit -> results.add(new SearchResultDTO("movie", hit.getValue().getId(),
+                hit.getValue().getTitle(), hit.getValue().getGenre(), relevance(hit))));
+        theaterHits.forEach(hit -> results.add(new SearchResultDTO("theater", hit.getValue().getId(),
+                hit.getValue().getName(), hit.getValue().getCity(), relevance(hit))));
+        showtimeHits.forEach(hit -> results.add(new SearchResultDTO("showtime", hit.getValue().getId(),
+                hit.getValue().getMovieTitle(), describe(hit.getValue()), relevance(hit))));
+        // Stable sort: equal scores keep movies before theaters before showtimes
+        results.sort(Comparator.comparingDouble(SearchResultDTO::getScore).reversed());
+
+        return new SearchResponse(
+                values(movieHits),
+                values(theaterHits),
+                values(showtimeHits),
+                results.size() > maxResults ? new ArrayList<>(results.subList(0, maxResults)) : results,
+                null,
+                false);
     }
 
     public List<MovieSearchDTO> searchMovies(String query) {
-        try {
-            return movieServiceClient.searchMovies(query);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+        return searchResultCache.get(SearchResultCache.key("movies", query, null, 0, maxResults),
+                () -> searchIndexService.movies().search(query, null, maxResults),
+                SearchResultCache::rows);
     }
 
     public List<TheaterSearchDTO> searchTheaters(String query) {
-        try {
-            return theaterServiceClient.searchTheaters(query);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+        return searchResultCache.get(SearchResultCache.key("theaters", query, null, 0, maxResults),
+                () -> searchIndexService.theaters().search(query, null, maxResults),
+                SearchResultCache::rows);
+    }
+
+    /**
+     * Movies matching the facet filters, by title, with the count of every
+     * facet value. Unknown facet names are rejected.
+     */
+    public FacetedSearchResponse<MovieSearchDTO> facetMovies(Map<String, List<String>> filters, int offset,
+                                                             int limit) {
+        int start = Math.max(0, offset);
+        int size = pageSize(limit);
+        FacetIndex.Result<MovieSearchDTO> result = searchResultCache.get(
+                SearchResultCache.key("facet-movies", null, filters, start, size),
+                () -> searchIndexService.movieFacets().query(filters, 0, start, size),
+                SearchService::weigh);
+        return new FacetedSearchResponse<>(result.getDocuments(), result.getTotal(), start,
+                result.getFacets(), partial(SearchIndexService.MOVIES, SearchIndexService.SHOWTIMES));
+    }
+
+    /**
+     * Upcoming showtimes matching the facet filters, soonest first. Shows
+     * that started since the last rebuild sit at the front of the index and
+     * are cut off before filtering.
+     */
+    public FacetedSearchResponse<ShowtimeSearchDTO> facetShowtimes(Map<String, List<String>> filters, int offset,
+                                                                   int limit) {
+        FacetIndex<ShowtimeSearchDTO> index = searchIndexService.showtimeFacets();
+        int started = index.countLeading(upcoming().negate());
+        int start = Math.max(0, offset);
+        int size = pageSize(limit);
+        // The cut-off is part of the key, so a show starting never leaves a stale page behind
+        FacetIndex.Result<ShowtimeSearchDTO> result = searchResultCache.get(
+                SearchResultCache.key("facet-showtimes@" + started, null, filters, start, size),
+                () -> index.query(filters, started, start, size),
+                SearchService::weigh);
+        return new FacetedSearchResponse<>(result.getDocuments(), result.getTotal(), start,
+                result.getFacets(), partial(SearchIndexService.SHOWTIMES));
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return searchIndexService.suggestions().suggest(prefix, Math.max(1, Math.min(limit, suggestLimit)));
     }
 
     public List<ShowtimeSearchDTO> searchShowtimes(String query) {
-        try {
-            return showtimeServiceClient.searchShowtimes(query);
-        } catch (Exception e) {
-            return new ArrayList<>();
+        return upcoming(searchResultCache.get(SearchResultCache.key("showtimes", query, null, 0, maxResults),
+                () -> searchIndexService.showtimes().search(query, upcoming(), maxResults),
+                SearchResultCache::rows));
+    }
+
+    public SearchCacheStats getCacheStats() {
+        return searchResultCache.getStats();
+    }
+
+    /**
+     * Shows that started since the last refresh are skipped until it removes
+     * them.
+     */
+    private static Predicate<ShowtimeSearchDTO> upcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        return showtime -> showtime.getShowDateTime().isAfter(now);
+    }
+
+    private static List<ShowtimeSearchDTO> upcoming(List<ShowtimeSearchDTO> showtimes) {
+        Predicate<ShowtimeSearchDTO> upcoming = upcoming();
+        if (showtimes.stream().allMatch(upcoming)) {
+            return showtimes;
+        }
+        return showtimes.stream().filter(upcoming).collect(Collectors.toList());
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxResults));
+    }
+
+    private boolean partial(String... sources) {
+        Map<String, SourceStatus> statuses = searchIndexService.getStatuses();
+        for (String source : sources) {
+            if (statuses.get(source).getState() != SourceStatus.State.OK) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private static int weigh(FacetIndex.Result<?> result) {
+        int rows = SearchResultCache.rows(result.getDocuments());
+        for (List<FacetCountDTO> counts : result.getFacets().values()) {
+            rows += counts.size();
+        }
+        return rows;
+    }
+
+    private static double relevance(InvertedIndex.Hit<?> hit) {
+        return Math.round(hit.getRank() * 1000) / 1000.0;
+    }
+
+    private static String describe(ShowtimeSearchDTO showtime) {
+        String when = showtime.getShowDateTime().format(SHOW_TIME);
+        return showtime.getTheaterName() != null ? showtime.getTheaterName() + ", " + when : when;
+    }
+
+    private static <T> List<T> values(List<InvertedIndex.Hit<T>> hits) {
+        return hits.stream().map(InvertedIndex.Hit::getValue).collect(Collectors.toList());
     }
 }
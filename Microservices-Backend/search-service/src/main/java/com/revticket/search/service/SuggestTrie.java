@@ -0,0 +1,187 @@
+package com.revticket.search.service;
+
+import com.revticket.search.dto.SuggestionDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie for typeahead. Every suggestion is reachable from the
+ * start of each of its words, so "kni" finds "The Dark Knight". Suggestions
+ * are numbered by descending score, and each node stores the numbers of the
+ * best few suggestions below it, so a lookup is a walk down the prefix and a
+ * copy of one precomputed list.
+ *
+ * After building, nodes are flattened breadth-first into parallel arrays:
+ * the children of a node are contiguous and sorted by character, so a child
+ * is found by binary search and no per-node objects remain.
+ */
+public final class SuggestTrie {
+
+    private static final SuggestTrie EMPTY = build(List.of(), 1);
+
+    private final SuggestionDTO[] suggestions;
+    private final char[] labels;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final int[] topStart;
+    private final int[] top;
+
+    private SuggestTrie(SuggestionDTO[] suggestions, char[] labels, int[] childStart, int[] childEnd,
+                        int[] topStart, int[] top) {
+        this.suggestions = suggestions;
+        this.labels = labels;
+        this.childStart = childStart;
+        this.childEnd = childEnd;
+        this.topStart = topStart;
+        this.top = top;
+    }
+
+    public static SuggestTrie empty() {
+        return EMPTY;
+    }
+
+    public static SuggestTrie build(List<SuggestionDTO> entries, int topN) {
+        SuggestionDTO[] ranked = entries.stream()
+                .sorted(Comparator.comparingDouble((SuggestionDTO s) -> s.getScore() != null ? s.getScore() : 0.0)
+                        .reversed()
+                        .thenComparing(SuggestionDTO::getText))
+                .toArray(SuggestionDTO[]::new);
+
+        Node root = new Node();
+        for (int i = 0; i < ranked.length; i++) {
+            List<String> tokens = InvertedIndex.tokenize(ranked[i].getText());
+            for (int start = 0; start < tokens.size(); start++) {
+                String key = String.join(" ", tokens.subList(start, tokens.size()));
+                Node node = root;
+                for (int c = 0; c < key.length(); c++) {
+                    node = node.children.computeIfAbsent(key.charAt(c), k -> new Node());
+                }
+                node.terminal.add(i);
+            }
+        }
+        computeTop(root, topN);
+        return flatten(root, ranked);
+    }
+
+    /**
+     * The best suggestions whose text has a word starting with the prefix.
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        List<SuggestionDTO> results = new ArrayList<>();
+        String key = String.join(" ", InvertedIndex.tokenize(prefix));
+        if (key.isEmpty()) {
+            return results;
+        }
+
+        int node = 0;
+        for (int c = 0; c < key.length(); c++) {
+            node = child(node, key.charAt(c));
+            if (node < 0) {
+                return results;
+            }
+        }
+        for (int i = topStart[node]; i < topStart[node + 1] && results.size() < limit; i++) {
+            results.add(suggestions[top[i]]);
+        }
+        return results;
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    public int nodeCount() {
+        return labels.length;
+    }
+
+    private int child(int node, char c) {
+        int low = childStart[node];
+        int high = childEnd[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Post-order: a node's list is the topN smallest suggestion numbers among
+     * its own terminals and its children's lists.
+     */
+    private static void computeTop(Node root, int topN) {
+        Deque<Node> stack = new ArrayDeque<>();
+        List<Node> order = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            order.add(node);
+            node.children.values().forEach(stack::push);
+        }
+        for (int n = order.size() - 1; n >= 0; n--) {
+            Node node = order.get(n);
+            int[] candidates = node.terminal.stream().mapToInt(Integer::intValue).toArray();
+            for (Node child : node.children.values()) {
+                int[] merged = Arrays.copyOf(candidates, candidates.length + child.top.length);
+                System.arraycopy(child.top, 0, merged, candidates.length, child.top.length);
+                candidates = merged;
+            }
+            node.top = Arrays.stream(candidates).sorted().distinct().limit(topN).toArray();
+        }
+    }
+
+    private static SuggestTrie flatten(Node root, SuggestionDTO[] ranked) {
+        List<Node> order = new ArrayList<>();
+        List<Character> nodeLabels = new ArrayList<>();
+        order.add(root);
+        nodeLabels.add('\0');
+        List<int[]> ranges = new ArrayList<>();
+        for (int n = 0; n < order.size(); n++) {
+            int start = order.size();
+            for (Map.Entry<Character, Node> child : order.get(n).children.entrySet()) {
+                order.add(child.getValue());
+                nodeLabels.add(child.getKey());
+            }
+            ranges.add(new int[] {start, order.size()});
+        }
+
+        int count = order.size();
+        char[] labels = new char[count];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        int[] topStart = new int[count + 1];
+        int topSize = 0;
+        for (int n = 0; n < count; n++) {
+            labels[n] = nodeLabels.get(n);
+            starts[n] = ranges.get(n)[0];
+            ends[n] = ranges.get(n)[1];
+            topStart[n] = topSize;
+            topSize += order.get(n).top.length;
+        }
+        topStart[count] = topSize;
+
+        int[] top = new int[topSize];
+        for (int n = 0; n < count; n++) {
+            System.arraycopy(order.get(n).top, 0, top, topStart[n], order.get(n).top.length);
+        }
+        return new SuggestTrie(ranked, labels, starts, ends, topStart, top);
+    }
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final List<Integer> terminal = new ArrayList<>(1);
+        private int[] top;
+    }
+}
@@ -0,0 +1,139 @@
+package com.revticket.search.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(60, 3);
+    }
+
+    private static SearchResultCache cache(long ttlSeconds, long maxWeight) {
+        SearchResultCache cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(cache, "maxWeight", maxWeight);
+        return cache;
+    }
+
+    private String get(SearchResultCache cache, String key, int weight) {
+        return cache.get(key, () -> {
+            loads.incrementAndGet();
+            return key + "#" + loads.get();
+        }, value -> weight);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        String first = get(cache, "a", 1);
+        String second = get(cache, "a", 1);
+
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().getHits());
+        assertEquals(1L, cache.getStats().getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOnceOverWeight() {
+        get(cache, "a", 1);
+        get(cache, "b", 1);
+        get(cache, "c", 1);
+        get(cache, "a", 1);
+        get(cache, "d", 1);
+        assertEquals(4, loads.get());
+
+        get(cache, "a", 1);
+        get(cache, "c", 1);
+        get(cache, "d", 1);
+        assertEquals(4, loads.get());
+
+        get(cache, "b", 1);
+        assertEquals(5, loads.get());
+        assertEquals(2L, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void evictsByWeightNotCount() {
+        get(cache, "a", 1);
+        get(cache, "b", 1);
+        get(cache, "big", 2);
+
+        // Weight 4 is over the limit of 3, so only the eldest entry goes
+        assertEquals(2, cache.getStats().getEntries());
+        assertEquals(3L, cache.getStats().getWeight());
+        get(cache, "b", 1);
+        assertEquals(3, loads.get());
+        get(cache, "a", 1);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void doesNotStoreAResultHeavierThanTheWholeCache() {
+        get(cache, "a", 1);
+        get(cache, "huge", 4);
+        get(cache, "huge", 4);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getStats().getEntries());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        SearchResultCache expiring = cache(0, 3);
+        get(expiring, "a", 1);
+        get(expiring, "a", 1);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, expiring.getStats().getExpirations());
+    }
+
+    @Test
+    void invalidateAllDropsEveryEntry() {
+        get(cache, "a", 1);
+        cache.invalidateAll();
+        get(cache, "a", 1);
+
+        assertEquals(2, loads.get());
+        assertEquals(0L, cache.getStats().getHits());
+    }
+
+    @Test
+    void resultLoadedAcrossAnInvalidationIsReturnedButNotStored() {
+        String value = cache.get("a", () -> {
+            loads.incrementAndGet();
+            // An index changes while this result is being computed
+            cache.invalidateAll();
+            return "stale";
+        }, v -> 1);
+
+        assertEquals("stale", value);
+        assertEquals(0, cache.getStats().getEntries());
+        assertEquals("a#2", get(cache, "a", 1));
+    }
+
+    @Test
+    void keyIgnoresCaseWordOrderRepeatsAndFilterOrder() {
+        String key = SearchResultCache.key("movies", "Dark  the KNIGHT, dark",
+                Map.of("genre", List.of("Action", " drama ")), 0, 20);
+
+        assertEquals(key, SearchResultCache.key("movies", "knight dark the",
+                Map.of("genre", List.of("DRAMA", "action")), 0, 20));
+        assertNotEquals(key, SearchResultCache.key("movies", "knight dark the",
+                Map.of("genre", List.of("drama", "action")), 20, 20));
+        assertNotEquals(key, SearchResultCache.key("movies", "knight dark",
+                Map.of("genre", List.of("drama", "action")), 0, 20));
+    }
+}
@@ -0,0 +1,84 @@
+package com.revticket.search.service;
+
+import com.revticket.search.dto.SuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestTrieTest {
+
+    private static SuggestionDTO movie(String title, double score) {
+        return new SuggestionDTO(title, "movie", title.toLowerCase(), score);
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getText).collect(Collectors.toList());
+    }
+
+    @Test
+    void matchesThePrefixOfAnyWord() {
+        SuggestTrie trie = SuggestTrie.build(List.of(movie("The Dark Knight", 1.0)), 5);
+
+        assertEquals(List.of("The Dark Knight"), texts(trie.suggest("kni", 5)));
+        assertEquals(List.of("The Dark Knight"), texts(trie.suggest("dark kn", 5)));
+        assertEquals(List.of("The Dark Knight"), texts(trie.suggest("the", 5)));
+        assertTrue(trie.suggest("ark", 5).isEmpty());
+        assertTrue(trie.suggest("knight dark", 5).isEmpty());
+    }
+
+    @Test
+    void ignoresCaseAccentsAndPunctuation() {
+        SuggestTrie trie = SuggestTrie.build(List.of(movie("Am\u00e9lie", 1.0), movie("Spider-Man", 1.0)), 5);
+
+        assertEquals(List.of("Am\u00e9lie"), texts(trie.suggest("AME", 5)));
+        assertEquals(List.of("Spider-Man"), texts(trie.suggest("spider m", 5)));
+    }
+
+    @Test
+    void returnsTheHighestScoresFirst() {
+        SuggestTrie trie = SuggestTrie.build(List.of(
+                movie("Star Wars", 5.0),
+                movie("Stardust", 9.0),
+                movie("Starship Troopers", 1.0),
+                movie("Stalker", 7.0),
+                movie("Heat", 10.0)), 10);
+
+        assertEquals(List.of("Stardust", "Stalker", "Star Wars", "Starship Troopers"),
+                texts(trie.suggest("st", 10)));
+        assertEquals(List.of("Stardust", "Star Wars"), texts(trie.suggest("star", 2)));
+    }
+
+    @Test
+    void equalScoresAreOrderedByText() {
+        SuggestTrie trie = SuggestTrie.build(List.of(movie("Up", 1.0), movie("Us", 1.0), movie("Ugetsu", 1.0)), 5);
+
+        assertEquals(List.of("Ugetsu", "Up", "Us"), texts(trie.suggest("u", 5)));
+    }
+
+    @Test
+    void keepsAtMostTopNPerPrefix() {
+        SuggestTrie trie = SuggestTrie.build(List.of(
+                movie("Alien", 4.0),
+                movie("Aliens", 3.0),
+                movie("Alien 3", 2.0),
+                movie("Alien Resurrection", 1.0)), 2);
+
+        assertEquals(List.of("Alien", "Aliens"), texts(trie.suggest("ali", 10)));
+        // Later words keep their own lists, so the cap holds there too
+        assertEquals(List.of("Alien 3"), texts(trie.suggest("3", 10)));
+    }
+
+    @Test
+    void unknownOrBlankPrefixFindsNothing() {
+        SuggestTrie trie = SuggestTrie.build(List.of(movie("Heat", 1.0)), 5);
+
+        assertTrue(trie.suggest("x", 5).isEmpty());
+        assertTrue(trie.suggest("  ", 5).isEmpty());
+        assertTrue(SuggestTrie.empty().suggest("heat", 5).isEmpty());
+        assertEquals(0, SuggestTrie.empty().size());
+    }
+}
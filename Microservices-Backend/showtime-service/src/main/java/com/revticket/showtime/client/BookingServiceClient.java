@@ -0,0 +1,33 @@
+package com.revticket.showtime.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.Map;
+
+@FeignClient(name = "booking-service", configuration = com.revticket.showtime.config.FeignConfig.class)
+public interface BookingServiceClient {
+    /**
+     * Cancels every active booking of the showtime; safe to repeat. Called
+     * from the cancellation outbox, so the caller supplies the Authorization
+     * header.
+     */
+    @PostMapping("/api/bookings/showtime/{showtimeId}/cancel-all")
+    Map<String, Object> cancelAllForShowtime(@RequestHeader("Authorization") String authorization,
+                                             @PathVariable String showtimeId,
+                                             @RequestParam(required = false) String reason);
+
+    /**
+     * Marks the showtimes COMPLETED in booking-service and returns the seats
+     * sold for each; showtimes without sales are omitted. Called from a
+     * scheduled job, so the caller supplies the Authorization header.
+     */
+    @PostMapping("/api/bookings/showtimes/complete")
+    Map<String, Integer> completeShowtimes(@RequestHeader("Authorization") String authorization,
+                                           @RequestBody List<String> showtimeIds);
+}
@@ -1,13 +1,14 @@
 package com.revticket.showtime.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "movie-service", configuration = com.revticket.showtime.config.FeignConfig.class)
 public interface MovieServiceClient {
-    @GetMapping("/api/movies/{id}")
-    Map<String, Object> getMovieById(@PathVariable String id);
+    @PostMapping("/api/movies/batch")
+    List<Map<String, Object>> getMoviesByIds(@RequestBody List<String> ids);
 }
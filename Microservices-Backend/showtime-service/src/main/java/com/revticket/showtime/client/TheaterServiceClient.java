@@ -1,16 +1,17 @@
 package com.revticket.showtime.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "theater-service", configuration = com.revticket.showtime.config.FeignConfig.class)
 public interface TheaterServiceClient {
-    @GetMapping("/api/theaters/{id}")
-    Map<String, Object> getTheaterById(@PathVariable String id);
+    @PostMapping("/api/theaters/batch")
+    List<Map<String, Object>> getTheatersByIds(@RequestBody List<String> ids);
 
-    @GetMapping("/api/screens/{id}")
-    Map<String, Object> getScreenById(@PathVariable String id);
+    @PostMapping("/api/screens/batch")
+    List<Map<String, Object>> getScreensByIds(@RequestBody List<String> ids);
 }
@@ -0,0 +1,27 @@
+package com.revticket.showtime.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Small pool for refresh-ahead reloads of cached movie, theater and screen
+ * summaries. When it is saturated, refreshes are skipped and entries are
+ * reloaded inline once they expire.
+ */
+@Configuration
+public class SummaryCacheConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor summaryRefreshExecutor(
+            @Value("${app.summary-cache.refresh-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("summary-refresh-");
+        executor.initialize();
+        return executor;
+    }
+}
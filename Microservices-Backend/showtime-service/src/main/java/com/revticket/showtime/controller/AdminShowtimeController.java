@@ -1,9 +1,13 @@
 package com.revticket.showtime.controller;
 
+import com.revticket.showtime.dto.OccupancyHeatmapResponse;
 import com.revticket.showtime.dto.ShowtimeRequest;
 import com.revticket.showtime.dto.ShowtimeResponse;
 import com.revticket.showtime.dto.ShowtimeStatsResponse;
+import com.revticket.showtime.dto.SummaryInvalidationRequest;
+import com.revticket.showtime.service.OccupancyService;
 import com.revticket.showtime.service.ShowtimeService;
+import com.revticket.showtime.service.SummaryCacheService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -25,6 +29,12 @@ public class AdminShowtimeController {
     @Autowired
     private ShowtimeService showtimeService;
 
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private SummaryCacheService summaryCacheService;
+
     @GetMapping
     public ResponseEntity<List<ShowtimeResponse>> getShowtimes(
             @RequestParam(name = "movieId", required = false) String movieId,
@@ -79,4 +89,33 @@ public class AdminShowtimeController {
     public ResponseEntity<ShowtimeStatsResponse> getShowtimeStats() {
         return ResponseEntity.ok(showtimeService.getShowtimeStats());
     }
+
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<Map<String, Object>>> getOccupancyByTheater() {
+        return ResponseEntity.ok(occupancyService.getTheaterSummaries());
+    }
+
+    @GetMapping("/occupancy/heatmap")
+    public ResponseEntity<OccupancyHeatmapResponse> getOccupancyHeatmap(@RequestParam String theaterId) {
+        return ResponseEntity.ok(occupancyService.getHeatmap(theaterId));
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Map<String, Object>>> getSummaryCacheStats() {
+        return ResponseEntity.ok(summaryCacheService.getStats());
+    }
+
+    /**
+     * Called by the movie and theater services after they change a movie,
+     * theater or screen, so showtimes stop embedding the old summary.
+     */
+    @PostMapping("/cache/invalidate")
+    public ResponseEntity<Void> invalidateSummaries(@Valid @RequestBody SummaryInvalidationRequest request) {
+        try {
+            summaryCacheService.invalidate(request.getType(), request.getIds());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -16,6 +16,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/showtimes")
 public class ShowtimeController {
+    private static final int MAX_UPCOMING_HOURS = 168;
 
     @Autowired
     private ShowtimeService showtimeService;
@@ -47,6 +48,15 @@ public class ShowtimeController {
         return ResponseEntity.ok(showtimeService.getShowtimesByMovie(movieId));
     }
 
+    @GetMapping("/upcoming")
+    public ResponseEntity<List<ShowtimeResponse>> getUpcomingShowtimes(
+            @RequestParam(name = "hours", defaultValue = "24") int hours) {
+        if (hours < 1 || hours > MAX_UPCOMING_HOURS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(showtimeService.getUpcomingShowtimes(hours));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ShowtimeResponse> getShowtimeById(@PathVariable("id") String id) {
         return showtimeService.getShowtimeById(id)
@@ -0,0 +1,20 @@
+package com.revticket.showtime.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Occupancy of a theater's completed shows by weekday (rows, Monday first)
+ * and start hour (columns, 0-23). Cells without shows are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyHeatmapResponse {
+    private String theaterId;
+    private Long shows;
+    private Double averageOccupancy;
+    private Double[][] occupancy;
+    private Integer[][] showCounts;
+}
@@ -12,4 +12,6 @@ public class ShowtimeStatsResponse {
     private Long upcomingShowtimes;
     private Long showtimesLast7Days;
     private Long showtimesLast30Days;
+    private Long completedShowtimes;
+    private Double averageOccupancy;
 }
@@ -0,0 +1,17 @@
+package com.revticket.showtime.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SummaryInvalidationRequest {
+    @NotBlank
+    private String type; // "movie", "theater" or "screen"
+    private List<String> ids; // null or empty drops every summary of the type
+}
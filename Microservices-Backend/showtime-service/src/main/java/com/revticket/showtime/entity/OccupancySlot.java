@@ -0,0 +1,47 @@
+package com.revticket.showtime.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running occupancy totals for one theater, weekday and start hour. A theater
+ * has at most 7 x 24 rows, however many showtimes it has run.
+ */
+@Entity
+@Table(name = "occupancy_slots", indexes = {
+        @Index(name = "idx_occupancy_slots_theater", columnList = "theater_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancySlot {
+    /** theaterId:weekday:hour */
+    @Id
+    @Column(name = "slot_key")
+    private String slotKey;
+
+    @Column(name = "theater_id", nullable = false)
+    private String theaterId;
+
+    /** ISO day of week, 1 = Monday. */
+    @Column(nullable = false)
+    private Integer weekday;
+
+    @Column(name = "slot_hour", nullable = false)
+    private Integer hour;
+
+    @Column(nullable = false)
+    private Integer shows;
+
+    @Column(name = "seats_sold", nullable = false)
+    private Long seatsSold;
+
+    @Column(name = "seats_total", nullable = false)
+    private Long seatsTotal;
+
+    public static String key(String theaterId, int weekday, int hour) {
+        return theaterId + ":" + weekday + ":" + hour;
+    }
+}
@@ -0,0 +1,41 @@
+package com.revticket.showtime.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cancelled showtime whose bookings booking-service has not yet
+ * cancelled. The row is written with the CANCELLED status and deleted once
+ * booking-service acknowledges the cancellation.
+ */
+@Entity
+@Table(name = "showtime_cancellations", indexes = {
+        @Index(name = "idx_showtime_cancellations_next_attempt", columnList = "next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeCancellation {
+    @Id
+    @Column(name = "showtime_id")
+    private String showtimeId;
+
+    private String reason;
+
+    /** Identifies this request, so an acknowledgement never clears a newer one. */
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
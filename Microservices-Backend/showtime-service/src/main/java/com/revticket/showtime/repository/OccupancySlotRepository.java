@@ -0,0 +1,38 @@
+package com.revticket.showtime.repository;
+
+import com.revticket.showtime.entity.OccupancySlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OccupancySlotRepository extends JpaRepository<OccupancySlot, String> {
+
+    List<OccupancySlot> findByTheaterId(String theaterId);
+
+    @Modifying
+    @Query(value = "INSERT INTO occupancy_slots " +
+            "(slot_key, theater_id, weekday, slot_hour, shows, seats_sold, seats_total) " +
+            "VALUES (:slotKey, :theaterId, :weekday, :hour, :shows, :seatsSold, :seatsTotal) " +
+            "ON DUPLICATE KEY UPDATE shows = shows + VALUES(shows), " +
+            "seats_sold = seats_sold + VALUES(seats_sold), seats_total = seats_total + VALUES(seats_total)",
+            nativeQuery = true)
+    int addShows(@Param("slotKey") String slotKey,
+                 @Param("theaterId") String theaterId,
+                 @Param("weekday") int weekday,
+                 @Param("hour") int hour,
+                 @Param("shows") int shows,
+                 @Param("seatsSold") long seatsSold,
+                 @Param("seatsTotal") long seatsTotal);
+
+    @Query("SELECT SUM(o.seatsSold), SUM(o.seatsTotal) FROM OccupancySlot o")
+    List<Object[]> sumSeats();
+
+    @Query("SELECT o.theaterId, SUM(o.shows), SUM(o.seatsSold), SUM(o.seatsTotal) " +
+            "FROM OccupancySlot o GROUP BY o.theaterId")
+    List<Object[]> sumSeatsByTheater();
+}
@@ -0,0 +1,23 @@
+package com.revticket.showtime.repository;
+
+import com.revticket.showtime.entity.ShowtimeCancellation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ShowtimeCancellationRepository extends JpaRepository<ShowtimeCancellation, String> {
+
+    @Query("SELECT c FROM ShowtimeCancellation c WHERE c.nextAttemptAt <= :now ORDER BY c.nextAttemptAt ASC")
+    List<ShowtimeCancellation> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ShowtimeCancellation c WHERE c.showtimeId = :showtimeId AND c.requestedAt = :requestedAt")
+    int deleteAcknowledged(@Param("showtimeId") String showtimeId, @Param("requestedAt") LocalDateTime requestedAt);
+}
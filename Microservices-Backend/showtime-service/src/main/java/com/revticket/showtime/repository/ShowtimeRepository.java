@@ -1,7 +1,10 @@
 package com.revticket.showtime.repository;
 
 import com.revticket.showtime.entity.Showtime;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -44,4 +47,15 @@ public interface ShowtimeRepository extends JpaRepository<Showtime, String> {
     
     @Query("SELECT COUNT(s) FROM Showtime s WHERE s.showDateTime BETWEEN :start AND :end")
     Long countShowtimesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    Long countByStatus(Showtime.ShowStatus status);
+
+    /**
+     * Active showtimes that started before the cutoff, locked so that only one
+     * instance completes each of them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Showtime s WHERE s.status = com.revticket.showtime.entity.Showtime.ShowStatus.ACTIVE " +
+            "AND s.showDateTime < :cutoff ORDER BY s.showDateTime ASC")
+    List<Showtime> findFinishedActiveShowtimes(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
 }
@@ -0,0 +1,172 @@
+package com.revticket.showtime.service;
+
+import com.revticket.showtime.client.BookingServiceClient;
+import com.revticket.showtime.dto.OccupancyHeatmapResponse;
+import com.revticket.showtime.entity.OccupancySlot;
+import com.revticket.showtime.entity.Showtime;
+import com.revticket.showtime.repository.OccupancySlotRepository;
+import com.revticket.showtime.repository.ShowtimeRepository;
+import com.revticket.showtime.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Marks showtimes COMPLETED once they are over and folds their fill ratio into
+ * per theater x weekday x hour totals, so heatmaps and the average occupancy
+ * are read from a few hundred rows instead of the showtime table.
+ *
+ * Seats sold come from booking-service, which owns the bookings; the same
+ * call marks its copy of each showtime COMPLETED so it stops taking bookings.
+ * That call is idempotent, and a showtime is counted in the same transaction
+ * that moves it from ACTIVE to COMPLETED here, so it is counted exactly once
+ * even if the batch is retried. Cancelled showtimes are never counted.
+ */
+@Service
+public class OccupancyService {
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyService.class);
+
+    @Autowired
+    private ShowtimeRepository showtimeRepository;
+
+    @Autowired
+    private OccupancySlotRepository occupancySlotRepository;
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.occupancy.completion-delay-minutes:180}")
+    private long completionDelayMinutes;
+
+    @Value("${app.occupancy.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.occupancy.interval-ms:300000}",
+            initialDelayString = "${app.occupancy.initial-delay-ms:60000}")
+    public void completeFinishedShowtimes() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(completionDelayMinutes);
+        try {
+            int completed = 0;
+            Integer batch;
+            do {
+                batch = transactionTemplate.execute(status -> completeBatch(cutoff));
+                completed += batch != null ? batch : 0;
+            } while (batch != null && batch == batchSize);
+
+            if (completed > 0) {
+                logger.info("Completed {} showtimes and recorded their occupancy", completed);
+            }
+        } catch (Exception e) {
+            logger.warn("Showtime completion run failed: {}", e.getMessage());
+        }
+    }
+
+    private int completeBatch(LocalDateTime cutoff) {
+        List<Showtime> showtimes = showtimeRepository.findFinishedActiveShowtimes(cutoff, PageRequest.of(0, batchSize));
+        if (showtimes.isEmpty()) {
+            return 0;
+        }
+
+        // A failed call rolls the batch back, leaving it for the next run
+        Map<String, Integer> soldSeats = bookingServiceClient.completeShowtimes(
+                "Bearer " + jwtUtil.generateToken("showtime-service", "ADMIN"),
+                showtimes.stream().map(Showtime::getId).collect(Collectors.toList()));
+
+        Map<String, OccupancySlot> slots = new HashMap<>();
+        for (Showtime showtime : showtimes) {
+            showtime.setStatus(Showtime.ShowStatus.COMPLETED);
+
+            int total = showtime.getTotalSeats() != null ? showtime.getTotalSeats() : 0;
+            int sold = Math.max(0, Math.min(total, soldSeats.getOrDefault(showtime.getId(), 0)));
+            int weekday = showtime.getShowDateTime().getDayOfWeek().getValue();
+            int hour = showtime.getShowDateTime().getHour();
+
+            String key = OccupancySlot.key(showtime.getTheaterId(), weekday, hour);
+            OccupancySlot slot = slots.computeIfAbsent(key,
+                    k -> new OccupancySlot(k, showtime.getTheaterId(), weekday, hour, 0, 0L, 0L));
+            slot.setShows(slot.getShows() + 1);
+            slot.setSeatsSold(slot.getSeatsSold() + sold);
+            slot.setSeatsTotal(slot.getSeatsTotal() + total);
+        }
+
+        for (OccupancySlot slot : slots.values()) {
+            occupancySlotRepository.addShows(slot.getSlotKey(), slot.getTheaterId(), slot.getWeekday(),
+                    slot.getHour(), slot.getShows(), slot.getSeatsSold(), slot.getSeatsTotal());
+        }
+        return showtimes.size();
+    }
+
+    @Transactional(readOnly = true)
+    public OccupancyHeatmapResponse getHeatmap(String theaterId) {
+        Double[][] occupancy = new Double[7][24];
+        Integer[][] showCounts = new Integer[7][24];
+        long shows = 0;
+        long sold = 0;
+        long total = 0;
+
+        for (OccupancySlot slot : occupancySlotRepository.findByTheaterId(theaterId)) {
+            int row = slot.getWeekday() - 1;
+            occupancy[row][slot.getHour()] = percentage(slot.getSeatsSold(), slot.getSeatsTotal());
+            showCounts[row][slot.getHour()] = slot.getShows();
+            shows += slot.getShows();
+            sold += slot.getSeatsSold();
+            total += slot.getSeatsTotal();
+        }
+        return new OccupancyHeatmapResponse(theaterId, shows, percentage(sold, total), occupancy, showCounts);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTheaterSummaries() {
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (Object[] row : occupancySlotRepository.sumSeatsByTheater()) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("theaterId", row[0]);
+            summary.put("shows", toLong(row[1]));
+            summary.put("averageOccupancy", percentage(toLong(row[2]), toLong(row[3])));
+            summaries.add(summary);
+        }
+        summaries.sort((a, b) -> Double.compare((Double) b.get("averageOccupancy"), (Double) a.get("averageOccupancy")));
+        return summaries;
+    }
+
+    /**
+     * Seats sold over seats offered across all completed showtimes, as a
+     * percentage.
+     */
+    @Transactional(readOnly = true)
+    public Double getAverageOccupancy() {
+        List<Object[]> rows = occupancySlotRepository.sumSeats();
+        if (rows.isEmpty() || rows.get(0)[0] == null) {
+            return 0.0;
+        }
+        return percentage(toLong(rows.get(0)[0]), toLong(rows.get(0)[1]));
+    }
+
+    private static Double percentage(long sold, long total) {
+        return total > 0 ? Math.round(sold * 10000.0 / total) / 100.0 : 0.0;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,125 @@
+package com.revticket.showtime.service;
+
+import com.revticket.showtime.client.BookingServiceClient;
+import com.revticket.showtime.entity.ShowtimeCancellation;
+import com.revticket.showtime.repository.ShowtimeCancellationRepository;
+import com.revticket.showtime.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Delivers showtime cancellations to booking-service. A cancellation is
+ * recorded in the transaction that cancels the showtime, sent right after
+ * commit, and retried with backoff until booking-service acknowledges it.
+ * booking-service cancels a showtime's bookings idempotently, so a request
+ * sent more than once, or by two instances, is harmless.
+ */
+@Service
+public class ShowtimeCancellationOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeCancellationOutbox.class);
+
+    @Autowired
+    private ShowtimeCancellationRepository cancellationRepository;
+
+    @Autowired
+    private BookingServiceClient bookingServiceClient;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.cancellation-outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.cancellation-outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.cancellation-outbox.max-backoff-seconds:1800}")
+    private long maxBackoffSeconds;
+
+    /**
+     * Records the cancellation in the caller's transaction and sends it once
+     * that transaction commits.
+     */
+    public void record(String showtimeId, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        ShowtimeCancellation cancellation = new ShowtimeCancellation(showtimeId, reason, now, 0, now, null);
+        cancellationRepository.save(cancellation);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(cancellation);
+                }
+            });
+        } else {
+            deliver(cancellation);
+        }
+    }
+
+    /**
+     * Drops an undelivered cancellation, for a showtime reactivated before
+     * booking-service was reached.
+     */
+    public void discard(String showtimeId) {
+        cancellationRepository.deleteById(showtimeId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cancellation-outbox.interval-ms:30000}",
+            initialDelayString = "${app.cancellation-outbox.initial-delay-ms:30000}")
+    public void deliverDue() {
+        List<ShowtimeCancellation> due;
+        try {
+            due = cancellationRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        } catch (Exception e) {
+            logger.warn("Could not load pending showtime cancellations: {}", e.getMessage());
+            return;
+        }
+        for (ShowtimeCancellation cancellation : due) {
+            deliver(cancellation);
+        }
+    }
+
+    private void deliver(ShowtimeCancellation cancellation) {
+        String showtimeId = cancellation.getShowtimeId();
+        try {
+            bookingServiceClient.cancelAllForShowtime(
+                    "Bearer " + jwtUtil.generateToken("showtime-service", "ADMIN"),
+                    showtimeId, cancellation.getReason());
+        } catch (Exception e) {
+            logger.warn("Cancelling the bookings of showtime {} failed, will retry: {}", showtimeId, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> scheduleRetry(cancellation, e.getMessage()));
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                cancellationRepository.deleteAcknowledged(showtimeId, cancellation.getRequestedAt()));
+        logger.info("Bookings of cancelled showtime {} cancelled", showtimeId);
+    }
+
+    private void scheduleRetry(ShowtimeCancellation sent, String error) {
+        cancellationRepository.findById(sent.getShowtimeId())
+                .filter(current -> current.getRequestedAt().equals(sent.getRequestedAt()))
+                .ifPresent(current -> {
+                    int attempts = current.getAttempts() + 1;
+                    long backoff = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(attempts - 1, 20));
+                    current.setAttempts(attempts);
+                    current.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+                    current.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+                    cancellationRepository.save(current);
+                });
+    }
+}
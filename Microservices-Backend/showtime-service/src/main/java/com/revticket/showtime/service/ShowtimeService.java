@@ -1,7 +1,5 @@
 package com.revticket.showtime.service;
 
-import com.revticket.showtime.client.MovieServiceClient;
-import com.revticket.showtime.client.TheaterServiceClient;
 import com.revticket.showtime.dto.ShowtimeRequest;
 import com.revticket.showtime.dto.ShowtimeResponse;
 import com.revticket.showtime.dto.ShowtimeStatsResponse;
@@ -14,55 +12,58 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ShowtimeService {
-
     @Autowired
     private ShowtimeRepository showtimeRepository;
     
     @Autowired
-    private TheaterServiceClient theaterServiceClient;
-    
+    private SummaryCacheService summaryCacheService;
+
     @Autowired
-    private MovieServiceClient movieServiceClient;
+    private ShowtimeCancellationOutbox cancellationOutbox;
+
+    @Autowired
+    private OccupancyService occupancyService;
 
     @Transactional(readOnly = true)
     public List<ShowtimeResponse> getAllShowtimes() {
-        return showtimeRepository.findAllByOrderByShowDateTimeAsc()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(showtimeRepository.findAllByOrderByShowDateTimeAsc());
     }
 
     @Transactional(readOnly = true)
     public List<ShowtimeResponse> getShowtimesByMovie(String movieId) {
-        return showtimeRepository.findByMovieId(movieId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(showtimeRepository.findByMovieId(movieId));
     }
 
     @Transactional(readOnly = true)
     public List<ShowtimeResponse> getShowtimesByTheater(String theaterId) {
-        return showtimeRepository.findByTheaterId(theaterId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(showtimeRepository.findByTheaterId(theaterId));
     }
 
     @Transactional(readOnly = true)
     public List<ShowtimeResponse> getShowtimesByMovieAndDate(String movieId, LocalDate date) {
         LocalDateTime start = date.atStartOfDay();
         LocalDateTime end = date.atTime(LocalTime.MAX);
-        return showtimeRepository.findByMovieIdAndShowDateBetween(movieId, start, end)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(showtimeRepository.findByMovieIdAndShowDateBetween(movieId, start, end));
+    }
+
+    /**
+     * Showtimes starting between now and the given number of hours from now,
+     * earliest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ShowtimeResponse> getUpcomingShowtimes(int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        return mapToResponses(showtimeRepository.findByShowDateTimeBetween(now, now.plusHours(hours)));
     }
 
     @Transactional(readOnly = true)
@@ -87,9 +88,7 @@ public class ShowtimeService {
             showtimes = showtimeRepository.findAllByOrderByShowDateTimeAsc();
         }
         
-        return showtimes.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(showtimes);
     }
 
     @Transactional(readOnly = true)
@@ -127,8 +126,11 @@ public class ShowtimeService {
         
         if (showtime.getStatus() == Showtime.ShowStatus.ACTIVE) {
             showtime.setStatus(Showtime.ShowStatus.CANCELLED);
+            // Bookings are cancelled only once the status change commits, and retried until they are
+            cancellationOutbox.record(showtime.getId(), "Showtime cancelled");
         } else if (showtime.getStatus() == Showtime.ShowStatus.CANCELLED) {
             showtime.setStatus(Showtime.ShowStatus.ACTIVE);
+            cancellationOutbox.discard(showtime.getId());
         }
         
         return mapToResponse(showtimeRepository.save(showtime));
@@ -168,7 +170,9 @@ public class ShowtimeService {
         Long upcomingShowtimes = showtimeRepository.countUpcomingShowtimes(now);
         Long showtimesLast7Days = showtimeRepository.countShowtimesBetween(now.minusDays(7), now);
         Long showtimesLast30Days = showtimeRepository.countShowtimesBetween(now.minusDays(30), now);
-        return new ShowtimeStatsResponse(totalShowtimes, upcomingShowtimes, showtimesLast7Days, showtimesLast30Days);
+        Long completedShowtimes = showtimeRepository.countByStatus(Showtime.ShowStatus.COMPLETED);
+        return new ShowtimeStatsResponse(totalShowtimes, upcomingShowtimes, showtimesLast7Days, showtimesLast30Days,
+                completedShowtimes, occupancyService.getAverageOccupancy());
     }
 
     public boolean checkShowtimeConflict(String screenId, LocalDateTime showDateTime, String excludeShowId) {
@@ -188,59 +192,48 @@ public class ShowtimeService {
     }
 
     private ShowtimeResponse mapToResponse(Showtime showtime) {
-        ShowtimeResponse.MovieSummary movie = null;
-        ShowtimeResponse.TheaterSummary theater = null;
-        ShowtimeResponse.ScreenSummary screenInfo = null;
-        
-        try {
-            var movieData = movieServiceClient.getMovieById(showtime.getMovieId());
-            movie = ShowtimeResponse.MovieSummary.builder()
-                    .id((String) movieData.get("id"))
-                    .title((String) movieData.get("title"))
-                    .language((String) movieData.get("language"))
-                    .posterUrl((String) movieData.get("posterUrl"))
-                    .build();
-        } catch (Exception e) {
-            // Movie service unavailable
-        }
-        
-        try {
-            var theaterData = theaterServiceClient.getTheaterById(showtime.getTheaterId());
-            theater = ShowtimeResponse.TheaterSummary.builder()
-                    .id((String) theaterData.get("id"))
-                    .name((String) theaterData.get("name"))
-                    .location((String) theaterData.get("location"))
-                    .build();
-        } catch (Exception e) {
-            // Theater service unavailable
-        }
-        
-        try {
-            if (showtime.getScreen() != null) {
-                var screenData = theaterServiceClient.getScreenById(showtime.getScreen());
-                screenInfo = ShowtimeResponse.ScreenSummary.builder()
-                        .id((String) screenData.get("id"))
-                        .name((String) screenData.get("name"))
-                        .totalSeats((Integer) screenData.get("totalSeats"))
-                        .build();
-            }
-        } catch (Exception e) {
-            // Screen service unavailable
+        return mapToResponses(List.of(showtime)).get(0);
+    }
+
+    /**
+     * Maps showtimes with their movie, theater and screen summaries. The
+     * summaries come from the near-cache; whatever it lacks is fetched with
+     * one batch call per kind, however many showtimes there are. A summary
+     * whose service is unavailable is left null.
+     */
+    private List<ShowtimeResponse> mapToResponses(List<Showtime> showtimes) {
+        Map<String, ShowtimeResponse.MovieSummary> movies =
+                summaryCacheService.getMovies(distinct(showtimes, Showtime::getMovieId));
+        Map<String, ShowtimeResponse.TheaterSummary> theaters =
+                summaryCacheService.getTheaters(distinct(showtimes, Showtime::getTheaterId));
+        Map<String, ShowtimeResponse.ScreenSummary> screens =
+                summaryCacheService.getScreens(distinct(showtimes, Showtime::getScreen));
+
+        List<ShowtimeResponse> responses = new ArrayList<>(showtimes.size());
+        for (Showtime showtime : showtimes) {
+            responses.add(ShowtimeResponse.builder()
+                    .id(showtime.getId())
+                    .movieId(showtime.getMovieId())
+                    .theaterId(showtime.getTheaterId())
+                    .screen(showtime.getScreen())
+                    .showDateTime(showtime.getShowDateTime())
+                    .ticketPrice(showtime.getTicketPrice())
+                    .totalSeats(showtime.getTotalSeats())
+                    .availableSeats(showtime.getAvailableSeats())
+                    .status(showtime.getStatus())
+                    .movie(showtime.getMovieId() != null ? movies.get(showtime.getMovieId()) : null)
+                    .theater(showtime.getTheaterId() != null ? theaters.get(showtime.getTheaterId()) : null)
+                    .screenInfo(showtime.getScreen() != null ? screens.get(showtime.getScreen()) : null)
+                    .build());
         }
-        
-        return ShowtimeResponse.builder()
-                .id(showtime.getId())
-                .movieId(showtime.getMovieId())
-                .theaterId(showtime.getTheaterId())
-                .screen(showtime.getScreen())
-                .showDateTime(showtime.getShowDateTime())
-                .ticketPrice(showtime.getTicketPrice())
-                .totalSeats(showtime.getTotalSeats())
-                .availableSeats(showtime.getAvailableSeats())
-                .status(showtime.getStatus())
-                .movie(movie)
-                .theater(theater)
-                .screenInfo(screenInfo)
-                .build();
+        return responses;
+    }
+
+    private static List<String> distinct(List<Showtime> showtimes, Function<Showtime, String> id) {
+        return showtimes.stream()
+                .map(id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,174 @@
+package com.revticket.showtime.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU near-cache of summaries fetched from another service, loaded in
+ * batches. An entry younger than the refresh age is served as is; an older
+ * one is still served while one background batch reloads it, so hot entries
+ * are renewed before they expire. Only missing or expired ids are loaded on
+ * the caller's thread, all of them in one batch.
+ *
+ * Ids the owning service does not return are not cached, and a failed load
+ * leaves the cache unchanged. A load that overlaps an invalidation is returned
+ * to its caller but not stored, so it cannot put back what was just dropped.
+ */
+public class SummaryCache<T> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long refreshAfterNanos;
+    private final long ttlNanos;
+    private final Function<List<String>, Map<String, T>> loader;
+    private final Executor refreshExecutor;
+
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<String> refreshing = new HashSet<>();
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long loadedAt;
+
+        private Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public SummaryCache(String name, int maxEntries, long refreshAfterSeconds, long ttlSeconds,
+                        Function<List<String>, Map<String, T>> loader, Executor refreshExecutor) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.refreshAfterNanos = TimeUnit.SECONDS.toNanos(Math.min(refreshAfterSeconds, ttlSeconds));
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.loader = loader;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Summaries for the given ids; ids that could not be resolved are absent.
+     */
+    public Map<String, T> getAll(Collection<String> ids) {
+        Map<String, T> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        long now = System.nanoTime();
+        long loadGeneration;
+
+        synchronized (this) {
+            loadGeneration = generation;
+            for (String id : ids) {
+                Entry<T> entry = entries.get(id);
+                long age = entry != null ? now - entry.loadedAt : Long.MAX_VALUE;
+                if (age >= ttlNanos) {
+                    missing.add(id);
+                    continue;
+                }
+                found.put(id, entry.value);
+                if (age >= refreshAfterNanos && refreshing.add(id)) {
+                    stale.add(id);
+                }
+            }
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(missing.size());
+
+        if (!stale.isEmpty()) {
+            refreshAhead(stale, loadGeneration);
+        }
+        if (!missing.isEmpty()) {
+            Map<String, T> loaded = loader.apply(missing);
+            store(loaded, loadGeneration);
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    public synchronized void invalidate(Collection<String> ids) {
+        ids.forEach(entries::remove);
+        generation++;
+        invalidations.addAndGet(ids.size());
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        generation++;
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", lookups > 0 ? Math.round(hitCount * 10000.0 / lookups) / 10000.0 : 0.0);
+        stats.put("refreshes", refreshes.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void refreshAhead(List<String> ids, long loadGeneration) {
+        Runnable task = () -> {
+            try {
+                store(loader.apply(ids), loadGeneration);
+                refreshes.incrementAndGet();
+            } finally {
+                synchronized (this) {
+                    ids.forEach(refreshing::remove);
+                }
+            }
+        };
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Entries stay usable until they expire and are then loaded inline
+            synchronized (this) {
+                ids.forEach(refreshing::remove);
+            }
+        }
+    }
+
+    private synchronized void store(Map<String, T> loaded, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        long now = System.nanoTime();
+        loaded.forEach((id, value) -> entries.put(id, new Entry<>(value, now)));
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.revticket.showtime.service;
+
+import com.revticket.showtime.client.MovieServiceClient;
+import com.revticket.showtime.client.TheaterServiceClient;
+import com.revticket.showtime.dto.ShowtimeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Near-caches of the movie, theater and screen summaries embedded in showtime
+ * responses. Misses are resolved through the owning services' batch endpoints;
+ * the owning services call {@link #invalidate} after a change, and the TTL
+ * bounds staleness when such a call is lost.
+ */
+@Service
+public class SummaryCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(SummaryCacheService.class);
+
+    public static final String MOVIE = "movie";
+    public static final String THEATER = "theater";
+    public static final String SCREEN = "screen";
+
+    /** Matches the largest batch the movie and theater services accept. */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final SummaryCache<ShowtimeResponse.MovieSummary> movies;
+    private final SummaryCache<ShowtimeResponse.TheaterSummary> theaters;
+    private final SummaryCache<ShowtimeResponse.ScreenSummary> screens;
+
+    public SummaryCacheService(MovieServiceClient movieServiceClient,
+                               TheaterServiceClient theaterServiceClient,
+                               @Qualifier("summaryRefreshExecutor") ThreadPoolTaskExecutor refreshExecutor,
+                               @Value("${app.summary-cache.max-entries:5000}") int maxEntries,
+                               @Value("${app.summary-cache.refresh-after-seconds:480}") long refreshAfterSeconds,
+                               @Value("${app.summary-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.movies = new SummaryCache<>(MOVIE, maxEntries, refreshAfterSeconds, ttlSeconds,
+                ids -> lookup(MOVIE, ids, movieServiceClient::getMoviesByIds,
+                        movieData -> ShowtimeResponse.MovieSummary.builder()
+                                .id((String) movieData.get("id"))
+                                .title((String) movieData.get("title"))
+                                .language((String) movieData.get("language"))
+                                .genre(stringList(movieData.get("genre")))
+                                .duration((Integer) movieData.get("duration"))
+                                .posterUrl((String) movieData.get("posterUrl"))
+                                .build()),
+                refreshExecutor);
+        this.theaters = new SummaryCache<>(THEATER, maxEntries, refreshAfterSeconds, ttlSeconds,
+                ids -> lookup(THEATER, ids, theaterServiceClient::getTheatersByIds,
+                        theaterData -> ShowtimeResponse.TheaterSummary.builder()
+                                .id((String) theaterData.get("id"))
+                                .name((String) theaterData.get("name"))
+                                .location((String) theaterData.get("location"))
+                                .build()),
+                refreshExecutor);
+        this.screens = new SummaryCache<>(SCREEN, maxEntries, refreshAfterSeconds, ttlSeconds,
+                ids -> lookup(SCREEN, ids, theaterServiceClient::getScreensByIds,
+                        screenData -> ShowtimeResponse.ScreenSummary.builder()
+                                .id((String) screenData.get("id"))
+                                .name((String) screenData.get("name"))
+                                .totalSeats((Integer) screenData.get("totalSeats"))
+                                .build()),
+                refreshExecutor);
+    }
+
+    public Map<String, ShowtimeResponse.MovieSummary> getMovies(Collection<String> ids) {
+        return movies.getAll(ids);
+    }
+
+    public Map<String, ShowtimeResponse.TheaterSummary> getTheaters(Collection<String> ids) {
+        return theaters.getAll(ids);
+    }
+
+    public Map<String, ShowtimeResponse.ScreenSummary> getScreens(Collection<String> ids) {
+        return screens.getAll(ids);
+    }
+
+    /**
+     * Drops the given summaries of one type, or all of them when no ids are
+     * given.
+     *
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public void invalidate(String type, List<String> ids) {
+        SummaryCache<?> cache = cache(type);
+        if (ids == null || ids.isEmpty()) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(ids.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+        }
+        logger.info("Invalidated {} {} summaries", ids == null || ids.isEmpty() ? "all" : ids.size(), type);
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (SummaryCache<?> cache : List.of(movies, theaters, screens)) {
+            stats.put(cache.getName(), cache.getStats());
+        }
+        return stats;
+    }
+
+    private SummaryCache<?> cache(String type) {
+        if (MOVIE.equalsIgnoreCase(type)) {
+            return movies;
+        }
+        if (THEATER.equalsIgnoreCase(type)) {
+            return theaters;
+        }
+        if (SCREEN.equalsIgnoreCase(type)) {
+            return screens;
+        }
+        throw new IllegalArgumentException("Unknown summary type: " + type);
+    }
+
+    /**
+     * Resolves ids through a batch endpoint, at most MAX_BATCH_SIZE per call.
+     * A failed call leaves its ids unresolved rather than failing the listing.
+     */
+    private static <T> Map<String, T> lookup(String type, List<String> ids,
+                                             Function<List<String>, List<Map<String, Object>>> batch,
+                                             Function<Map<String, Object>, T> mapper) {
+        Map<String, T> resolved = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size()));
+            try {
+                for (Map<String, Object> data : batch.apply(chunk)) {
+                    if (data != null && data.get("id") != null) {
+                        resolved.put(data.get("id").toString(), mapper.apply(data));
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Batch lookup of {} {} ids failed: {}", chunk.size(), type, e.getMessage());
+            }
+        }
+        return resolved;
+    }
+
+    private static List<String> stringList(Object value) {
+        if (value instanceof List) {
+            return ((List<?>) value).stream()
+                    .filter(Objects::nonNull)
+                    .map(Object::toString)
+                    .collect(Collectors.toList());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,155 @@
+package com.revticket.showtime.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SummaryCacheTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    /** Source that answers with "id@version" and records every batch it is asked for. */
+    private static final class Source implements Function<List<String>, Map<String, String>> {
+        private final List<List<String>> calls = new ArrayList<>();
+        private Set<String> unknown = Set.of();
+        private int version = 1;
+        private Runnable duringLoad = () -> { };
+
+        @Override
+        public Map<String, String> apply(List<String> ids) {
+            calls.add(List.copyOf(ids));
+            duringLoad.run();
+            Map<String, String> values = new HashMap<>();
+            for (String id : ids) {
+                if (!unknown.contains(id)) {
+                    values.put(id, id + "@" + version);
+                }
+            }
+            return values;
+        }
+    }
+
+    private final Source source = new Source();
+
+    @Test
+    void loadsMissingIdsInOneBatchAndThenServesThemFromCache() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 600, 600, source, DIRECT);
+
+        assertEquals(Map.of("a", "a@1", "b", "b@1"), cache.getAll(List.of("a", "b")));
+        assertEquals(Map.of("a", "a@1", "b", "b@1", "c", "c@1"), cache.getAll(List.of("a", "b", "c")));
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), source.calls);
+    }
+
+    @Test
+    void idsTheSourceDoesNotKnowAreNotCached() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 600, 600, source, DIRECT);
+        source.unknown = Set.of("gone");
+
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a", "gone")));
+        cache.getAll(List.of("a", "gone"));
+
+        assertEquals(List.of(List.of("a", "gone"), List.of("gone")), source.calls);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 2, 600, 600, source, DIRECT);
+        cache.getAll(List.of("a"));
+        cache.getAll(List.of("b"));
+        cache.getAll(List.of("a"));
+        cache.getAll(List.of("c"));
+
+        source.calls.clear();
+        cache.getAll(List.of("a", "c"));
+        assertTrue(source.calls.isEmpty());
+        cache.getAll(List.of("b"));
+        assertEquals(List.of(List.of("b")), source.calls);
+        assertEquals(2L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgainOnTheCallersThread() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 0, 0, source, DIRECT);
+        cache.getAll(List.of("a"));
+        source.version = 2;
+
+        assertEquals(Map.of("a", "a@2"), cache.getAll(List.of("a")));
+        assertEquals(2, source.calls.size());
+        assertEquals(0L, cache.getStats().get("refreshes"));
+    }
+
+    @Test
+    void staleEntryIsServedWhileItIsRefreshedInTheBackground() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 0, 600, source, DIRECT);
+        cache.getAll(List.of("a"));
+        source.version = 2;
+
+        // The old value is returned and the refresh stores the new one
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a")));
+        assertEquals(Map.of("a", "a@2"), cache.getAll(List.of("a")));
+        assertEquals(2L, cache.getStats().get("refreshes"));
+    }
+
+    @Test
+    void rejectedRefreshKeepsServingTheCachedValue() {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 0, 600, source, rejecting);
+        cache.getAll(List.of("a"));
+        source.version = 2;
+
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a")));
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a")));
+        assertEquals(1, source.calls.size());
+    }
+
+    @Test
+    void invalidatedEntriesAreLoadedAgain() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 600, 600, source, DIRECT);
+        cache.getAll(List.of("a", "b"));
+        source.version = 2;
+        cache.invalidate(List.of("a"));
+
+        assertEquals(Map.of("a", "a@2", "b", "b@1"), cache.getAll(List.of("a", "b")));
+
+        cache.invalidateAll();
+        assertEquals(Map.of("a", "a@2", "b", "b@2"), cache.getAll(List.of("a", "b")));
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsReturnedButNotStored() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 600, 600, source, DIRECT);
+        source.duringLoad = () -> cache.invalidate(List.of("a"));
+
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a")));
+        assertEquals(0, cache.getStats().get("entries"));
+
+        source.duringLoad = () -> { };
+        source.version = 2;
+        assertEquals(Map.of("a", "a@2"), cache.getAll(List.of("a")));
+        assertEquals(1, cache.getStats().get("entries"));
+    }
+
+    @Test
+    void refreshOverlappingAnInvalidationDoesNotPutTheOldValueBack() {
+        SummaryCache<String> cache = new SummaryCache<>("movie", 10, 0, 600, source, DIRECT);
+        cache.getAll(List.of("a"));
+        source.duringLoad = () -> cache.invalidate(List.of("a"));
+
+        assertEquals(Map.of("a", "a@1"), cache.getAll(List.of("a")));
+
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.revticket.theater.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Client and pool for ShowtimeCacheNotifier. Invalidations are sent off the
+ * request thread on a small bounded pool, and each call gives up after the
+ * configured timeouts, so a slow showtime-service instance delays neither
+ * the admin's response nor the other instances.
+ */
+@Configuration
+public class ShowtimeCacheNotifierConfig {
+
+    @Bean
+    public RestTemplate showtimeCacheRestTemplate(
+            @Value("${app.showtime-cache.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${app.showtime-cache.read-timeout-ms:2000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor showtimeCacheNotifierExecutor(
+            @Value("${app.showtime-cache.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("showtime-cache-notifier-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -7,6 +7,7 @@ import com.revticket.theater.entity.SeatData;
 import com.revticket.theater.entity.Theater;
 import com.revticket.theater.repository.*;
 import com.revticket.theater.service.ScreenService;
+import com.revticket.theater.service.ShowtimeCacheNotifier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -36,6 +37,9 @@ public class AdminScreenController {
     @Autowired
     private TheaterRepository theaterRepository;
 
+    @Autowired
+    private ShowtimeCacheNotifier showtimeCacheNotifier;
+
     @GetMapping
     public ResponseEntity<List<ScreenResponse>> getScreens(
             @RequestParam(name = "theatreId", required = false) String theatreId,
@@ -180,6 +184,7 @@ public class AdminScreenController {
                 }
             }
 
+            showtimeCacheNotifier.invalidateAfterCommit("screen", id);
             request.setId(updated.getId());
             return ResponseEntity.ok(request);
         } catch (Exception e) {
@@ -193,6 +198,7 @@ public class AdminScreenController {
         seatCategoryRepository.deleteByScreenId(id);
         seatDataRepository.deleteByScreenId(id);
         screenRepository.deleteById(id);
+        showtimeCacheNotifier.invalidateAfterCommit("screen", id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -10,6 +10,7 @@ import com.revticket.theater.repository.SeatDataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,6 +18,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/screens")
 public class ScreenController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private ScreenRepository screenRepository;
 
@@ -31,15 +34,21 @@ public class ScreenController {
         Screen screen = screenRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Screen not found"));
 
-        ScreenResponse resp = ScreenResponse.builder()
-                .id(screen.getId())
-                .name(screen.getName())
-                .totalSeats(screen.getTotalSeats())
-                .theaterId(screen.getTheater() != null ? screen.getTheater().getId() : null)
-                .isActive(screen.getIsActive())
-                .build();
+        return ResponseEntity.ok(toResponse(screen));
+    }
 
-        return ResponseEntity.ok(resp);
+    /**
+     * Looks up many screens in one call, for services that would otherwise
+     * fetch them one by one. Unknown ids are skipped.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ScreenResponse>> getScreensByIds(@RequestBody List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(screenRepository.findAllById(new HashSet<>(ids)).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList()));
     }
 
     @GetMapping("/{id}/config")
@@ -66,4 +75,14 @@ public class ScreenController {
 
         return ResponseEntity.ok(config);
     }
+
+    private ScreenResponse toResponse(Screen screen) {
+        return ScreenResponse.builder()
+                .id(screen.getId())
+                .name(screen.getName())
+                .totalSeats(screen.getTotalSeats())
+                .theaterId(screen.getTheater() != null ? screen.getTheater().getId() : null)
+                .isActive(screen.getIsActive())
+                .build();
+    }
 }
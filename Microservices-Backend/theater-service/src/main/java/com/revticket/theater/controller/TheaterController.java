@@ -1,5 +1,6 @@
 package com.revticket.theater.controller;
 
+import com.revticket.theater.dto.NearbyTheaterResponse;
 import com.revticket.theater.dto.TheaterRequest;
 import com.revticket.theater.dto.TheaterResponse;
 import com.revticket.theater.service.TheaterService;
@@ -15,6 +16,8 @@ import java.util.List;
 @RequestMapping("/api/theaters")
 public class TheaterController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private TheaterService theaterService;
 
@@ -28,6 +31,37 @@ public class TheaterController {
         return ResponseEntity.ok(theaterService.getAllTheaters(activeOnly));
     }
 
+    /**
+     * Theaters within radiusKm of the point, or the nearest ones when no
+     * radius is given, closest first.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyTheaterResponse>> getNearbyTheaters(
+            @RequestParam("lat") double latitude,
+            @RequestParam("lng") double longitude,
+            @RequestParam(name = "radiusKm", required = false) Double radiusKm,
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        if (Double.isNaN(latitude) || Double.isNaN(longitude) || Math.abs(latitude) > 90 || Math.abs(longitude) > 180
+                || (radiusKm != null && !(radiusKm > 0))) {
+            return ResponseEntity.badRequest().build();
+        }
+        int capped = Math.max(1, Math.min(limit, 100));
+        Double radius = radiusKm != null ? Math.min(radiusKm, 500.0) : null;
+        return ResponseEntity.ok(theaterService.getNearbyTheaters(latitude, longitude, radius, capped));
+    }
+
+    /**
+     * Looks up many theaters in one call, for services that would otherwise
+     * fetch them one by one.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TheaterResponse>> getTheatersByIds(@RequestBody List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(theaterService.getTheatersByIds(ids));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TheaterResponse> getTheaterById(@PathVariable("id") String id) {
         return theaterService.getTheaterById(id)
@@ -0,0 +1,13 @@
+package com.revticket.theater.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyTheaterResponse {
+    private TheaterResponse theater;
+    private Double distanceKm;
+}
@@ -13,6 +13,8 @@ public class TheaterResponse {
     String address;
     Integer totalScreens;
     String imageUrl;
+    Double latitude;
+    Double longitude;
     Boolean isActive;
     List<CategoryDTO> defaultCategories;
 }
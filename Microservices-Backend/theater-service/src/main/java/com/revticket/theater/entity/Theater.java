@@ -30,6 +30,10 @@ public class Theater {
     @Column(name = "image_url")
     private String imageUrl;
 
+    private Double latitude;
+
+    private Double longitude;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 }
@@ -9,6 +9,6 @@ import java.util.List;
 @Repository
 public interface TheaterRepository extends JpaRepository<Theater, String> {
     List<Theater> findByIsActiveTrue();
-    List<Theater> findByLocationAndIsActiveTrue(String location);
-    List<Theater> findByLocation(String location);
+    List<Theater> findByLocationIgnoreCaseAndIsActiveTrue(String location);
+    List<Theater> findByLocationIgnoreCase(String location);
 }
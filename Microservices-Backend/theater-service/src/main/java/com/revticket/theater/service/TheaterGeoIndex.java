@@ -0,0 +1,295 @@
+package com.revticket.theater.service;
+
+import com.revticket.theater.entity.Theater;
+import com.revticket.theater.repository.TheaterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Uniform latitude/longitude grid over active theaters that have coordinates.
+ * A radius query only visits the cells overlapping the circle's bounding box.
+ * A nearest query visits rings of cells outwards from the origin and stops
+ * once nothing in an unvisited ring could be closer than the k-th match.
+ *
+ * Each instance keeps its own index and only sees the changes it makes
+ * itself, so it is also rebuilt from the repository on a fixed interval to
+ * pick up theaters changed through other instances.
+ */
+@Component
+public class TheaterGeoIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TheaterGeoIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    @Autowired
+    private TheaterRepository theaterRepository;
+
+    private final double cellDegrees;
+    private Map<Long, List<Point>> cells = new HashMap<>();
+    private Map<String, Point> points = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TheaterGeoIndex(@Value("${app.geo.cell-size-degrees:0.1}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    private static final class Point {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+        private final long cell;
+
+        private Point(String id, double latitude, double longitude, long cell) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+        logger.info("Theater geo index loaded with {} theaters", size());
+    }
+
+    /**
+     * Replaces the index with one built from the repository. The new grid is
+     * built before the write lock is taken, so queries are only blocked for
+     * the swap.
+     */
+    @Scheduled(fixedDelayString = "${app.geo.rebuild-interval-ms:300000}",
+            initialDelayString = "${app.geo.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        try {
+            Map<Long, List<Point>> newCells = new HashMap<>();
+            Map<String, Point> newPoints = new HashMap<>();
+            for (Theater theater : theaterRepository.findByIsActiveTrue()) {
+                addTo(newCells, newPoints, theater);
+            }
+            lock.writeLock().lock();
+            try {
+                cells = newCells;
+                points = newPoints;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            logger.warn("Theater geo index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes, moves or drops a theater to match its current state.
+     */
+    public void update(Theater theater) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(theater.getId());
+            addTo(cells, points, theater);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String theaterId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(theaterId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Theater ids within the radius, nearest first, mapped to their distance
+     * in km.
+     */
+    public LinkedHashMap<String, Double> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        lock.readLock().lock();
+        try {
+            double latDelta = radiusKm / KM_PER_DEGREE;
+            double lonDelta = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(
+                    Math.min(90, Math.abs(latitude) + latDelta)))));
+            int minRow = row(latitude - latDelta);
+            int maxRow = row(latitude + latDelta);
+            int minColumn = column(longitude - lonDelta);
+            int maxColumn = column(longitude + lonDelta);
+
+            List<Map.Entry<String, Double>> matches = new ArrayList<>();
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    collect(cells.get(cell(row, column)), latitude, longitude, radiusKm, matches);
+                }
+            }
+            return nearest(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k theaters closest to the point, searched out to at most
+     * maxRadiusKm. Rings are clipped to the rows and columns the radius can
+     * reach, and when that box has more cells than there are theaters (large
+     * radius, or close to a pole where columns get narrow) every theater is
+     * checked directly instead.
+     */
+    public LinkedHashMap<String, Double> nearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        lock.readLock().lock();
+        try {
+            double radiusDegrees = Math.toDegrees(maxRadiusKm / EARTH_RADIUS_KM);
+            double cosLatitude = Math.cos(Math.toRadians(latitude));
+            // Widest longitude difference within the radius; every longitude once a pole is in reach
+            double lonDelta = Math.abs(latitude) + radiusDegrees >= 90 ? 360 : Math.toDegrees(Math.asin(
+                    Math.min(1, Math.sin(Math.toRadians(radiusDegrees)) / cosLatitude)));
+            int maxRowOffset = (int) Math.ceil(radiusDegrees / cellDegrees) + 1;
+            int maxColumnOffset = (int) Math.ceil(lonDelta / cellDegrees) + 1;
+
+            List<Map.Entry<String, Double>> matches = new ArrayList<>();
+            if ((2L * maxRowOffset + 1) * (2L * maxColumnOffset + 1) > points.size()) {
+                collect(points.values(), latitude, longitude, maxRadiusKm, matches);
+                return nearest(matches, k);
+            }
+
+            int originRow = row(latitude);
+            int originColumn = column(longitude);
+            int maxRing = Math.max(maxRowOffset, maxColumnOffset);
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (ring <= maxRowOffset) {
+                    // Top and bottom edges of the ring
+                    int columnSpan = Math.min(ring, maxColumnOffset);
+                    for (int column = originColumn - columnSpan; column <= originColumn + columnSpan; column++) {
+                        collect(cells.get(cell(originRow - ring, column)), latitude, longitude, maxRadiusKm, matches);
+                        if (ring > 0) {
+                            collect(cells.get(cell(originRow + ring, column)), latitude, longitude, maxRadiusKm,
+                                    matches);
+                        }
+                    }
+                }
+                if (ring <= maxColumnOffset) {
+                    // Left and right edges, without the corners already visited
+                    int rowSpan = ring <= maxRowOffset ? ring - 1 : maxRowOffset;
+                    for (int row = originRow - rowSpan; row <= originRow + rowSpan; row++) {
+                        collect(cells.get(cell(row, originColumn - ring)), latitude, longitude, maxRadiusKm, matches);
+                        collect(cells.get(cell(row, originColumn + ring)), latitude, longitude, maxRadiusKm, matches);
+                    }
+                }
+                if (matches.size() >= k) {
+                    matches.sort(Map.Entry.comparingByValue());
+                    if (matches.get(k - 1).getValue() <= ringDistanceKm(ring, cosLatitude)) {
+                        break;
+                    }
+                }
+            }
+            return nearest(matches, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower bound on the distance to anything in ring + 1 or beyond, which is
+     * more than ring cells away in latitude or in longitude.
+     */
+    private double ringDistanceKm(int ring, double cosLatitude) {
+        double degrees = ring * cellDegrees;
+        double byLatitude = Math.toRadians(degrees) * EARTH_RADIUS_KM;
+        double byLongitude = Math.asin(Math.sin(Math.toRadians(Math.min(90, degrees))) * cosLatitude)
+                * EARTH_RADIUS_KM;
+        return Math.min(byLatitude, byLongitude);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void collect(Collection<Point> cell, double latitude, double longitude, double radiusKm,
+                         List<Map.Entry<String, Double>> matches) {
+        if (cell == null) {
+            return;
+        }
+        for (Point point : cell) {
+            double distance = distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (distance <= radiusKm) {
+                matches.add(Map.entry(point.id, distance));
+            }
+        }
+    }
+
+    private static LinkedHashMap<String, Double> nearest(List<Map.Entry<String, Double>> matches, int limit) {
+        matches.sort(Comparator.comparingDouble(Map.Entry::getValue));
+        LinkedHashMap<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> match : matches) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.put(match.getKey(), Math.round(match.getValue() * 100) / 100.0);
+        }
+        return result;
+    }
+
+    private void addTo(Map<Long, List<Point>> gridCells, Map<String, Point> gridPoints, Theater theater) {
+        if (Boolean.TRUE.equals(theater.getIsActive())
+                && theater.getLatitude() != null && theater.getLongitude() != null) {
+            long cell = cell(row(theater.getLatitude()), column(theater.getLongitude()));
+            Point point = new Point(theater.getId(), theater.getLatitude(), theater.getLongitude(), cell);
+            gridPoints.put(point.id, point);
+            gridCells.computeIfAbsent(cell, k -> new ArrayList<>()).add(point);
+        }
+    }
+
+    private void removeLocked(String theaterId) {
+        Point existing = points.remove(theaterId);
+        if (existing != null) {
+            List<Point> cell = cells.get(existing.cell);
+            cell.remove(existing);
+            if (cell.isEmpty()) {
+                cells.remove(existing.cell);
+            }
+        }
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cell(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
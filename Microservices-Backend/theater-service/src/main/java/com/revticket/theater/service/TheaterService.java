@@ -1,5 +1,6 @@
 package com.revticket.theater.service;
 
+import com.revticket.theater.dto.NearbyTheaterResponse;
 import com.revticket.theater.dto.TheaterRequest;
 import com.revticket.theater.dto.TheaterResponse;
 import com.revticket.theater.dto.TheaterStatsResponse;
@@ -10,8 +11,15 @@ import com.revticket.theater.repository.TheaterRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,12 +27,20 @@ import java.util.stream.Collectors;
 @Service
 public class TheaterService {
 
+    private static final double MAX_NEAREST_RADIUS_KM = 200.0;
+
     @Autowired
     private TheaterRepository theaterRepository;
 
     @Autowired
     private ScreenRepository screenRepository;
 
+    @Autowired
+    private TheaterGeoIndex theaterGeoIndex;
+
+    @Autowired
+    private ShowtimeCacheNotifier showtimeCacheNotifier;
+
     @Transactional(readOnly = true)
     public List<TheaterResponse> getAllTheaters(boolean activeOnly) {
         List<Theater> theaters = activeOnly
@@ -38,8 +54,8 @@ public class TheaterService {
     @Transactional(readOnly = true)
     public List<TheaterResponse> getTheatersByCity(String city, boolean activeOnly) {
         List<Theater> theaters = activeOnly
-                ? theaterRepository.findByLocationAndIsActiveTrue(city)
-                : theaterRepository.findByLocation(city);
+                ? theaterRepository.findByLocationIgnoreCaseAndIsActiveTrue(city.trim())
+                : theaterRepository.findByLocationIgnoreCase(city.trim());
         return theaters.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
@@ -50,11 +66,48 @@ public class TheaterService {
         return theaterRepository.findById(Objects.requireNonNullElse(id, "")).map(this::mapToResponse);
     }
 
+    /**
+     * Theaters with the given ids, in no particular order; unknown ids are
+     * skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<TheaterResponse> getTheatersByIds(Collection<String> ids) {
+        return theaterRepository.findAllById(new HashSet<>(ids)).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Active theaters within the radius, nearest first. Theaters without
+     * coordinates are never returned.
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyTheaterResponse> getNearbyTheaters(double latitude, double longitude, Double radiusKm,
+                                                        int limit) {
+        LinkedHashMap<String, Double> distances = radiusKm != null
+                ? theaterGeoIndex.withinRadius(latitude, longitude, radiusKm, limit)
+                : theaterGeoIndex.nearest(latitude, longitude, limit, MAX_NEAREST_RADIUS_KM);
+
+        Map<String, Theater> theaters = new LinkedHashMap<>();
+        theaterRepository.findAllById(distances.keySet()).forEach(theater -> theaters.put(theater.getId(), theater));
+
+        List<NearbyTheaterResponse> nearby = new ArrayList<>(distances.size());
+        for (Map.Entry<String, Double> entry : distances.entrySet()) {
+            Theater theater = theaters.get(entry.getKey());
+            if (theater != null) {
+                nearby.add(new NearbyTheaterResponse(mapToResponse(theater), entry.getValue()));
+            }
+        }
+        return nearby;
+    }
+
     @Transactional
     public TheaterResponse createTheater(TheaterRequest request) {
         Theater theater = new Theater();
         applyRequest(theater, request);
-        return mapToResponse(theaterRepository.save(theater));
+        Theater saved = theaterRepository.save(theater);
+        reindexAfterCommit(saved);
+        return mapToResponse(saved);
     }
 
     @Transactional
@@ -62,7 +115,10 @@ public class TheaterService {
         Theater theater = theaterRepository.findById(Objects.requireNonNullElse(id, ""))
                 .orElseThrow(() -> new RuntimeException("Theater not found"));
         applyRequest(theater, request);
-        return mapToResponse(theaterRepository.save(theater));
+        Theater saved = theaterRepository.save(theater);
+        reindexAfterCommit(saved);
+        showtimeCacheNotifier.invalidateAfterCommit("theater", saved.getId());
+        return mapToResponse(saved);
     }
 
     @Transactional
@@ -70,7 +126,10 @@ public class TheaterService {
         Theater theater = theaterRepository.findById(Objects.requireNonNullElse(id, ""))
                 .orElseThrow(() -> new RuntimeException("Theater not found"));
         theater.setIsActive(isActive);
-        return mapToResponse(theaterRepository.save(theater));
+        Theater saved = theaterRepository.save(theater);
+        reindexAfterCommit(saved);
+        showtimeCacheNotifier.invalidateAfterCommit("theater", saved.getId());
+        return mapToResponse(saved);
     }
 
     @Transactional
@@ -78,6 +137,26 @@ public class TheaterService {
         Theater theater = theaterRepository.findById(Objects.requireNonNullElse(id, ""))
                 .orElseThrow(() -> new RuntimeException("Theater not found"));
         theaterRepository.delete(theater);
+        theater.setIsActive(false);
+        reindexAfterCommit(theater);
+        showtimeCacheNotifier.invalidateAfterCommit("theater", theater.getId());
+    }
+
+    /**
+     * Keeps the geo index in step with the database once the change is
+     * committed.
+     */
+    private void reindexAfterCommit(Theater theater) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    theaterGeoIndex.update(theater);
+                }
+            });
+        } else {
+            theaterGeoIndex.update(theater);
+        }
     }
 
     private void applyRequest(Theater theater, TheaterRequest request) {
@@ -86,6 +165,16 @@ public class TheaterService {
         theater.setAddress(request.getAddress());
         theater.setTotalScreens(request.getTotalScreens());
         theater.setImageUrl(request.getImageUrl());
+        if ((request.getLatitude() == null) != (request.getLongitude() == null)) {
+            throw new IllegalArgumentException("Latitude and longitude must be given together");
+        }
+        if (request.getLatitude() != null
+                && (Double.isNaN(request.getLatitude()) || Double.isNaN(request.getLongitude())
+                || Math.abs(request.getLatitude()) > 90 || Math.abs(request.getLongitude()) > 180)) {
+            throw new IllegalArgumentException("Coordinates are out of range");
+        }
+        theater.setLatitude(request.getLatitude());
+        theater.setLongitude(request.getLongitude());
         if (request.getIsActive() != null) {
             theater.setIsActive(request.getIsActive());
         } else if (theater.getIsActive() == null) {
@@ -110,6 +199,8 @@ public class TheaterService {
                 .address(theater.getAddress())
                 .totalScreens(theater.getTotalScreens())
                 .imageUrl(theater.getImageUrl())
+                .latitude(theater.getLatitude())
+                .longitude(theater.getLongitude())
                 .isActive(theater.getIsActive())
                 .defaultCategories(null)
                 .build();